@@ -0,0 +1,614 @@
+Off-Heap Second Level Cache**
+
+The second-level cache from `5_Caching.java` keeps every cached entry as normal Java objects on the heap.
+For small reference tables that is fine, but when the regions grow (countries, permissions, product categories, thousands of students...)
+the garbage collector has to walk all those objects again and again, and GC pauses get longer.
+
+The idea of an **off-heap tier** is simple:
+
+* Only the **keys** stay on the heap (small objects, needed for `equals()`/`hashCode()`).
+* The **values** (cached entity state) are written as bytes into a **direct `ByteBuffer`**, which lives outside the Java heap.
+* The GC never scans direct memory, so a big cache costs (almost) nothing at GC time.
+
+---
+
+### 🔹 How it works
+
+1. We plug our own `RegionFactory` into Hibernate (`hibernate.cache.region.factory_class`).
+2. Every region (one per `@Cache` entity, collection, query cache, timestamps) gets its own direct buffer of a fixed size.
+3. The buffer is used as a **ring**: new entries are appended, and when the ring is full it wraps to the start and
+   the oldest entries are evicted. So eviction is **size-based and per region**.
+4. Entries are encoded with a small binary format (1 byte type tag + value). We turn on
+   `hibernate.cache.use_structured_entries`, so an entity entry is just a `Map` of property name -> value, which encodes very compactly.
+
+---
+
+### 🔹 Configuration (`hibernate.cfg.xml`)
+
+```xml
+<property name="hibernate.cache.use_second_level_cache">true</property>
+<property name="hibernate.cache.use_structured_entries">true</property>
+<property name="hibernate.cache.region.factory_class">com.cache.OffHeapRegionFactory</property>
+
+<!-- default size of every region, in bytes (here 64 MB) -->
+<property name="hibernate.cache.offheap.region_bytes">67108864</property>
+<!-- a region can have its own size -->
+<property name="hibernate.cache.offheap.region_bytes.com.mavenlearn.Student">16777216</property>
+```
+
+And the entity is marked cacheable same as before:
+
+```java
+@Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
+public class Student { ... }
+```
+
+> Direct memory is limited by `-XX:MaxDirectMemorySize`. The sum of all region sizes must fit in it.
+
+---
+
+OffHeapRegionFactory.java
+
+package com.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+public class OffHeapRegionFactory extends RegionFactoryTemplate {
+
+	public static final String REGION_BYTES = "hibernate.cache.offheap.region_bytes";
+
+	private static final int DEFAULT_REGION_BYTES = 32 * 1024 * 1024;
+
+	private final Map<String, OffHeapStorageAccess> regions = new ConcurrentHashMap<>();
+	private Map<?, ?> configValues;
+
+	@Override
+	protected void prepareForUse(SessionFactoryOptions settings, @SuppressWarnings("rawtypes") Map configValues) {
+		this.configValues = configValues;
+	}
+
+	@Override
+	protected void releaseFromUse() {
+		for (OffHeapStorageAccess region : regions.values()) {
+			region.release();
+		}
+		regions.clear();
+	}
+
+	@Override
+	protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+			DomainDataRegionBuildingContext buildingContext) {
+		return createRegion(regionConfig.getRegionName());
+	}
+
+	@Override
+	protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		return createRegion(regionName);
+	}
+
+	@Override
+	protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		return createRegion(regionName);
+	}
+
+	// All regions built by this factory, used by the report to print hit/miss and memory numbers
+	public Map<String, OffHeapStorageAccess> getRegions() {
+		return regions;
+	}
+
+	private OffHeapStorageAccess createRegion(String regionName) {
+		OffHeapStorageAccess region = new OffHeapStorageAccess(regionName, regionBytes(regionName));
+		regions.put(regionName, region);
+		return region;
+	}
+
+	// Region specific size wins, then the default size, then our built-in default
+	private int regionBytes(String regionName) {
+		Object value = configValues.get(REGION_BYTES + "." + regionName);
+		if (value == null) {
+			value = configValues.get(REGION_BYTES);
+		}
+		return value == null ? DEFAULT_REGION_BYTES : Integer.parseInt(value.toString().trim());
+	}
+}
+
+-------------------------------------
+
+OffHeapStorageAccess.java
+
+package com.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * One cache region stored in a direct ByteBuffer used as a ring.
+ * Keys stay on the heap in {@code index}, values are only bytes in {@code ring}.
+ */
+public class OffHeapStorageAccess implements DomainDataStorageAccess, SnapshotSource {
+
+	// Where one value lives inside the ring. lap tells us in which round of the ring it was written.
+	private static final class Slot {
+		final Object key;
+		final int offset;
+		final int length;
+		final long lap;
+
+		Slot(Object key, int offset, int length, long lap) {
+			this.key = key;
+			this.offset = offset;
+			this.length = length;
+			this.lap = lap;
+		}
+	}
+
+	private final String regionName;
+	private final ByteBuffer ring;
+	private final Map<Object, Slot> index = new HashMap<>();
+	// Slots in the order they were written, oldest first
+	private final ArrayDeque<Slot> writeOrder = new ArrayDeque<>();
+
+	private int writePosition;
+	private long lap;
+
+	private long hitCount;
+	private long missCount;
+	private long putCount;
+	private long evictionCount;
+
+	public OffHeapStorageAccess(String regionName, int capacityBytes) {
+		this.regionName = regionName;
+		this.ring = ByteBuffer.allocateDirect(capacityBytes);
+	}
+
+	@Override
+	public synchronized Object getFromCache(Object key, SharedSessionContractImplementor session) {
+		Slot slot = index.get(key);
+		if (slot == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return decode(slot);
+	}
+
+	@Override
+	public synchronized Object peek(Object key) {
+		Slot slot = index.get(key);
+		return slot == null ? null : decode(slot);
+	}
+
+	private Object decode(Slot slot) {
+		ByteBuffer view = ring.duplicate();
+		view.limit(slot.offset + slot.length);
+		view.position(slot.offset);
+		return BinaryEntryCodec.decode(view);
+	}
+
+	@Override
+	public synchronized void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+		ByteBuffer encoded = BinaryEntryCodec.encode(value);
+		int length = encoded.remaining();
+		if (length > ring.capacity()) {
+			// Bigger than the whole region, we simply don't cache it
+			evictData(key);
+			return;
+		}
+		if (writePosition + length > ring.capacity()) {
+			wrap();
+		}
+		reclaim(writePosition + length);
+
+		ByteBuffer target = ring.duplicate();
+		target.position(writePosition);
+		target.put(encoded);
+
+		// If the key was already cached, its old bytes become dead space until the ring comes back to them
+		Slot slot = new Slot(key, writePosition, length, lap);
+		index.put(key, slot);
+		writeOrder.addLast(slot);
+		writePosition += length;
+		putCount++;
+	}
+
+	@Override
+	public synchronized boolean contains(Object key) {
+		return index.containsKey(key);
+	}
+
+	@Override
+	public synchronized List<Object> keys() {
+		return new ArrayList<>(index.keySet());
+	}
+
+	@Override
+	public synchronized void evictData() {
+		index.clear();
+		writeOrder.clear();
+		writePosition = 0;
+		lap++;
+	}
+
+	@Override
+	public synchronized void evictData(Object key) {
+		index.remove(key);
+	}
+
+	@Override
+	public void release() {
+		evictData();
+	}
+
+	// Everything left from the previous lap is behind us now, drop it and start again at 0
+	private void wrap() {
+		while (!writeOrder.isEmpty() && writeOrder.peekFirst().lap < lap) {
+			drop(writeOrder.pollFirst());
+		}
+		writePosition = 0;
+		lap++;
+	}
+
+	// Drop the old slots which are going to be overwritten by [writePosition, end)
+	private void reclaim(int end) {
+		while (!writeOrder.isEmpty()) {
+			Slot oldest = writeOrder.peekFirst();
+			if (oldest.lap == lap || oldest.offset >= end) {
+				return;
+			}
+			drop(writeOrder.pollFirst());
+		}
+	}
+
+	private void drop(Slot slot) {
+		// Only remove it from the index if the key was not written again later
+		if (index.get(slot.key) == slot) {
+			index.remove(slot.key);
+			evictionCount++;
+		}
+	}
+
+	public String getRegionName() {
+		return regionName;
+	}
+
+	public int getCapacityBytes() {
+		return ring.capacity();
+	}
+
+	public synchronized int getEntryCount() {
+		return index.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public synchronized long getPutCount() {
+		return putCount;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+}
+
+-------------------------------------
+
+BinaryEntryCodec.java
+
+package com.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.cache.CacheException;
+
+/**
+ * Compact binary format for cache values: 1 byte tag followed by the value.
+ * Structured entity entries are Maps and collection entries are Lists, so almost everything
+ * is written with the small tags. Anything else falls back to Java serialization.
+ */
+public final class BinaryEntryCodec {
+
+	private static final byte NULL = 0;
+	private static final byte INT = 1;
+	private static final byte LONG = 2;
+	private static final byte STRING = 3;
+	private static final byte BOOLEAN = 4;
+	private static final byte DOUBLE = 5;
+	private static final byte MAP = 6;
+	private static final byte LIST = 7;
+	private static final byte ARRAY = 8;
+	private static final byte DATE = 9;
+	private static final byte SERIALIZED = 10;
+
+	// Scratch buffer per thread, grows when an entry does not fit
+	private static final ThreadLocal<ByteBuffer> SCRATCH = ThreadLocal.withInitial(() -> ByteBuffer.allocate(4096));
+
+	private BinaryEntryCodec() {
+	}
+
+	// Returns a buffer ready to read. It is reused by the next encode() on the same thread.
+	public static ByteBuffer encode(Object value) {
+		ByteBuffer buffer = SCRATCH.get();
+		while (true) {
+			buffer.clear();
+			try {
+				write(buffer, value);
+				buffer.flip();
+				return buffer;
+			}
+			catch (BufferOverflowException e) {
+				buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+				SCRATCH.set(buffer);
+			}
+		}
+	}
+
+	public static Object decode(ByteBuffer buffer) {
+		return read(buffer);
+	}
+
+	private static void write(ByteBuffer buffer, Object value) {
+		if (value == null) {
+			buffer.put(NULL);
+		}
+		else if (value instanceof Integer) {
+			buffer.put(INT).putInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			buffer.put(LONG).putLong((Long) value);
+		}
+		else if (value instanceof String) {
+			byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+			buffer.put(STRING).putInt(bytes.length).put(bytes);
+		}
+		else if (value instanceof Boolean) {
+			buffer.put(BOOLEAN).put((byte) ((Boolean) value ? 1 : 0));
+		}
+		else if (value instanceof Double) {
+			buffer.put(DOUBLE).putDouble((Double) value);
+		}
+		else if (value.getClass() == java.util.Date.class) {
+			buffer.put(DATE).putLong(((java.util.Date) value).getTime());
+		}
+		else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			buffer.put(MAP).putInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				write(buffer, entry.getKey());
+				write(buffer, entry.getValue());
+			}
+		}
+		else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			buffer.put(LIST).putInt(list.size());
+			for (Object element : list) {
+				write(buffer, element);
+			}
+		}
+		else if (value instanceof Serializable[]) {
+			Serializable[] array = (Serializable[]) value;
+			buffer.put(ARRAY).putInt(array.length);
+			for (Serializable element : array) {
+				write(buffer, element);
+			}
+		}
+		else {
+			byte[] bytes = serialize(value);
+			buffer.put(SERIALIZED).putInt(bytes.length).put(bytes);
+		}
+	}
+
+	private static Object read(ByteBuffer buffer) {
+		byte tag = buffer.get();
+		switch (tag) {
+		case NULL:
+			return null;
+		case INT:
+			return buffer.getInt();
+		case LONG:
+			return buffer.getLong();
+		case STRING: {
+			byte[] bytes = new byte[buffer.getInt()];
+			buffer.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+		case BOOLEAN:
+			return buffer.get() == 1;
+		case DOUBLE:
+			return buffer.getDouble();
+		case DATE:
+			return new java.util.Date(buffer.getLong());
+		case MAP: {
+			int size = buffer.getInt();
+			Map<Object, Object> map = new HashMap<>(size * 2);
+			for (int i = 0; i < size; i++) {
+				map.put(read(buffer), read(buffer));
+			}
+			return map;
+		}
+		case LIST: {
+			int size = buffer.getInt();
+			List<Object> list = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				list.add(read(buffer));
+			}
+			return list;
+		}
+		case ARRAY: {
+			Serializable[] array = new Serializable[buffer.getInt()];
+			for (int i = 0; i < array.length; i++) {
+				array[i] = (Serializable) read(buffer);
+			}
+			return array;
+		}
+		case SERIALIZED: {
+			byte[] bytes = new byte[buffer.getInt()];
+			buffer.get(bytes);
+			return deserialize(bytes);
+		}
+		default:
+			throw new CacheException("Unknown tag " + tag + " in off-heap cache entry");
+		}
+	}
+
+	private static byte[] serialize(Object value) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(value);
+		}
+		catch (IOException e) {
+			throw new CacheException("Could not serialize cache entry of type " + value.getClass().getName(), e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Object deserialize(byte[] bytes) {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return in.readObject();
+		}
+		catch (IOException | ClassNotFoundException e) {
+			throw new CacheException("Could not deserialize cache entry", e);
+		}
+	}
+}
+
+-------------------------------------
+
+OffHeapCacheReport.java
+
+Runs the same read workload twice, once with the normal on-heap cache (jcache/Ehcache from `5_Caching.java`)
+and once with the off-heap tier, and prints heap used and GC count/time so we can compare both.
+
+```
+java com.cache.OffHeapCacheReport onheap  10000
+java com.cache.OffHeapCacheReport offheap 10000
+```
+
+package com.cache;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import com.mavenlearn.Student;
+
+public class OffHeapCacheReport {
+
+	public static void main(String[] args) {
+		boolean offHeap = args.length > 0 && args[0].equals("offheap");
+		int rows = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+
+		Configuration cfg = new Configuration();
+		cfg.configure("hibernate.cfg.xml");
+		cfg.setProperty("hibernate.cache.use_second_level_cache", "true");
+		cfg.setProperty("hibernate.cache.use_structured_entries", String.valueOf(offHeap));
+		cfg.setProperty("hibernate.cache.region.factory_class", offHeap ? OffHeapRegionFactory.class.getName() : "jcache");
+		SessionFactory factory = cfg.buildSessionFactory();
+
+		Session s = factory.openSession();
+		Transaction tx = s.beginTransaction();
+		for (int i = 1; i <= rows; i++) {
+			s.save(new Student(i, "Student " + i, "City " + (i % 50)));
+		}
+		tx.commit();
+		s.close();
+
+		// First pass fills the cache, second pass should be only cache hits
+		for (int pass = 0; pass < 2; pass++) {
+			for (int i = 1; i <= rows; i++) {
+				Session session = factory.openSession();
+				session.get(Student.class, i);
+				session.close();
+			}
+		}
+
+		System.gc();
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		long gcCount = 0;
+		long gcMillis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			gcCount += gc.getCollectionCount();
+			gcMillis += gc.getCollectionTime();
+		}
+
+		System.out.println("Mode        : " + (offHeap ? "off-heap" : "on-heap"));
+		System.out.println("Heap used   : " + heap.getUsed() / (1024 * 1024) + " MB");
+		System.out.println("GC count    : " + gcCount);
+		System.out.println("GC time     : " + gcMillis + " ms");
+
+		if (offHeap) {
+			OffHeapRegionFactory regionFactory = (OffHeapRegionFactory) factory
+					.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+			for (OffHeapStorageAccess region : regionFactory.getRegions().values()) {
+				System.out.println(region.getRegionName() + " : entries=" + region.getEntryCount()
+						+ " hits=" + region.getHitCount() + " misses=" + region.getMissCount()
+						+ " evictions=" + region.getEvictionCount()
+						+ " capacity=" + region.getCapacityBytes() / 1024 + " KB");
+			}
+		}
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* Reading from off-heap costs a **decode** every time (bytes -> Map). It is a little slower than on-heap, but GC is much calmer.
+* Eviction is **FIFO by size**: when a region is full the oldest bytes are reused. Size each region for its table.
+* An entry bigger than its whole region is not cached at all.
+* Use it for **read-mostly data** (READ_ONLY / NONSTRICT_READ_WRITE). For small regions, the normal on-heap cache is still simpler.
+
+---
+
+### 🔸 Summary
+
+| Setting                                        | Purpose                                  |
+| ---------------------------------------------- | ---------------------------------------- |
+| `hibernate.cache.region.factory_class`         | `com.cache.OffHeapRegionFactory`         |
+| `hibernate.cache.use_structured_entries`       | Cache entities as Maps (compact encoding)|
+| `hibernate.cache.offheap.region_bytes`         | Default size of each region              |
+| `hibernate.cache.offheap.region_bytes.<region>`| Size of one region                       |
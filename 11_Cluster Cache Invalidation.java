@@ -0,0 +1,936 @@
+Cluster Wide Second Level Cache Invalidation**
+
+The second-level cache from `5_Caching.java` is **local to one SessionFactory** (one JVM).
+If we run the app on several nodes with one shared MySQL database, this happens:
+
+1. Node A and Node B both have `Employee#1` in their second-level cache.
+2. Node A updates `Employee#1` (READ_WRITE) and commits. Node A's cache is updated.
+3. Node B still has the **old** `Employee#1` in its cache and keeps serving it. ❌ Stale data.
+
+To fix this, every node sends the **evictions** it does to the other nodes, after the commit.
+
+---
+
+### 🔹 How it works
+
+* Hibernate event listeners see every entity update/delete/insert and every collection change.
+* For each one we register an **after transaction completion** process on the session.
+  Only if the transaction **committed** the eviction is put in a queue. Rolled back work is never sent.
+* A background thread takes evictions from the queue, **removes duplicates**, and sends them as **one batch**
+  every few milliseconds (or when the batch is full).
+* The peer nodes receive the batch and evict those entries from their **own** cache:
+  * entity -> `cache.evictEntityData(entityName, id)`
+  * collection -> `cache.evictCollectionData(role, ownerId)`
+  * query cache -> the table names (query spaces) are invalidated in the timestamps cache,
+    so cached queries on those tables are not used anymore.
+* If a batch could not be sent to a peer, that peer is marked **dirty**. As soon as it is reachable again
+  it first gets a "clear everything" batch, then the normal ones. A peer never stays stale after a network blip.
+* The way batches travel is **pluggable** (`InvalidationTransport`). We ship a TCP one, which also works
+  on `127.0.0.1`, so we can test several SessionFactories in the same process.
+
+> Reads never wait for the network. The listeners only do `queue.offer(...)`, all socket work is on the bus thread.
+> If the queue is ever full, the next batch tells peers to clear everything (safe, just slower for a moment).
+
+---
+
+Invalidation.java
+
+package com.cache;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+
+// One eviction which must be replayed on the other nodes. Sent in InvalidationBus's own binary format.
+public class Invalidation {
+
+	public enum Type {
+		ENTITY, COLLECTION, QUERY_SPACES, ALL
+	}
+
+	private final Type type;
+	// entity name, collection role, or null
+	private final String name;
+	// entity id, collection owner id, or null
+	private final Serializable id;
+	// table names, only for QUERY_SPACES
+	private final String[] spaces;
+
+	private Invalidation(Type type, String name, Serializable id, String[] spaces) {
+		this.type = type;
+		this.name = name;
+		this.id = id;
+		this.spaces = spaces;
+	}
+
+	public static Invalidation entity(String entityName, Serializable id) {
+		return new Invalidation(Type.ENTITY, entityName, id, null);
+	}
+
+	public static Invalidation collection(String role, Serializable ownerId) {
+		return new Invalidation(Type.COLLECTION, role, ownerId, null);
+	}
+
+	public static Invalidation querySpaces(String[] spaces) {
+		return new Invalidation(Type.QUERY_SPACES, null, null, spaces);
+	}
+
+	// The whole region of an entity or a collection role, used after bulk HQL / native updates
+	public static Invalidation entityRegion(String entityName) {
+		return new Invalidation(Type.ENTITY, entityName, null, null);
+	}
+
+	public static Invalidation collectionRegion(String role) {
+		return new Invalidation(Type.COLLECTION, role, null, null);
+	}
+
+	public static Invalidation all() {
+		return new Invalidation(Type.ALL, null, null, null);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Serializable getId() {
+		return id;
+	}
+
+	public String[] getSpaces() {
+		return spaces;
+	}
+
+	// equals/hashCode are used to remove duplicates inside one batch
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof Invalidation)) {
+			return false;
+		}
+		Invalidation other = (Invalidation) o;
+		return type == other.type && Objects.equals(name, other.name) && Objects.equals(id, other.id)
+				&& Arrays.equals(spaces, other.spaces);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(type, name, id) * 31 + Arrays.hashCode(spaces);
+	}
+
+	@Override
+	public String toString() {
+		return type + " " + (spaces != null ? Arrays.toString(spaces) : name + "#" + id);
+	}
+}
+
+-------------------------------------
+
+InvalidationTransport.java
+
+package com.cache;
+
+import java.util.function.Consumer;
+
+// How batches travel between nodes. send() is only called from the bus thread.
+public interface InvalidationTransport extends AutoCloseable {
+
+	// resync is the batch to send first to a peer that missed batches (it clears that peer's cache)
+	void start(Consumer<byte[]> receiver, byte[] resync);
+
+	void send(byte[] batch);
+
+	// Called by the bus thread when it has nothing to send, so peers that missed batches can resync while idle
+	default void retry() {
+	}
+
+	@Override
+	void close();
+}
+
+-------------------------------------
+
+TcpInvalidationTransport.java
+
+package com.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Every node listens on one address and keeps one outgoing connection per peer.
+ * A batch is sent as [length][bytes].
+ * A peer we could not send to is dirty: it gets the resync batch before anything else once it is back.
+ *
+ * There is no authentication. Listen on a private interface (never 0.0.0.0 on a public network);
+ * connections from hosts which are not peers are closed right away.
+ */
+public class TcpInvalidationTransport implements InvalidationTransport {
+
+	private static final Logger LOG = Logger.getLogger(TcpInvalidationTransport.class);
+
+	// A bigger length prefix is garbage (or an attack), not a batch
+	private static final int MAX_BATCH_BYTES = 16 * 1024 * 1024;
+	private static final long RETRY_MILLIS = 5000;
+
+	private final InetSocketAddress listenAddress;
+	private final Map<InetSocketAddress, Socket> peers = new LinkedHashMap<>();
+	private final Set<InetAddress> peerHosts = new HashSet<>();
+	private final List<Socket> incoming = new ArrayList<>();
+	// Only touched from send() and retry(), which run on the bus thread
+	private final Set<InetSocketAddress> dirty = new HashSet<>();
+	private long lastRetry;
+	private byte[] resync;
+	private ServerSocket server;
+	private volatile boolean running;
+	private final AtomicLong receiveErrors = new AtomicLong();
+
+	public TcpInvalidationTransport(InetSocketAddress listenAddress, List<InetSocketAddress> peerAddresses) {
+		this.listenAddress = listenAddress;
+		for (InetSocketAddress address : peerAddresses) {
+			peers.put(address, null);
+			peerHosts.add(address.getAddress());
+		}
+	}
+
+	@Override
+	public void start(Consumer<byte[]> receiver, byte[] resync) {
+		this.resync = resync;
+		try {
+			server = new ServerSocket();
+			server.bind(listenAddress);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not listen for cache invalidations on " + listenAddress, e);
+		}
+		running = true;
+		Thread acceptor = new Thread(() -> {
+			while (running) {
+				try {
+					Socket socket = server.accept();
+					if (!peerHosts.contains(socket.getInetAddress())) {
+						LOG.warnf("Refused invalidation connection from %s, not a peer", socket.getInetAddress());
+						closeQuietly(socket);
+						continue;
+					}
+					synchronized (incoming) {
+						incoming.add(socket);
+					}
+					Thread reader = new Thread(() -> read(socket, receiver), "invalidation-reader-" + listenAddress.getPort());
+					reader.setDaemon(true);
+					reader.start();
+				}
+				catch (IOException e) {
+					// server socket closed
+				}
+			}
+		}, "invalidation-acceptor-" + listenAddress.getPort());
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	private void read(Socket socket, Consumer<byte[]> receiver) {
+		try (DataInputStream in = new DataInputStream(socket.getInputStream())) {
+			while (running) {
+				int length = in.readInt();
+				if (length < 0 || length > MAX_BATCH_BYTES) {
+					throw new IOException("Bad batch length " + length);
+				}
+				byte[] batch = new byte[length];
+				in.readFully(batch);
+				try {
+					receiver.accept(batch);
+				}
+				catch (RuntimeException e) {
+					// One bad batch must not stop this peer's invalidations
+					receiveErrors.incrementAndGet();
+					LOG.warnf(e, "Could not apply invalidation batch from %s", socket.getInetAddress());
+				}
+			}
+		}
+		catch (EOFException e) {
+			// peer closed the connection
+		}
+		catch (IOException e) {
+			if (running) {
+				LOG.warnf("Invalidation connection lost: %s", e.getMessage());
+			}
+		}
+		finally {
+			closeQuietly(socket);
+			synchronized (incoming) {
+				incoming.remove(socket);
+			}
+		}
+	}
+
+	@Override
+	public void send(byte[] batch) {
+		for (Map.Entry<InetSocketAddress, Socket> peer : peers.entrySet()) {
+			deliver(peer, batch);
+		}
+	}
+
+	// Resync peers which came back while we had nothing to send
+	@Override
+	public void retry() {
+		long now = System.currentTimeMillis();
+		if (dirty.isEmpty() || now - lastRetry < RETRY_MILLIS) {
+			return;
+		}
+		lastRetry = now;
+		for (Map.Entry<InetSocketAddress, Socket> peer : peers.entrySet()) {
+			if (dirty.contains(peer.getKey())) {
+				deliver(peer, null);
+			}
+		}
+	}
+
+	// batch null = only the resync, if the peer is dirty
+	private void deliver(Map.Entry<InetSocketAddress, Socket> peer, byte[] batch) {
+		try {
+			Socket socket = peer.getValue();
+			if (socket == null) {
+				socket = new Socket();
+				socket.connect(peer.getKey(), 1000);
+				socket.setTcpNoDelay(true);
+				peer.setValue(socket);
+			}
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			if (dirty.contains(peer.getKey())) {
+				// It missed at least one batch, we don't know which entries are stale there
+				write(out, resync);
+				dirty.remove(peer.getKey());
+			}
+			if (batch != null) {
+				write(out, batch);
+			}
+		}
+		catch (IOException e) {
+			// The peer may only be unreachable for a moment and still have its cache, so it must resync
+			LOG.warnf("Could not send invalidations to %s: %s", peer.getKey(), e.getMessage());
+			dirty.add(peer.getKey());
+			closeQuietly(peer.getValue());
+			peer.setValue(null);
+		}
+	}
+
+	private static void write(DataOutputStream out, byte[] batch) throws IOException {
+		out.writeInt(batch.length);
+		out.write(batch);
+		out.flush();
+	}
+
+	// Batches received but not applied (malformed, unknown entity...)
+	public long getReceiveErrors() {
+		return receiveErrors.get();
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		closeQuietly(server);
+		for (Socket socket : peers.values()) {
+			closeQuietly(socket);
+		}
+		synchronized (incoming) {
+			for (Socket socket : new ArrayList<>(incoming)) {
+				closeQuietly(socket);
+			}
+		}
+	}
+
+	private static void closeQuietly(AutoCloseable closeable) {
+		if (closeable == null) {
+			return;
+		}
+		try {
+			closeable.close();
+		}
+		catch (Exception e) {
+			// ignore
+		}
+	}
+}
+
+-------------------------------------
+
+InvalidationBus.java
+
+package com.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.jboss.logging.Logger;
+
+/**
+ * Sends this node's second-level cache evictions to the other nodes after commit,
+ * and applies the evictions received from them.
+ *
+ * SessionFactory factory = cfg.buildSessionFactory();
+ * InvalidationBus bus = InvalidationBus.attach(factory, transport);
+ * ...
+ * bus.close();
+ *
+ * Bulk HQL / native updates don't fire entity events. Call bulkUpdated() in the same transaction:
+ *
+ * session.createQuery("update Student set city = :c").setParameter("c", "Pune").executeUpdate();
+ * bus.bulkUpdated(session, Student.class);
+ * factory.close();
+ */
+public class InvalidationBus implements AutoCloseable, PostUpdateEventListener, PostDeleteEventListener,
+		PostInsertEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener,
+		PostCollectionRecreateEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger LOG = Logger.getLogger(InvalidationBus.class);
+
+	// Wire format: [count] then per invalidation [type] and its fields, see encode()
+	private static final byte ID_NONE = 0;
+	private static final byte ID_INT = 1;
+	private static final byte ID_LONG = 2;
+	private static final byte ID_STRING = 3;
+
+	private final SessionFactoryImplementor factory;
+	private final InvalidationTransport transport;
+	private final BlockingQueue<Invalidation> queue;
+	private final int maxBatchSize;
+	private final long batchWindowMillis;
+	private final Thread sender;
+	private volatile boolean running = true;
+	private volatile boolean overflowed;
+
+	private final AtomicLong sentBatches = new AtomicLong();
+	private final AtomicLong sentInvalidations = new AtomicLong();
+	private final AtomicLong receivedInvalidations = new AtomicLong();
+
+	public static InvalidationBus attach(SessionFactory factory, InvalidationTransport transport) {
+		return attach(factory, transport, 10_000, 500, 5);
+	}
+
+	public static InvalidationBus attach(SessionFactory factory, InvalidationTransport transport,
+			int queueCapacity, int maxBatchSize, long batchWindowMillis) {
+		SessionFactoryImplementor sfi = factory.unwrap(SessionFactoryImplementor.class);
+		InvalidationBus bus = new InvalidationBus(sfi, transport, queueCapacity, maxBatchSize, batchWindowMillis);
+
+		EventListenerRegistry registry = sfi.getServiceRegistry().getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_UPDATE, bus);
+		registry.appendListeners(EventType.POST_DELETE, bus);
+		registry.appendListeners(EventType.POST_INSERT, bus);
+		registry.appendListeners(EventType.POST_COLLECTION_UPDATE, bus);
+		registry.appendListeners(EventType.POST_COLLECTION_REMOVE, bus);
+		registry.appendListeners(EventType.POST_COLLECTION_RECREATE, bus);
+
+		transport.start(bus::receive, encode(Collections.singletonList(Invalidation.all())));
+		bus.sender.start();
+		return bus;
+	}
+
+	private InvalidationBus(SessionFactoryImplementor factory, InvalidationTransport transport, int queueCapacity,
+			int maxBatchSize, long batchWindowMillis) {
+		this.factory = factory;
+		this.transport = transport;
+		this.queue = new LinkedBlockingQueue<>(queueCapacity);
+		this.maxBatchSize = maxBatchSize;
+		this.batchWindowMillis = batchWindowMillis;
+		this.sender = new Thread(this::sendLoop, "invalidation-bus-sender");
+		this.sender.setDaemon(true);
+	}
+
+	// ---------------------------------------------------------------- local changes
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		afterCommit(event.getSession(), Invalidation.entity(event.getPersister().getEntityName(), event.getId()));
+		afterCommit(event.getSession(), querySpaces(event.getPersister()));
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		afterCommit(event.getSession(), Invalidation.entity(event.getPersister().getEntityName(), event.getId()));
+		afterCommit(event.getSession(), querySpaces(event.getPersister()));
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		// A new row is not in anybody's entity cache, but cached queries on the table are now wrong
+		afterCommit(event.getSession(), querySpaces(event.getPersister()));
+	}
+
+	@Override
+	public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+		collectionChanged(event);
+	}
+
+	@Override
+	public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+		collectionChanged(event);
+	}
+
+	@Override
+	public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+		collectionChanged(event);
+	}
+
+	@Override
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		// We register our own after-completion process, see afterCommit()
+		return false;
+	}
+
+	/**
+	 * Tells the peers about a bulk update / delete done in this session, after it commits.
+	 * Like Hibernate's own bulk cleanup, it evicts the whole regions touching those tables.
+	 */
+	public void bulkUpdated(Session session, Class<?>... entityClasses) {
+		Set<String> tables = new HashSet<>();
+		for (Class<?> entityClass : entityClasses) {
+			for (Serializable space : factory.getMetamodel().entityPersister(entityClass).getQuerySpaces()) {
+				tables.add(space.toString());
+			}
+		}
+		bulkUpdated(session, tables.toArray(new String[0]));
+	}
+
+	// For native queries, pass the table names that were changed
+	public void bulkUpdated(Session session, String... tables) {
+		EventSource source = (EventSource) session.unwrap(SessionImplementor.class);
+		Set<String> changed = new HashSet<>(Arrays.asList(tables));
+		for (EntityPersister persister : factory.getMetamodel().entityPersisters().values()) {
+			if (persister.canWriteToCache() && touches(persister.getQuerySpaces(), changed)) {
+				afterCommit(source, Invalidation.entityRegion(persister.getEntityName()));
+			}
+		}
+		for (CollectionPersister persister : factory.getMetamodel().collectionPersisters().values()) {
+			if (persister.hasCache() && touches(persister.getCollectionSpaces(), changed)) {
+				afterCommit(source, Invalidation.collectionRegion(persister.getRole()));
+			}
+		}
+		afterCommit(source, Invalidation.querySpaces(tables));
+	}
+
+	private static boolean touches(Serializable[] spaces, Set<String> tables) {
+		for (Serializable space : spaces) {
+			if (tables.contains(space.toString())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void collectionChanged(AbstractCollectionEvent event) {
+		Serializable ownerId = event.getAffectedOwnerIdOrNull();
+		if (ownerId != null) {
+			afterCommit(event.getSession(), Invalidation.collection(event.getCollection().getRole(), ownerId));
+		}
+	}
+
+	private static Invalidation querySpaces(EntityPersister persister) {
+		Serializable[] spaces = persister.getQuerySpaces();
+		String[] names = new String[spaces.length];
+		for (int i = 0; i < spaces.length; i++) {
+			names[i] = spaces[i].toString();
+		}
+		return Invalidation.querySpaces(names);
+	}
+
+	// Queue the invalidation only when the transaction really commits. Never blocks.
+	private void afterCommit(EventSource session, Invalidation invalidation) {
+		session.getActionQueue().registerProcess((success, s) -> {
+			if (success && !queue.offer(invalidation)) {
+				overflowed = true;
+			}
+		});
+	}
+
+	// ---------------------------------------------------------------- sending
+
+	private void sendLoop() {
+		Set<Invalidation> batch = new LinkedHashSet<>();
+		while (running || !queue.isEmpty()) {
+			try {
+				Invalidation first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					transport.retry();
+					continue;
+				}
+				batch.add(first);
+				// Wait a little so several commits go out as one batch
+				long deadline = System.currentTimeMillis() + batchWindowMillis;
+				while (batch.size() < maxBatchSize) {
+					long wait = deadline - System.currentTimeMillis();
+					Invalidation next = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : queue.poll();
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+				if (overflowed) {
+					// Some invalidations were lost locally, peers must forget everything
+					overflowed = false;
+					batch.clear();
+					batch.add(Invalidation.all());
+				}
+				transport.send(encode(new ArrayList<>(batch)));
+				sentBatches.incrementAndGet();
+				sentInvalidations.addAndGet(batch.size());
+				batch.clear();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (RuntimeException e) {
+				LOG.warn("Could not send cache invalidations", e);
+				batch.clear();
+			}
+		}
+	}
+
+	// ---------------------------------------------------------------- receiving
+
+	private void receive(byte[] bytes) {
+		Cache cache = factory.getCache();
+		SharedSessionContractImplementor session = null;
+		try {
+			for (Invalidation invalidation : decode(bytes)) {
+				receivedInvalidations.incrementAndGet();
+				switch (invalidation.getType()) {
+				case ENTITY:
+					if (invalidation.getId() == null) {
+						cache.evictEntityData(invalidation.getName());
+					}
+					else {
+						cache.evictEntityData(invalidation.getName(), invalidation.getId());
+					}
+					break;
+				case COLLECTION:
+					if (invalidation.getId() == null) {
+						cache.evictCollectionData(invalidation.getName());
+					}
+					else {
+						cache.evictCollectionData(invalidation.getName(), invalidation.getId());
+					}
+					break;
+				case QUERY_SPACES:
+					if (factory.getSessionFactoryOptions().isQueryCacheEnabled()) {
+						if (session == null) {
+							session = (SharedSessionContractImplementor) factory.openStatelessSession();
+						}
+						factory.getCache().getTimestampsCache().invalidate(invalidation.getSpaces(), session);
+					}
+					break;
+				case ALL:
+					cache.evictAllRegions();
+					break;
+				}
+			}
+		}
+		finally {
+			if (session != null) {
+				session.close();
+			}
+		}
+	}
+
+	/**
+	 * Plain data, never Java serialization: a peer can only make us evict. Ids other than
+	 * Integer / Long / String (e.g. composite ids) are sent as their whole region.
+	 */
+	private static byte[] encode(List<Invalidation> batch) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(batch.size());
+			for (Invalidation invalidation : batch) {
+				out.writeByte(invalidation.getType().ordinal());
+				switch (invalidation.getType()) {
+				case ENTITY:
+				case COLLECTION:
+					out.writeUTF(invalidation.getName());
+					writeId(out, invalidation.getId());
+					break;
+				case QUERY_SPACES:
+					out.writeInt(invalidation.getSpaces().length);
+					for (String space : invalidation.getSpaces()) {
+						out.writeUTF(space);
+					}
+					break;
+				case ALL:
+					break;
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not encode invalidation batch", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void writeId(DataOutputStream out, Serializable id) throws IOException {
+		if (id instanceof Integer) {
+			out.writeByte(ID_INT);
+			out.writeInt((Integer) id);
+		}
+		else if (id instanceof Long) {
+			out.writeByte(ID_LONG);
+			out.writeLong((Long) id);
+		}
+		else if (id instanceof String) {
+			out.writeByte(ID_STRING);
+			out.writeUTF((String) id);
+		}
+		else {
+			out.writeByte(ID_NONE);
+		}
+	}
+
+	private static List<Invalidation> decode(byte[] bytes) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			int count = in.readInt();
+			// Every invalidation takes at least one byte
+			if (count < 0 || count > bytes.length) {
+				throw new IllegalStateException("Bad invalidation count " + count);
+			}
+			Invalidation.Type[] types = Invalidation.Type.values();
+			List<Invalidation> batch = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				int type = in.readUnsignedByte();
+				if (type >= types.length) {
+					throw new IllegalStateException("Unknown invalidation type " + type);
+				}
+				switch (types[type]) {
+				case ENTITY: {
+					String name = in.readUTF();
+					Serializable id = readId(in);
+					batch.add(id == null ? Invalidation.entityRegion(name) : Invalidation.entity(name, id));
+					break;
+				}
+				case COLLECTION: {
+					String role = in.readUTF();
+					Serializable id = readId(in);
+					batch.add(id == null ? Invalidation.collectionRegion(role) : Invalidation.collection(role, id));
+					break;
+				}
+				case QUERY_SPACES: {
+					int length = in.readInt();
+					if (length < 0 || length > bytes.length) {
+						throw new IllegalStateException("Bad query space count " + length);
+					}
+					String[] spaces = new String[length];
+					for (int j = 0; j < length; j++) {
+						spaces[j] = in.readUTF();
+					}
+					batch.add(Invalidation.querySpaces(spaces));
+					break;
+				}
+				case ALL:
+					batch.add(Invalidation.all());
+					break;
+				}
+			}
+			return batch;
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not decode invalidation batch", e);
+		}
+	}
+
+	private static Serializable readId(DataInputStream in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case ID_NONE:
+			return null;
+		case ID_INT:
+			return in.readInt();
+		case ID_LONG:
+			return in.readLong();
+		case ID_STRING:
+			return in.readUTF();
+		default:
+			throw new IllegalStateException("Unknown id tag " + tag);
+		}
+	}
+
+	// ---------------------------------------------------------------- metrics
+
+	public long getSentBatches() {
+		return sentBatches.get();
+	}
+
+	public long getSentInvalidations() {
+		return sentInvalidations.get();
+	}
+
+	public long getReceivedInvalidations() {
+		return receivedInvalidations.get();
+	}
+
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		try {
+			sender.join(1000);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		transport.close();
+	}
+}
+
+-------------------------------------
+
+InvalidationBusDemo.java
+
+Two SessionFactories in one process, talking over TCP on 127.0.0.1.
+`Student` must be `@Cacheable` with `@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)`.
+
+package com.cache;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class InvalidationBusDemo {
+
+	public static void main(String[] args) throws Exception {
+		SessionFactory nodeA = new Configuration().configure("hibernate.cfg.xml").buildSessionFactory();
+		SessionFactory nodeB = new Configuration().configure("hibernate.cfg.xml").buildSessionFactory();
+
+		InvalidationBus busA = InvalidationBus.attach(nodeA, new TcpInvalidationTransport(
+				new InetSocketAddress("127.0.0.1", 7601), Collections.singletonList(new InetSocketAddress("127.0.0.1", 7602))));
+		InvalidationBus busB = InvalidationBus.attach(nodeB, new TcpInvalidationTransport(
+				new InetSocketAddress("127.0.0.1", 7602), Collections.singletonList(new InetSocketAddress("127.0.0.1", 7601))));
+
+		// Both nodes read Student 101, now it is in both caches
+		read(nodeA);
+		read(nodeB);
+
+		// Node A changes the city
+		Session s = nodeA.openSession();
+		Transaction tx = s.beginTransaction();
+		Student st = s.get(Student.class, 101);
+		st.setCity("Noida");
+		tx.commit();
+		s.close();
+
+		Thread.sleep(100);
+
+		System.out.println("Still cached on B : " + nodeB.getCache().containsEntity(Student.class, 101));
+		read(nodeB); // DB hit on node B, sees Noida
+		System.out.println("A sent " + busA.getSentInvalidations() + " in " + busA.getSentBatches() + " batches, B received "
+				+ busB.getReceivedInvalidations());
+
+		busA.close();
+		busB.close();
+		nodeA.close();
+		nodeB.close();
+	}
+
+	private static void read(SessionFactory factory) {
+		Session session = factory.openSession();
+		Student st = session.get(Student.class, 101);
+		System.out.println(st);
+		session.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* There is a small window (batch window + network) where a peer can still serve the old value.
+  If that is not acceptable for an entity, don't cache it, or use `@Version` so a stale write fails.
+* A node that is down misses invalidations. When it is reachable again it is told to clear its whole cache
+  first (it may only have been a network problem, with its cache still full).
+* `query.executeUpdate()` (HQL or native) fires no entity events. Call `bus.bulkUpdated(session, ...)`
+  in the same transaction, or peers keep the old rows. The whole affected regions are evicted, like Hibernate does locally.
+* Another transport (JGroups, Redis pub/sub, Kafka...) only needs to implement `InvalidationTransport`.
+* Batches are plain data (names, ids, table names), **never Java serialization**, so a connection can at worst evict
+  entries. The TCP transport has no authentication: bind it to a private address and list the peers,
+  connections from other hosts are refused. Entities with composite ids are invalidated as a whole region.
+* An idle node still retries dirty peers every few seconds, so a peer that comes back is resynced without waiting
+  for the next local change.
+
+---
+
+### 🔸 Summary
+
+| Class                       | Role                                             |
+| --------------------------- | ------------------------------------------------ |
+| `InvalidationBus`           | Listens to changes, batches, applies remote ones |
+| `Invalidation`              | One entity / collection / query-space eviction   |
+| `InvalidationTransport`     | Pluggable way to send batches                    |
+| `TcpInvalidationTransport`  | TCP implementation (works on 127.0.0.1 too)      |
@@ -0,0 +1,193 @@
+Natural Id Lookups and the Natural Id Cache**
+
+Most of the time we don't search a `User` by its `id`, we search it by **email**. A `Student` we search by **name**.
+Usually we write an HQL query for that:
+
+```java
+User user = session.createQuery("from User where email = :e", User.class)
+                   .setParameter("e", "alice@example.com")
+                   .uniqueResult();
+```
+
+Problem: an HQL query **always goes to the database**. It does not look in the session cache (first level)
+and it does not look in the second-level cache, even if that user is already there.
+
+Hibernate has a special feature for this: **natural ids**.
+
+* A **natural id** is a column (or group of columns) which is unique and identifies the row in the "real world" (email, ISBN, roll number...).
+* Mark it with `@NaturalId`.
+* Load with `session.bySimpleNaturalId(...)` instead of HQL.
+* Hibernate keeps a **natural id -> primary key** cache, in the session and (with `@NaturalIdCache`) in the second-level cache.
+  A repeat lookup finds the id there, then finds the entity in the entity cache. **No DB hit.**
+
+---
+
+### 🔹 1. Mark the natural id
+
+User.java
+
+package com.mavenlearn;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+@Entity
+@Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
+public class User {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private int id;
+
+	@Column(name = "username", nullable = false, length = 100)
+	private String name;
+
+	// mutable = true because a user can change their email.
+	// Hibernate then updates the natural id cache when the email changes.
+	@NaturalId(mutable = true)
+	@Column(unique = true)
+	private String email;
+
+	// getters and setters
+}
+
+-------------------------------------
+
+Student.java (only the changed part)
+
+```java
+@Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
+public class Student {
+	@Id
+    private int id;
+
+    // name must be unique for this to work, @NaturalId adds a unique constraint on it
+    @NaturalId(mutable = true)
+    private  String name;
+
+    private String city;
+    ...
+}
+```
+
+> `@NaturalIdCache` needs the second-level cache turned on (see `5_Caching.java`).
+> Without it, natural id lookups still use the **session** cache, but not the second-level cache.
+
+---
+
+### 🔹 2. Load by natural id
+
+NaturalIdDemo.java
+
+package com.mavenlearn;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.NaturalIdStatistics;
+import org.hibernate.stat.Statistics;
+
+public class NaturalIdDemo {
+
+	public static void main(String[] args) {
+		Configuration cfg = new Configuration();
+		cfg.configure("hibernate.cfg.xml");
+		cfg.setProperty("hibernate.generate_statistics", "true");
+		SessionFactory factory = cfg.buildSessionFactory();
+
+		// First lookup: DB hit, result goes into the natural id cache
+		Session s1 = factory.openSession();
+		Student st = s1.bySimpleNaturalId(Student.class).load("Sahil");
+		System.out.println(st);
+		s1.close();
+
+		// New session, same name: natural id cache -> id -> entity cache. No DB hit.
+		Session s2 = factory.openSession();
+		Student again = s2.bySimpleNaturalId(Student.class).load("Sahil");
+		System.out.println(again);
+
+		// getReference() gives a proxy without any query if we only need to set an association
+		Student ref = s2.bySimpleNaturalId(Student.class).getReference("Sahil");
+		System.out.println(ref.getId());
+		s2.close();
+
+		// Change the natural id. After commit the old name is removed from the cache
+		// and the new name points to the same id.
+		Session s3 = factory.openSession();
+		Transaction tx = s3.beginTransaction();
+		Student changed = s3.bySimpleNaturalId(Student.class).load("Sahil");
+		changed.setName("Sahil Saifi");
+		tx.commit();
+		s3.close();
+
+		Session s4 = factory.openSession();
+		System.out.println("Old name : " + s4.bySimpleNaturalId(Student.class).load("Sahil"));       // null
+		System.out.println("New name : " + s4.bySimpleNaturalId(Student.class).load("Sahil Saifi"));
+		s4.close();
+
+		printNaturalIdStats(factory, Student.class.getName());
+		factory.close();
+	}
+
+	static void printNaturalIdStats(SessionFactory factory, String entityName) {
+		Statistics stats = factory.getStatistics();
+		NaturalIdStatistics naturalIdStats = stats.getNaturalIdStatistics(entityName);
+
+		long hits = naturalIdStats.getCacheHitCount();
+		long misses = naturalIdStats.getCacheMissCount();
+		double hitRate = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+
+		System.out.println("Natural id cache hits   : " + hits);
+		System.out.println("Natural id cache misses : " + misses);
+		System.out.println("Natural id cache puts   : " + naturalIdStats.getCachePutCount());
+		System.out.println("Hit rate                : " + String.format("%.1f %%", hitRate * 100));
+		System.out.println("DB queries by natural id: " + naturalIdStats.getExecutionCount()
+				+ " (avg " + naturalIdStats.getExecutionAvgTime() + " ms)");
+	}
+}
+
+---
+
+### 🔹 How lookups are resolved
+
+```
+bySimpleNaturalId(Student.class).load("Sahil")
+   |
+   |-- 1. session (first level) : natural id -> id ?   found -> session.get(id)
+   |-- 2. natural id cache region (second level) ?    found -> session.get(id)  (entity cache, then DB)
+   |-- 3. DB: select id from Student where name=?     result is put into both caches
+```
+
+* For a `User` with several natural id columns use `session.byNaturalId(User.class).using("email", e).using(...).load()`.
+* If the natural id is **immutable** (never changes), leave `mutable = false` (the default).
+  Hibernate then skips checking it at flush time, which is a bit faster.
+
+---
+
+### 🔸 Summary
+
+| Annotation / Method                          | Purpose                                     |
+| -------------------------------------------- | ------------------------------------------- |
+| `@NaturalId`                                 | Marks business key (adds unique constraint) |
+| `@NaturalId(mutable = true)`                 | Key can change, cache is kept correct       |
+| `@NaturalIdCache`                            | Caches natural id -> id in 2nd level cache  |
+| `session.bySimpleNaturalId(X.class).load(v)` | Load by one natural id column               |
+| `session.byNaturalId(X.class).using(..)`     | Load by several natural id columns          |
+| `stats.getNaturalIdStatistics(entityName)`   | Hit / miss / put counts                     |
@@ -0,0 +1,281 @@
+Named Queries and the Query Plan Cache**
+
+In `4_HQL.java` (`HqlExample`) and `9_Pagination.java` (`HQLPegination`) we write HQL directly where we use it:
+
+```java
+Query q = s.createQuery("from Student");
+Query q2 = s.createQuery("update Student set city=:c where name=:n");
+```
+
+Two problems with this:
+
+1. Every HQL string must be **parsed and translated to SQL**. Hibernate keeps the result in the **query plan cache**,
+   but a new string (or a string built with `+`) means a new translation.
+2. A typo like `"from Studnet"` is only found **when that line runs**, maybe in production.
+
+**Named queries** fix both:
+
+* The query is declared **once, on the entity**, with a name.
+* At startup Hibernate **checks every named query**. If one is wrong, `buildSessionFactory()` fails with the list of bad queries.
+* Our `QueryRegistry` translates every named query to SQL **at boot**, so the plan cache is already warm,
+  and it records how long each translation took.
+
+---
+
+### 🔹 1. Declare the queries on the entity
+
+Student.java (only the changed part)
+
+```java
+@Entity
+@NamedQueries({
+	@NamedQuery(name = Student.ALL, query = "from Student"),
+	@NamedQuery(name = Student.ALL_ORDERED, query = "from Student order by id"),
+	@NamedQuery(name = Student.BY_CITY, query = "from Student where city = :c"),
+	@NamedQuery(name = Student.UPDATE_CITY, query = "update Student set city = :c where name = :n"),
+	@NamedQuery(name = Student.DELETE_BY_CITY, query = "delete from Student where city = :c")
+})
+public class Student {
+
+	public static final String ALL = "Student.all";
+	public static final String ALL_ORDERED = "Student.allOrdered";
+	public static final String BY_CITY = "Student.byCity";
+	public static final String UPDATE_CITY = "Student.updateCity";
+	public static final String DELETE_BY_CITY = "Student.deleteByCity";
+
+	@Id
+    private int id;
+    ...
+}
+```
+
+Question.java (only the changed part)
+
+```java
+@Entity
+@NamedQuery(name = Question.WITH_ANSWERS,
+	query = "select q.question, q.questionId, a.answer from Question as q INNER JOIN q.answers as a")
+public class Question {
+
+	public static final String WITH_ANSWERS = "Question.withAnswers";
+	...
+}
+```
+
+> Using constants for the names means a wrong **name** is a compile error, and a wrong **query** is a startup error.
+
+---
+
+### 🔹 2. Configuration
+
+```xml
+<!-- default is true, keep it on: checks all named queries at startup -->
+<property name="hibernate.query.startup_check">true</property>
+<!-- how many translated HQL plans are kept (default 2048) -->
+<property name="hibernate.query.plan_cache_max_size">512</property>
+<!-- parameter metadata of native queries (default 128) -->
+<property name="hibernate.query.plan_parameter_metadata_max_size">64</property>
+<!-- needed for the hit / miss counters -->
+<property name="hibernate.generate_statistics">true</property>
+```
+
+---
+
+QueryRegistry.java
+
+package com.hql;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.query.spi.HQLQueryPlan;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Translates named queries to SQL at boot so the first request does not pay for it,
+ * and keeps the translation time and SQL of each one for reporting.
+ * The time is measured on a separate translation, so it is the same with or without startup_check.
+ */
+public class QueryRegistry {
+
+	public static class Entry {
+		private final String name;
+		private final String hql;
+		private final String[] sql;
+		private final long translationNanos;
+
+		Entry(String name, String hql, String[] sql, long translationNanos) {
+			this.name = name;
+			this.hql = hql;
+			this.sql = sql;
+			this.translationNanos = translationNanos;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getHql() {
+			return hql;
+		}
+
+		public String[] getSql() {
+			return sql;
+		}
+
+		public long getTranslationNanos() {
+			return translationNanos;
+		}
+	}
+
+	private final SessionFactoryImplementor factory;
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+	private long totalTranslationNanos;
+
+	public QueryRegistry(SessionFactory factory) {
+		this.factory = factory.unwrap(SessionFactoryImplementor.class);
+	}
+
+	// Call once after buildSessionFactory() with all the query names of the app
+	public QueryRegistry precompile(String... names) {
+		try (Session session = factory.openSession()) {
+			for (String name : names) {
+				// Creating the query also puts its plan into the plan cache: that is the warm-up
+				String hql;
+				try {
+					hql = session.getNamedQuery(name).getQueryString();
+				}
+				catch (IllegalArgumentException e) {
+					throw new HibernateException("Named query " + name + " is not declared on any entity", e);
+				}
+
+				// A plan of our own, outside the plan cache: the real translation time
+				long start = System.nanoTime();
+				HQLQueryPlan plan = new HQLQueryPlan(hql, false, Collections.emptyMap(), factory);
+				long nanos = System.nanoTime() - start;
+
+				entries.put(name, new Entry(name, hql, plan.getSqlStrings(), nanos));
+				totalTranslationNanos += nanos;
+			}
+		}
+		catch (HibernateException e) {
+			throw new HibernateException("Named query could not be precompiled: " + e.getMessage(), e);
+		}
+		return this;
+	}
+
+	public Entry get(String name) {
+		return entries.get(name);
+	}
+
+	public long getTotalTranslationNanos() {
+		return totalTranslationNanos;
+	}
+
+	public void printReport() {
+		Statistics stats = factory.getStatistics();
+		System.out.println("Named queries precompiled : " + entries.size());
+		System.out.println("Translation time total    : " + totalTranslationNanos / 1_000 + " us");
+		for (Entry entry : entries.values()) {
+			System.out.println("  " + entry.getName() + " (" + entry.getTranslationNanos() / 1_000 + " us) -> "
+					+ Arrays.toString(entry.getSql()));
+		}
+		// Needs hibernate.generate_statistics=true
+		System.out.println("Plan cache hits           : " + stats.getQueryPlanCacheHitCount());
+		System.out.println("Plan cache misses         : " + stats.getQueryPlanCacheMissCount());
+	}
+}
+
+-------------------------------------
+
+HqlNamedExample.java
+
+Same work as `HqlExample`, but with named queries.
+
+package com.hql;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.query.Query;
+
+import com.map.Question;
+import com.mavenlearn.Student;
+
+public class HqlNamedExample {
+
+	public static void main(String[] args) {
+		Configuration cfg = new Configuration();
+		cfg.configure("hibernate.cfg.xml");
+		// Fails here if any @NamedQuery has a mistake
+		SessionFactory factory = cfg.buildSessionFactory();
+
+		QueryRegistry registry = new QueryRegistry(factory).precompile(Student.ALL, Student.ALL_ORDERED,
+				Student.BY_CITY, Student.UPDATE_CITY, Student.DELETE_BY_CITY, Question.WITH_ANSWERS);
+
+		Session s = factory.openSession();
+
+		List<Student> list = s.createNamedQuery(Student.ALL, Student.class).list();
+		for (Student student : list) {
+			System.out.println(student.getName());
+		}
+
+		// Pagination, like HQLPegination
+		Query<Student> page = s.createNamedQuery(Student.ALL_ORDERED, Student.class);
+		page.setFirstResult(0);
+		page.setMaxResults(3);
+		for (Student st : page.list()) {
+			System.out.println(st.getId() + " : " + st.getName() + " : " + st.getCity());
+		}
+
+		Transaction tx = s.beginTransaction();
+		int r = s.createNamedQuery(Student.UPDATE_CITY)
+				.setParameter("c", "Gzb")
+				.setParameter("n", "Rishabh")
+				.executeUpdate();
+		System.out.println(r + " Object Updated");
+		tx.commit();
+
+		List<Object[]> rows = s.createNamedQuery(Question.WITH_ANSWERS, Object[].class).getResultList();
+		for (Object[] arr : rows) {
+			System.out.println(Arrays.toString(arr));
+		}
+
+		s.close();
+		registry.printReport();
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Reading the numbers
+
+* **Plan cache miss**: an HQL string was translated. After `precompile()` every named query should only give **hits**.
+* If misses keep growing while the app runs, some code still builds HQL strings at runtime
+  (for example with `+ value` instead of parameters). Use parameters so the string is always the same.
+* If the app has more distinct queries than `plan_cache_max_size`, old plans are thrown away and translated again.
+  Raise the size a little above the number of distinct queries.
+
+---
+
+### 🔸 Summary
+
+| Item                                   | Purpose                                  |
+| -------------------------------------- | ---------------------------------------- |
+| `@NamedQuery(name, query)`             | Declare query on the entity              |
+| `session.createNamedQuery(name, X)`    | Run it                                   |
+| `hibernate.query.startup_check`        | Validate all named queries at startup    |
+| `hibernate.query.plan_cache_max_size`  | Size of the translated-query cache       |
+| `QueryRegistry.precompile(...)`        | Translate at boot, record translate time |
+| `stats.getQueryPlanCacheHitCount()`    | Plan cache hits (also `...MissCount()`)  |
@@ -0,0 +1,305 @@
+Parallel Partitioned Reader for Full Table Scans**
+
+Export and reindex jobs read the **whole** `Student` table like this:
+
+```java
+List<Student> list = session.createQuery("from Student").list();
+```
+
+* One session, one connection, one thread.
+* The other CPU cores and the other connections in the pool do nothing.
+* `list()` keeps the whole table in memory.
+
+The partitioned reader splits the table by **id range** and reads every part **at the same time**:
+
+```
+select min(id), max(id) from Student          ->  1 .. 1,000,000
+
+partition 0 : id >= 1       and id < 250001   ->  thread 0, own StatelessSession, own connection
+partition 1 : id >= 250001  and id < 500001   ->  thread 1, ...
+partition 2 : id >= 500001  and id < 750001   ->  thread 2, ...
+partition 3 : id >= 750001  and id <= 1000000 ->  thread 3, ...
+                       |
+                       v
+           bounded queue (e.g. 1000 rows)   <- workers wait here when it is full (backpressure)
+                       |
+                       v
+           consumer (export / reindex), runs on the calling thread
+```
+
+* Every partition uses a **`StatelessSession`** (no first-level cache, nothing grows) and a forward-only **scroll**.
+  With MySQL the rows are only streamed if the driver is told to: add `useCursorFetch=true` to the JDBC URL
+  so `setFetchSize()` is used. Without it the driver reads the whole partition into memory first.
+* The queue has a **fixed size**. If the consumer is slow, the workers block on `put()` and stop reading.
+  Memory stays small no matter how big the table is.
+* If one worker fails, the others are stopped and the error is thrown to the caller.
+
+> The connection pool must have at least as many connections as partitions
+> (`hibernate.connection.pool_size`, or `maximumPoolSize` with HikariCP).
+
+---
+
+PartitionedReader.java
+
+package com.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Reads all rows of an entity with N threads, one id range per thread, and hands them
+ * to one consumer through a bounded queue.
+ *
+ * new PartitionedReader<>(factory, Student.class, 4).read(student -> export(student));
+ */
+public class PartitionedReader<T> {
+
+	// Put in the queue by a worker when its partition is done
+	private static final Object END = new Object();
+
+	private final SessionFactoryImplementor factory;
+	private final Class<T> entityClass;
+	private final int partitions;
+	private int queueCapacity = 1000;
+	private int fetchSize = 500;
+
+	public PartitionedReader(SessionFactory factory, Class<T> entityClass, int partitions) {
+		this.factory = factory.unwrap(SessionFactoryImplementor.class);
+		this.entityClass = entityClass;
+		this.partitions = partitions;
+	}
+
+	public PartitionedReader<T> setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+		return this;
+	}
+
+	public PartitionedReader<T> setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+		return this;
+	}
+
+	/**
+	 * Reads every row and calls consumer for each one, on the calling thread.
+	 * Returns the number of rows read.
+	 */
+	public long read(Consumer<? super T> consumer) {
+		EntityPersister persister = factory.getMetamodel().entityPersister(entityClass);
+		String idName = persister.getIdentifierPropertyName();
+		Class<?> idType = persister.getIdentifierType().getReturnedClass();
+		String entityName = persister.getEntityName();
+
+		Object[] bounds;
+		try (StatelessSession session = factory.openStatelessSession()) {
+			bounds = (Object[]) session.createQuery("select min(e." + idName + "), max(e." + idName + ") from "
+					+ entityName + " e").uniqueResult();
+		}
+		if (bounds[0] == null) {
+			return 0; // empty table
+		}
+		long min = ((Number) bounds[0]).longValue();
+		long max = ((Number) bounds[1]).longValue();
+		long step = Math.max(1, (max - min + partitions) / partitions);
+
+		String hql = "from " + entityName + " e where e." + idName + " >= :lo and e." + idName + " < :hi";
+
+		BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		// For Java 21+ Executors.newVirtualThreadPerTaskExecutor() can be used here instead
+		ExecutorService pool = Executors.newFixedThreadPool(partitions);
+		List<Future<?>> workers = new ArrayList<>();
+
+		int started = 0;
+		for (long lo = min; lo <= max; lo += step) {
+			long from = lo;
+			long to = Math.min(lo + step, max + 1);
+			workers.add(pool.submit(() -> readPartition(hql, toIdType(from, idType), toIdType(to, idType), queue, failure)));
+			started++;
+		}
+
+		long rows = 0;
+		int finished = 0;
+		try {
+			while (finished < started) {
+				Object row = queue.take();
+				if (row == END) {
+					finished++;
+					continue;
+				}
+				if (failure.get() != null) {
+					break;
+				}
+				consumer.accept(entityClass.cast(row));
+				rows++;
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failure.compareAndSet(null, e);
+		}
+		catch (RuntimeException e) {
+			// Consumer failed, stop the workers
+			failure.compareAndSet(null, e);
+		}
+		finally {
+			if (failure.get() != null) {
+				for (Future<?> worker : workers) {
+					worker.cancel(true);
+				}
+			}
+			pool.shutdown();
+			try {
+				pool.awaitTermination(1, TimeUnit.MINUTES);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		Throwable error = failure.get();
+		if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		}
+		if (error != null) {
+			throw new HibernateException("Partitioned read of " + entityName + " failed", error);
+		}
+		return rows;
+	}
+
+	private void readPartition(String hql, Object lo, Object hi, BlockingQueue<Object> queue,
+			AtomicReference<Throwable> failure) {
+		try (StatelessSession session = factory.openStatelessSession()) {
+			ScrollableResults results = session.createQuery(hql)
+					.setParameter("lo", lo)
+					.setParameter("hi", hi)
+					.setFetchSize(fetchSize)
+					.setReadOnly(true)
+					.scroll(ScrollMode.FORWARD_ONLY);
+			try {
+				while (failure.get() == null && results.next()) {
+					// put() blocks while the queue is full: this is the backpressure
+					queue.put(results.get(0));
+				}
+			}
+			finally {
+				results.close();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (RuntimeException e) {
+			failure.compareAndSet(null, e);
+		}
+		finally {
+			// The consumer counts one END per partition, even when a partition failed
+			while (true) {
+				try {
+					if (queue.offer(END, 100, TimeUnit.MILLISECONDS) || failure.get() != null) {
+						break;
+					}
+				}
+				catch (InterruptedException e) {
+					break;
+				}
+			}
+		}
+	}
+
+	// min(id)/max(id) come back as Number, the query parameter must have the real id type
+	private static Object toIdType(long value, Class<?> idType) {
+		if (idType == Integer.class || idType == int.class) {
+			return (int) value;
+		}
+		if (idType == Short.class || idType == short.class) {
+			return (short) value;
+		}
+		if (idType == Long.class || idType == long.class) {
+			return value;
+		}
+		throw new IllegalArgumentException("Partitioned read needs a numeric id, found " + idType.getName());
+	}
+}
+
+-------------------------------------
+
+PartitionedReadDemo.java
+
+Reads the `Student` table with 1, 2, 4 and 8 partitions and prints rows/s.
+Throughput goes up with partitions until the database (CPU or disk) is the limit, then it stays flat.
+
+package com.batch;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class PartitionedReadDemo {
+
+	public static void main(String[] args) {
+		Configuration cfg = new Configuration();
+		cfg.configure("hibernate.cfg.xml");
+		cfg.setProperty("hibernate.connection.pool_size", "16");
+		cfg.setProperty("hibernate.show_sql", "false");
+		SessionFactory factory = cfg.buildSessionFactory();
+
+		for (int partitions : new int[] { 1, 2, 4, 8 }) {
+			LongAdder cityLength = new LongAdder();
+			long start = System.nanoTime();
+
+			long rows = new PartitionedReader<>(factory, Student.class, partitions)
+					.setQueueCapacity(2000)
+					.read(st -> cityLength.add(st.getCity() == null ? 0 : st.getCity().length()));
+
+			double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+			System.out.println(partitions + " partitions : " + rows + " rows in "
+					+ String.format("%.2f", seconds) + " s = " + (long) (rows / seconds) + " rows/s");
+		}
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* Partitions are made by **id range**. If ids have big gaps, some partitions have more rows than others.
+  It still works, it is only less balanced.
+* The consumer runs on **one** thread. If the consumer is the slow part, more partitions will not help;
+  make the consumer faster (batch writes, etc.).
+* Entities come from a `StatelessSession`, so they are **detached**: lazy associations cannot be loaded.
+  Use `join fetch` in the query if you need them.
+* Every partition is its own transaction/snapshot. Rows changed during the read may be seen in one partition and not another.
+* With MySQL, a forward-only scroll only streams if the driver is told to:
+  add `useCursorFetch=true` to the JDBC URL so `setFetchSize()` is used (otherwise the driver reads all rows first).
+
+---
+
+### 🔸 Summary
+
+| Item                       | Purpose                                          |
+| -------------------------- | ------------------------------------------------ |
+| `PartitionedReader`        | Reads a table with N threads by id range         |
+| `StatelessSession`         | No first-level cache, memory stays flat          |
+| `ScrollMode.FORWARD_ONLY`  | Rows are streamed (MySQL: `useCursorFetch=true`) |
+| Bounded queue              | Backpressure when the consumer is slower         |
+| `setQueueCapacity`         | How many rows can wait between readers and consumer |
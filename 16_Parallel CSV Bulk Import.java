@@ -0,0 +1,791 @@
+Parallel CSV Bulk Import**
+
+In `App` (see `1_Introduction.md`) one student is saved like this:
+
+```java
+Transaction tx = session.beginTransaction();
+session.save(st);
+tx.commit();
+```
+
+That is fine for one row. For a file with **tens of millions** of `Student` / `Emp` rows it is far too slow:
+one thread, one transaction per row, and the session keeps every saved object in memory.
+
+The bulk importer:
+
+1. **Memory-maps** the input file (`FileChannel.map`), so the OS reads it for us, no `BufferedReader`, no line `String`s.
+2. Cuts the file into **segments that end on a line break** (not one inside a `"quoted"` value), and gives the
+   segments to **N worker threads**.
+3. Every worker parses its lines **straight from the mapped bytes** (numbers are read digit by digit,
+   a `String` is only made for text columns because the entity needs it).
+4. Every worker writes with its own **`StatelessSession`** and commits every `batchSize` rows,
+   with JDBC batching turned on (`hibernate.jdbc.batch_size`).
+5. Every commit also writes a **checkpoint** (how far each segment got) into a table, in the **same transaction**
+   as the rows. If the import stops (crash, DB down...), running it again **resumes** from the checkpoint
+   instead of starting over.
+6. A bad line does not stop the import: it goes to a **reject file** with the byte offset and the reason.
+   That includes rows the **database** refuses (duplicate id, value too long): that batch is inserted again
+   one row per transaction, so only the bad rows are rejected.
+
+---
+
+### 🔹 Configuration
+
+```xml
+<property name="hibernate.jdbc.batch_size">500</property>
+<property name="hibernate.order_inserts">true</property>
+<!-- one connection per worker -->
+<property name="hibernate.connection.pool_size">8</property>
+```
+
+For MySQL also add `rewriteBatchedStatements=true` to the JDBC URL, so a batch is sent as one multi-row INSERT.
+
+> Batching only works with **assigned ids** (like `Student.id` and `Emp.eid`) or sequences.
+> With `GenerationType.IDENTITY` Hibernate has to insert rows one by one to get the id back.
+
+---
+
+CsvLine.java
+
+package com.batch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One line of the mapped file. Columns are read left to right with nextInt() / nextString().
+ * The same object is reused for every line of a worker.
+ */
+public class CsvLine {
+
+	private ByteBuffer data;
+	private int pos;
+	private int end;
+	private byte[] scratch = new byte[256];
+
+	void reset(ByteBuffer data, int start, int end) {
+		this.data = data;
+		this.pos = start;
+		this.end = end;
+	}
+
+	public int nextInt() {
+		int start = pos;
+		long value = nextLong();
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("number out of int range at column position " + start);
+		}
+		return (int) value;
+	}
+
+	public long nextLong() {
+		int start = pos;
+		boolean negative = false;
+		// Summed up negative, like Long.parseLong: Long.MIN_VALUE has no positive counterpart
+		long value = 0;
+		int digits = 0;
+		if (pos < end && data.get(pos) == '-') {
+			negative = true;
+			pos++;
+		}
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		while (pos < end) {
+			byte b = data.get(pos);
+			if (b == ',') {
+				break;
+			}
+			if (b < '0' || b > '9') {
+				throw new IllegalArgumentException("not a number at column position " + pos);
+			}
+			int digit = b - '0';
+			if (value < limit / 10 || value * 10 < limit + digit) {
+				throw new IllegalArgumentException("number out of long range at column position " + start);
+			}
+			value = value * 10 - digit;
+			digits++;
+			pos++;
+		}
+		if (digits == 0) {
+			throw new IllegalArgumentException("empty number column");
+		}
+		skipComma();
+		return negative ? value : -value;
+	}
+
+	// Empty column -> null. Supports "quoted, values" with "" as an escaped quote.
+	public String nextString() {
+		int length = 0;
+		if (pos < end && data.get(pos) == '"') {
+			pos++;
+			while (true) {
+				if (pos >= end) {
+					throw new IllegalArgumentException("missing closing quote");
+				}
+				byte b = data.get(pos++);
+				if (b == '"') {
+					if (pos < end && data.get(pos) == '"') {
+						pos++;
+					}
+					else {
+						break;
+					}
+				}
+				length = append(length, b);
+			}
+			if (pos < end && data.get(pos) != ',') {
+				throw new IllegalArgumentException("unexpected character after closing quote at column position " + pos);
+			}
+		}
+		else {
+			while (pos < end && data.get(pos) != ',') {
+				length = append(length, data.get(pos++));
+			}
+			if (length == 0) {
+				skipComma();
+				return null;
+			}
+		}
+		skipComma();
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	public boolean hasMore() {
+		return pos < end;
+	}
+
+	private int append(int length, byte b) {
+		if (length == scratch.length) {
+			byte[] bigger = new byte[scratch.length * 2];
+			System.arraycopy(scratch, 0, bigger, 0, length);
+			scratch = bigger;
+		}
+		scratch[length] = b;
+		return length + 1;
+	}
+
+	private void skipComma() {
+		if (pos < end && data.get(pos) == ',') {
+			pos++;
+		}
+	}
+}
+
+-------------------------------------
+
+ImportCheckpoint.java
+
+package com.batch;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+/**
+ * Remembers the segments of the file and how far each one was committed, in a table of the same database.
+ * The offset of a segment is updated in the same transaction as its rows, so they are committed together.
+ */
+public class ImportCheckpoint {
+
+	static final String TABLE = "bulk_import_checkpoint";
+
+	private final String name;
+	private final long[] starts;
+	private final long[] ends;
+	private final long[] committed;
+
+	private ImportCheckpoint(String name, long[] starts, long[] ends, long[] committed) {
+		this.name = name;
+		this.starts = starts;
+		this.ends = ends;
+		this.committed = committed;
+	}
+
+	public static void createTable(SessionFactory factory) {
+		execute(factory, session -> session.createNativeQuery("create table if not exists " + TABLE
+				+ " (import_name varchar(500) not null, segment int not null, input_size bigint not null,"
+				+ " start_offset bigint not null, end_offset bigint not null, committed_offset bigint not null,"
+				+ " primary key (import_name, segment))")
+				.executeUpdate());
+	}
+
+	public static ImportCheckpoint create(SessionFactory factory, String name, long inputSize, long[] starts,
+			long[] ends) {
+		execute(factory, session -> {
+			deleteRows(session, name);
+			for (int i = 0; i < starts.length; i++) {
+				session.createNativeQuery("insert into " + TABLE + " (import_name, segment, input_size, start_offset,"
+						+ " end_offset, committed_offset) values (:name, :segment, :size, :start, :end, :start)")
+						.setParameter("name", name)
+						.setParameter("segment", i)
+						.setParameter("size", inputSize)
+						.setParameter("start", starts[i])
+						.setParameter("end", ends[i])
+						.executeUpdate();
+			}
+		});
+		return new ImportCheckpoint(name, starts, ends, starts.clone());
+	}
+
+	// Returns null if there is no checkpoint, or it was made for another version of the file
+	public static ImportCheckpoint load(SessionFactory factory, String name, long inputSize) {
+		try (StatelessSession session = factory.openStatelessSession()) {
+			@SuppressWarnings("unchecked")
+			List<Object[]> rows = session.createNativeQuery("select input_size, start_offset, end_offset,"
+					+ " committed_offset from " + TABLE + " where import_name = :name order by segment")
+					.setParameter("name", name)
+					.list();
+			if (rows.isEmpty() || ((Number) rows.get(0)[0]).longValue() != inputSize) {
+				return null;
+			}
+			long[] starts = new long[rows.size()];
+			long[] ends = new long[rows.size()];
+			long[] committed = new long[rows.size()];
+			for (int i = 0; i < rows.size(); i++) {
+				starts[i] = ((Number) rows.get(i)[1]).longValue();
+				ends[i] = ((Number) rows.get(i)[2]).longValue();
+				committed[i] = ((Number) rows.get(i)[3]).longValue();
+			}
+			return new ImportCheckpoint(name, starts, ends, committed);
+		}
+	}
+
+	public int getSegmentCount() {
+		return starts.length;
+	}
+
+	public long getEnd(int segment) {
+		return ends[segment];
+	}
+
+	// Where the segment continues: committed when the import started
+	public long getCommitted(int segment) {
+		return committed[segment];
+	}
+
+	// Must run inside the transaction of the rows up to this offset
+	public void commit(StatelessSession session, int segment, long offset) {
+		session.createNativeQuery("update " + TABLE + " set committed_offset = :offset"
+				+ " where import_name = :name and segment = :segment")
+				.setParameter("offset", offset)
+				.setParameter("name", name)
+				.setParameter("segment", segment)
+				.executeUpdate();
+	}
+
+	public void delete(SessionFactory factory) {
+		execute(factory, session -> deleteRows(session, name));
+	}
+
+	private static void deleteRows(StatelessSession session, String name) {
+		session.createNativeQuery("delete from " + TABLE + " where import_name = :name")
+				.setParameter("name", name)
+				.executeUpdate();
+	}
+
+	private static void execute(SessionFactory factory, Consumer<StatelessSession> work) {
+		try (StatelessSession session = factory.openStatelessSession()) {
+			Transaction tx = session.beginTransaction();
+			try {
+				work.accept(session);
+				tx.commit();
+			}
+			catch (RuntimeException e) {
+				if (tx.isActive()) {
+					tx.rollback();
+				}
+				throw e;
+			}
+		}
+	}
+}
+
+-------------------------------------
+
+CsvBulkImporter.java
+
+package com.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.DataException;
+
+/**
+ * Imports a CSV file into one entity with several threads.
+ *
+ * new CsvBulkImporter<>(factory, line -> new Student(line.nextInt(), line.nextString(), line.nextString()))
+ *         .setWorkers(8)
+ *         .run(Paths.get("students.csv"));
+ */
+public class CsvBulkImporter<T> {
+
+	public interface RowMapper<T> {
+		T map(CsvLine line);
+	}
+
+	public static class ImportResult {
+		private final long imported;
+		private final long rejected;
+		private final long nanos;
+
+		ImportResult(long imported, long rejected, long nanos) {
+			this.imported = imported;
+			this.rejected = rejected;
+			this.nanos = nanos;
+		}
+
+		public long getImported() {
+			return imported;
+		}
+
+		public long getRejected() {
+			return rejected;
+		}
+
+		@Override
+		public String toString() {
+			double seconds = nanos / 1_000_000_000.0;
+			return imported + " rows imported, " + rejected + " rejected in " + String.format("%.1f s", seconds)
+					+ " (" + (long) (imported / seconds) + " rows/s)";
+		}
+	}
+
+	// A mapping can't be bigger than 2 GB, so big files get more segments than workers
+	private static final long MAX_SEGMENT = 1L << 30;
+
+	private final SessionFactory factory;
+	private final RowMapper<T> mapper;
+	private int workers = Runtime.getRuntime().availableProcessors();
+	private int batchSize = 500;
+	private boolean skipHeader = true;
+	private long maxRejects = 10_000;
+
+	private final AtomicLong imported = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private BufferedWriter rejects;
+
+	public CsvBulkImporter(SessionFactory factory, RowMapper<T> mapper) {
+		this.factory = factory;
+		this.mapper = mapper;
+	}
+
+	public CsvBulkImporter<T> setWorkers(int workers) {
+		this.workers = workers;
+		return this;
+	}
+
+	// Rows per transaction, keep it equal to hibernate.jdbc.batch_size (or a multiple)
+	public CsvBulkImporter<T> setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	public CsvBulkImporter<T> setSkipHeader(boolean skipHeader) {
+		this.skipHeader = skipHeader;
+		return this;
+	}
+
+	// The import stops when more lines than this are rejected
+	public CsvBulkImporter<T> setMaxRejects(long maxRejects) {
+		this.maxRejects = maxRejects;
+		return this;
+	}
+
+	public ImportResult run(Path input) {
+		long start = System.nanoTime();
+		String name = input.toAbsolutePath().normalize().toString();
+		Path rejectFile = input.resolveSibling(input.getFileName() + ".rejects");
+
+		try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+			long size = channel.size();
+			ImportCheckpoint.createTable(factory);
+			ImportCheckpoint checkpoint = ImportCheckpoint.load(factory, name, size);
+			boolean resuming = checkpoint != null;
+			if (!resuming) {
+				checkpoint = plan(channel, size, name);
+			}
+			else {
+				System.out.println("Resuming import of " + input + " from table " + ImportCheckpoint.TABLE);
+			}
+
+			rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+					resuming ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+			ExecutorService pool = Executors.newFixedThreadPool(workers);
+			List<Future<?>> tasks = new ArrayList<>();
+			for (int i = 0; i < checkpoint.getSegmentCount(); i++) {
+				int segment = i;
+				ImportCheckpoint cp = checkpoint;
+				tasks.add(pool.submit(() -> {
+					importSegment(channel, cp, segment);
+					return null;
+				}));
+			}
+			pool.shutdown();
+
+			Exception failure = null;
+			for (Future<?> task : tasks) {
+				try {
+					task.get();
+				}
+				catch (Exception e) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+			}
+			rejects.close();
+			if (failure != null) {
+				// Checkpoint is kept, run the import again to continue
+				throw new HibernateException("Bulk import of " + input + " stopped, run again to resume", failure);
+			}
+			checkpoint.delete(factory);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return new ImportResult(imported.get(), rejected.get(), System.nanoTime() - start);
+	}
+
+	/**
+	 * Cuts the file into segments which start right after a line break. A line break inside a "quoted" field is
+	 * part of the value (the exporter of 15_Streaming CSV Export.java writes them), and only reading from the
+	 * start tells if we are inside quotes: so the file is read once, in order. It is then in the page cache for the workers.
+	 */
+	private ImportCheckpoint plan(FileChannel channel, long size, String name) throws IOException {
+		int segments = (int) Math.max(workers, (size + MAX_SEGMENT - 1) / MAX_SEGMENT);
+		List<Long> bounds = new ArrayList<>();
+		long first = skipHeader ? -1 : 0;
+		if (first == 0) {
+			bounds.add(0L);
+		}
+		long target = first < 0 ? Long.MAX_VALUE : size / segments;
+		boolean quoted = false;
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+		long pos = 0;
+		scan:
+		while (pos < size) {
+			buffer.clear();
+			int read = channel.read(buffer, pos);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				byte b = buffer.get(i);
+				if (b == '"') {
+					quoted = !quoted;
+				}
+				else if (b == '\n' && !quoted) {
+					long lineStart = pos + i + 1;
+					if (first < 0) {
+						// end of the header line
+						first = lineStart;
+						bounds.add(first);
+						target = first + (size - first) / segments;
+					}
+					else if (lineStart >= target && lineStart < size) {
+						bounds.add(lineStart);
+						if (bounds.size() == segments) {
+							break scan;
+						}
+						target = first + (size - first) * bounds.size() / segments;
+					}
+				}
+			}
+			pos += read;
+		}
+		if (bounds.isEmpty()) {
+			bounds.add(size); // header only
+		}
+		bounds.add(size);
+
+		long[] starts = new long[bounds.size() - 1];
+		long[] ends = new long[bounds.size() - 1];
+		for (int i = 0; i < starts.length; i++) {
+			starts[i] = bounds.get(i);
+			ends[i] = bounds.get(i + 1);
+		}
+		return ImportCheckpoint.create(factory, name, size, starts, ends);
+	}
+
+	private void importSegment(FileChannel channel, ImportCheckpoint checkpoint, int segment) throws IOException {
+		long base = checkpoint.getCommitted(segment);
+		long end = checkpoint.getEnd(segment);
+		if (base >= end) {
+			return; // finished in an earlier run
+		}
+		MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, base, end - base);
+		int limit = (int) (end - base);
+
+		int pos = 0;
+		while (pos < limit) {
+			// A new session after a batch the database refused: the failed JDBC batch is not used again
+			try (StatelessSession session = factory.openStatelessSession()) {
+				pos = importBatches(session, data, base, limit, pos, checkpoint, segment);
+			}
+		}
+	}
+
+	/**
+	 * Parses and inserts batches from pos. Returns limit when the segment is done, or the end of a batch with rows
+	 * refused by the database (those are rejected one by one, the others are inserted).
+	 */
+	private int importBatches(StatelessSession session, ByteBuffer data, long base, int limit, int pos,
+			ImportCheckpoint checkpoint, int segment) {
+		CsvLine line = new CsvLine();
+		List<T> rows = new ArrayList<>(batchSize);
+		// per row: start and end of its text, and where the next line starts
+		int[] starts = new int[batchSize];
+		int[] ends = new int[batchSize];
+		int[] nexts = new int[batchSize];
+
+		while (pos < limit) {
+			// Parse one batch, bad lines are rejected here
+			rows.clear();
+			while (pos < limit && rows.size() < batchSize) {
+				int lineEnd = lineEnd(data, pos, limit);
+				int contentEnd = lineEnd > pos && data.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+				int next = Math.min(lineEnd + 1, limit);
+				if (contentEnd > pos) {
+					try {
+						line.reset(data, pos, contentEnd);
+						T row = mapper.map(line);
+						starts[rows.size()] = pos;
+						ends[rows.size()] = contentEnd;
+						nexts[rows.size()] = next;
+						rows.add(row);
+					}
+					catch (RuntimeException e) {
+						reject(data, base, pos, contentEnd, e.getMessage());
+					}
+				}
+				pos = next;
+			}
+
+			Transaction tx = session.beginTransaction();
+			try {
+				for (T row : rows) {
+					session.insert(row);
+				}
+				// Same transaction as the rows: committed together, or not at all
+				checkpoint.commit(session, segment, base + pos);
+				tx.commit();
+				imported.addAndGet(rows.size());
+			}
+			catch (RuntimeException e) {
+				rollback(tx);
+				if (!isRowError(e)) {
+					throw e; // database down, deadlock ...: stop, resume later
+				}
+				insertOneByOne(rows, starts, ends, nexts, data, base, pos, checkpoint, segment);
+				return pos;
+			}
+		}
+		return pos;
+	}
+
+	// The database refused a row of the batch, and only it knows which one: one transaction per row
+	private void insertOneByOne(List<T> rows, int[] starts, int[] ends, int[] nexts, ByteBuffer data, long base,
+			int batchEnd, ImportCheckpoint checkpoint, int segment) {
+		try (StatelessSession session = factory.openStatelessSession()) {
+			for (int i = 0; i < rows.size(); i++) {
+				Transaction tx = session.beginTransaction();
+				try {
+					session.insert(rows.get(i));
+					checkpoint.commit(session, segment, base + nexts[i]);
+					tx.commit();
+					imported.incrementAndGet();
+				}
+				catch (RuntimeException e) {
+					rollback(tx);
+					if (!isRowError(e)) {
+						throw e;
+					}
+					reject(data, base, starts[i], ends[i], "refused by database: " + rootMessage(e));
+				}
+			}
+			Transaction tx = session.beginTransaction();
+			checkpoint.commit(session, segment, base + batchEnd);
+			tx.commit();
+		}
+	}
+
+	// End of the line which starts at pos: the next '\n' which is not inside a "quoted" field
+	private static int lineEnd(ByteBuffer data, int pos, int limit) {
+		boolean quoted = false;
+		while (pos < limit) {
+			byte b = data.get(pos);
+			if (b == '"') {
+				quoted = !quoted;
+			}
+			else if (b == '\n' && !quoted) {
+				break;
+			}
+			pos++;
+		}
+		return pos;
+	}
+
+	// Constraint violations (duplicate id, null, foreign key) and bad values (too long, out of range) are about the row
+	private static boolean isRowError(Throwable e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof ConstraintViolationException || t instanceof DataException) {
+				return true;
+			}
+			if (t instanceof SQLException) {
+				String state = ((SQLException) t).getSQLState();
+				if (state != null && (state.startsWith("22") || state.startsWith("23"))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static String rootMessage(Throwable e) {
+		Throwable root = e;
+		while (root.getCause() != null) {
+			root = root.getCause();
+		}
+		return root.getMessage();
+	}
+
+	private static void rollback(Transaction tx) {
+		try {
+			if (tx.isActive()) {
+				tx.rollback();
+			}
+		}
+		catch (RuntimeException e) {
+			// the original exception is the interesting one
+		}
+	}
+
+	private void reject(ByteBuffer data, long base, int start, int end, String reason) {
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = data.get(start + i);
+		}
+		// One reject per line, also for values with line breaks
+		String text = new String(bytes, StandardCharsets.UTF_8).replace("\r", "\\r").replace("\n", "\\n");
+		long count = rejected.incrementAndGet();
+		synchronized (this) {
+			try {
+				rejects.write("offset " + (base + start) + ": " + reason + " | " + text);
+				rejects.newLine();
+			}
+			catch (IOException io) {
+				throw new UncheckedIOException(io);
+			}
+		}
+		if (count > maxRejects) {
+			throw new HibernateException("More than " + maxRejects + " bad lines, import stopped");
+		}
+	}
+}
+
+-------------------------------------
+
+BulkImportDemo.java
+
+package com.batch;
+
+import java.nio.file.Paths;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import com.map1.Emp;
+import com.mavenlearn.Student;
+
+public class BulkImportDemo {
+
+	public static void main(String[] args) {
+		Configuration cfg = new Configuration();
+		cfg.configure("hibernate.cfg.xml");
+		cfg.setProperty("hibernate.jdbc.batch_size", "500");
+		cfg.setProperty("hibernate.connection.pool_size", "8");
+		cfg.setProperty("hibernate.show_sql", "false");
+		SessionFactory factory = cfg.buildSessionFactory();
+
+		// students.csv : id,name,city
+		CsvBulkImporter.ImportResult students = new CsvBulkImporter<>(factory,
+				line -> new Student(line.nextInt(), line.nextString(), line.nextString()))
+				.setWorkers(8)
+				.setBatchSize(500)
+				.run(Paths.get(args.length > 0 ? args[0] : "students.csv"));
+		System.out.println("Student : " + students);
+
+		// emps.csv : eid,name   (projects are linked later)
+		CsvBulkImporter.ImportResult emps = new CsvBulkImporter<>(factory, line -> {
+			Emp e = new Emp();
+			e.setEid(line.nextInt());
+			e.setName(line.nextString());
+			return e;
+		}).setWorkers(4).run(Paths.get(args.length > 1 ? args[1] : "emps.csv"));
+		System.out.println("Emp     : " + emps);
+
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Resume and rejects
+
+* Table `bulk_import_checkpoint` has one row per segment while the import runs (key: the absolute path of the file),
+  with the last committed byte offset. It is created if missing (`create table if not exists`: MySQL, PostgreSQL, H2).
+  When the import finishes without error the rows are deleted.
+* If it fails (or is killed), just **run it again**: finished segments are skipped, the others continue after the last commit.
+  The offset is committed together with the rows, so nothing is inserted twice.
+* Only row errors (SQL state `22xxx` / `23xxx`) are rejected. Anything else (connection lost, deadlock) stops the
+  import, to be resumed.
+* `students.csv.rejects` has one line per bad input line:
+
+```
+offset 184467: not a number at column position 3 | 12a,Rahul,Delhi
+```
+
+* A line rejected just before a crash can show up twice in the reject file after resume (its batch is re-read).
+* Line breaks inside a rejected value are written as `\n`, so every reject is one line.
+* A number which does not fit its field (`nextInt()` over 2147483647, `nextLong()` over 19 digits) and text after the
+  closing quote of a value (`"Delhi"x`) are rejected like any other malformed column, instead of being read wrong.
+* A `"` inside a value which is **not** quoted (`5" pipe`) confuses the line splitter. Quote such values (RFC 4180),
+  as the exporter of file 15 does.
+* If the file is changed (different size), the old checkpoint is ignored and the import starts from the beginning.
+
+---
+
+### 🔸 Summary
+
+| Item                        | Purpose                                         |
+| --------------------------- | ----------------------------------------------- |
+| `FileChannel.map`           | Read file through the OS page cache             |
+| Segments on `\n`            | Each worker gets whole lines only               |
+| `CsvLine.nextInt()/nextString()` | Parse columns from bytes                   |
+| `StatelessSession.insert`   | No session cache, JDBC batches                  |
+| `bulk_import_checkpoint`    | Resume after a failure, committed with the rows |
+| `.rejects` file             | Bad lines with offset and reason                |
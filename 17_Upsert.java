@@ -0,0 +1,346 @@
+Upsert (Insert or Update in One Statement)**
+
+In `2_CRUD.java` an update is:
+
+```java
+User user = session.get(User.class, 1);   // round trip 1: SELECT
+user.setEmail("alice.new@example.com");
+tx.commit();                               // round trip 2: UPDATE
+```
+
+Our sync jobs don't even know if the row is there, so they do:
+
+```java
+User existing = session.get(User.class, id);   // SELECT
+if (existing == null) session.save(user);      // INSERT
+else session.merge(user);                      // SELECT again (merge) + UPDATE
+```
+
+That is 2-3 round trips per row. And two jobs doing it at the same time can both see "not there" and both INSERT -> duplicate key error.
+
+Most databases can do **insert or update in one statement**:
+
+| Database   | SQL                                                         |
+| ---------- | ----------------------------------------------------------- |
+| MySQL      | `INSERT ... VALUES (...) ON DUPLICATE KEY UPDATE a = VALUES(a)` |
+| H2         | `MERGE INTO t (...) KEY (id) VALUES (...)`                  |
+| PostgreSQL | `INSERT ... ON CONFLICT (id) DO UPDATE SET a = EXCLUDED.a`  |
+
+Hibernate 5 has no upsert method, so `Upserter` builds this SQL **from the entity mapping** (table, columns, types),
+once per entity class, and runs it with plain JDBC inside the Hibernate session/transaction.
+
+---
+
+Upserter.java
+
+package com.crud;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.Hibernate;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQL95Dialect;
+import org.hibernate.engine.spi.IdentifierValue;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.Type;
+
+/**
+ * Insert-or-update of entities in one SQL statement per row (or one JDBC batch for many rows).
+ *
+ * Upserter upserter = new Upserter(factory);
+ * Transaction tx = session.beginTransaction();
+ * upserter.upsert(session, user);
+ * upserter.upsertAll(session, users);
+ * tx.commit();
+ */
+public class Upserter {
+
+	// SQL and columns of one entity, built once
+	private static class Plan {
+		final AbstractEntityPersister persister;
+		final String sql;
+		// property indexes written by the statement, in bind order after the id
+		final int[] properties;
+
+		Plan(AbstractEntityPersister persister, String sql, int[] properties) {
+			this.persister = persister;
+			this.sql = sql;
+			this.properties = properties;
+		}
+	}
+
+	private final SessionFactoryImplementor factory;
+	private final Dialect dialect;
+	private final Map<Class<?>, Plan> plans = new ConcurrentHashMap<>();
+	private int batchSize = 500;
+
+	public Upserter(org.hibernate.SessionFactory factory) {
+		this.factory = factory.unwrap(SessionFactoryImplementor.class);
+		this.dialect = this.factory.getJdbcServices().getDialect();
+	}
+
+	public Upserter setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	public <T> void upsert(Session session, T entity) {
+		upsertAll(session, Collections.singletonList(entity));
+	}
+
+	public <T> void upsertAll(Session session, Collection<T> entities) {
+		if (entities.isEmpty()) {
+			return;
+		}
+		// Pending changes of the session must reach the DB before our statement
+		session.flush();
+
+		// One statement per entity class, so a mixed list is split by class. A proxy is replaced by its entity
+		// (loading it if needed): the persister would read null from an uninitialized proxy's fields.
+		Map<Class<?>, List<Object>> byClass = new LinkedHashMap<>();
+		for (T entity : entities) {
+			Object real = Hibernate.unproxy(entity);
+			byClass.computeIfAbsent(real.getClass(), c -> new ArrayList<>()).add(real);
+		}
+		SessionImplementor sessionImpl = session.unwrap(SessionImplementor.class);
+		for (Map.Entry<Class<?>, List<Object>> group : byClass.entrySet()) {
+			upsertAll(sessionImpl, planFor(group.getKey()), group.getValue());
+		}
+	}
+
+	private void upsertAll(SessionImplementor session, Plan plan, List<Object> entities) {
+		IdentifierValue unsaved = plan.persister.getEntityMetamodel().getIdentifierProperty().getUnsavedValue();
+		List<Serializable> ids = new ArrayList<>(entities.size());
+
+		session.doWork(connection -> {
+			try (PreparedStatement ps = connection.prepareStatement(plan.sql)) {
+				int inBatch = 0;
+				for (Object entity : entities) {
+					Serializable id = plan.persister.getIdentifier(entity, session);
+					// null for an Integer id, or the mapping's unsaved-value (0 for a generated int id)
+					if (id == null || Boolean.TRUE.equals(unsaved.isUnsaved(id))) {
+						throw new HibernateException("Upsert needs an assigned id: " + entity);
+					}
+					ids.add(id);
+					bind(ps, plan, entity, id, session);
+					ps.addBatch();
+					if (++inBatch == batchSize) {
+						ps.executeBatch();
+						inBatch = 0;
+					}
+				}
+				if (inBatch > 0) {
+					ps.executeBatch();
+				}
+			}
+		});
+
+		// The row changed behind Hibernate's back: drop old copies from the session and the second-level cache.
+		// The caller's managed instance of an upserted id is detached: changes made to it later are not saved.
+		for (Serializable id : ids) {
+			Object managed = session.getPersistenceContext().getEntity(session.generateEntityKey(id, plan.persister));
+			if (managed != null) {
+				session.evict(managed);
+			}
+		}
+		if (plan.persister.canWriteToCache()) {
+			evictCached(plan, ids);
+			// A reader in another session can put the old row back before we commit, so evict again
+			// after the transaction completes
+			session.getActionQueue().registerProcess((success, s) -> evictCached(plan, ids));
+		}
+		if (factory.getSessionFactoryOptions().isQueryCacheEnabled()) {
+			// Cached query results over this table are stale too. Same two steps as BulkOperationCleanupAction:
+			// pre-invalidate now, invalidate after the transaction completes.
+			String[] spaces = (String[]) plan.persister.getQuerySpaces();
+			factory.getCache().getTimestampsCache().preInvalidate(spaces, session);
+			session.getActionQueue().registerProcess(
+					(success, s) -> factory.getCache().getTimestampsCache().invalidate(spaces, s));
+		}
+	}
+
+	private void evictCached(Plan plan, List<Serializable> ids) {
+		for (Serializable id : ids) {
+			factory.getCache().evictEntityData(plan.persister.getEntityName(), id);
+		}
+	}
+
+	private void bind(PreparedStatement ps, Plan plan, Object entity, Serializable id,
+			SharedSessionContractImplementor session) throws SQLException {
+		AbstractEntityPersister persister = plan.persister;
+		Object[] values = persister.getPropertyValues(entity);
+		Type[] types = persister.getPropertyTypes();
+
+		int index = 1;
+		persister.getIdentifierType().nullSafeSet(ps, id, index, session);
+		index += persister.getIdentifierColumnNames().length;
+		for (int property : plan.properties) {
+			types[property].nullSafeSet(ps, values[property], index, session);
+			index += persister.getPropertyColumnNames(property).length;
+		}
+	}
+
+	private Plan planFor(Class<?> entityClass) {
+		return plans.computeIfAbsent(entityClass, c -> {
+			AbstractEntityPersister persister = (AbstractEntityPersister) factory.getMetamodel().entityPersister(c);
+			if (persister.isVersioned() || persister.getEntityMetamodel().isPolymorphic()) {
+				throw new HibernateException("Upsert is not supported for versioned or inherited entity " + c.getName());
+			}
+
+			// Plain columns of this table only: skip collections and properties which are not insertable
+			List<Integer> properties = new ArrayList<>();
+			List<String> columns = new ArrayList<>();
+			boolean[] insertable = persister.getPropertyInsertability();
+			for (int i = 0; i < persister.getPropertyNames().length; i++) {
+				String[] propertyColumns = persister.getPropertyColumnNames(i);
+				if (!insertable[i] || persister.getPropertyTypes()[i].isCollectionType() || propertyColumns.length == 0) {
+					continue;
+				}
+				properties.add(i);
+				Collections.addAll(columns, propertyColumns);
+			}
+			String[] idColumns = persister.getIdentifierColumnNames();
+			String sql = buildSql(persister.getTableName(), idColumns, columns);
+			return new Plan(persister, sql, properties.stream().mapToInt(Integer::intValue).toArray());
+		});
+	}
+
+	private String buildSql(String table, String[] idColumns, List<String> columns) {
+		List<String> all = new ArrayList<>();
+		Collections.addAll(all, idColumns);
+		all.addAll(columns);
+		String columnList = String.join(", ", all);
+		String params = String.join(", ", Collections.nCopies(all.size(), "?"));
+
+		if (dialect instanceof MySQLDialect) {
+			StringBuilder sql = new StringBuilder("insert into ").append(table).append(" (").append(columnList)
+					.append(") values (").append(params).append(") on duplicate key update ");
+			appendAssignments(sql, columns, "values(%s)", idColumns[0]);
+			return sql.toString();
+		}
+		if (dialect instanceof H2Dialect) {
+			return "merge into " + table + " (" + columnList + ") key (" + String.join(", ", idColumns) + ") values ("
+					+ params + ")";
+		}
+		if (dialect instanceof PostgreSQL95Dialect) {
+			StringBuilder sql = new StringBuilder("insert into ").append(table).append(" (").append(columnList)
+					.append(") values (").append(params).append(") on conflict (").append(String.join(", ", idColumns))
+					.append(") do ");
+			if (columns.isEmpty()) {
+				sql.append("nothing");
+			}
+			else {
+				sql.append("update set ");
+				appendAssignments(sql, columns, "excluded.%s", null);
+			}
+			return sql.toString();
+		}
+		throw new HibernateException("No native upsert for dialect " + dialect.getClass().getSimpleName());
+	}
+
+	// column = values(column), ... ; an entity with only an id still needs one assignment on MySQL
+	private static void appendAssignments(StringBuilder sql, List<String> columns, String valueFormat, String idColumn) {
+		if (columns.isEmpty()) {
+			sql.append(idColumn).append(" = ").append(idColumn);
+			return;
+		}
+		for (int i = 0; i < columns.size(); i++) {
+			if (i > 0) {
+				sql.append(", ");
+			}
+			sql.append(columns.get(i)).append(" = ").append(String.format(valueFormat, columns.get(i)));
+		}
+	}
+}
+
+-------------------------------------
+
+UpsertDemo.java
+
+package com.crud;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class UpsertDemo {
+
+	public static void main(String[] args) {
+		SessionFactory factory = new Configuration().configure("hibernate.cfg.xml").buildSessionFactory();
+		Upserter upserter = new Upserter(factory);
+
+		Session session = factory.openSession();
+		Transaction tx = session.beginTransaction();
+
+		// Row 101 exists (from App) -> UPDATE. Row 501 does not -> INSERT. One statement each.
+		upserter.upsert(session, new Student(101, "Sahil", "Gurgaon"));
+		upserter.upsert(session, new Student(501, "Aman", "Meerut"));
+
+		// Sync job: 10,000 rows in batches of 500
+		List<Student> batch = new ArrayList<>();
+		for (int i = 1000; i < 11000; i++) {
+			batch.add(new Student(i, "Student " + i, "City " + (i % 20)));
+		}
+		upserter.upsertAll(session, batch);
+
+		tx.commit();
+		session.close();
+
+		Session s2 = factory.openSession();
+		System.out.println(s2.get(Student.class, 101));
+		System.out.println(s2.get(Student.class, 501));
+		s2.close();
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* The id must be **set by us** (assigned), like `Student.id`. With `IDENTITY` ids there is nothing to match on.
+  An id equal to the mapping's unsaved-value (`null`, or `0` for a generated `int` id) is refused.
+* A list with several entity classes is fine: one statement (and batch) is prepared per class.
+* Cached copies are evicted right away **and again after commit/rollback**, so a concurrent reader
+  cannot leave the old row in the second-level cache. Cached **query results** over the table are invalidated
+  the same way, like an HQL bulk update does.
+* An entity of the same id which is **managed by the session** is **evicted** (detached). If you keep using that
+  object, `setXxx()` on it is no longer saved: `get()` it again after the upsert.
+* A Hibernate **proxy** (`session.load()`, a lazy to-one) is initialized and its entity is written.
+* The SQL writes the **whole row**. A column we don't set in the object is written as `null`.
+* `@Version` entities are refused: a blind upsert would skip optimistic locking.
+* Entity listeners / `@PrePersist` are **not** called, because Hibernate does not run the insert itself.
+* On MySQL, `ON DUPLICATE KEY` also fires on **any unique key** (for example `User.email`), not only the id.
+* With `rewriteBatchedStatements=true` in the MySQL URL, a batch becomes one multi-row statement.
+
+---
+
+### 🔸 Summary
+
+| Method                           | Purpose                                   |
+| -------------------------------- | ----------------------------------------- |
+| `upserter.upsert(session, e)`    | Insert or update one entity, one statement|
+| `upserter.upsertAll(session, c)` | Same for many, JDBC batches               |
+| `setBatchSize(n)`                | Rows per JDBC batch                       |
@@ -0,0 +1,326 @@
+Partial Column Updates (without loading the entity)**
+
+To change only the city of a student the normal way is:
+
+```java
+Student st = session.get(Student.class, 101);   // SELECT id, name, city ...  (whole row)
+st.setCity("Noida");
+tx.commit();                                    // UPDATE Student SET name=?, city=? WHERE id=?  (every column!)
+```
+
+Two things are wasted:
+
+1. The **SELECT**: we load the whole row only to change one column.
+2. The **UPDATE lists every column**, even the ones that did not change. For wide rows (long text columns...) that is a lot of bytes on the wire.
+
+We fix them separately.
+
+---
+
+### 🔹 1. `@DynamicUpdate` - normal flushes write only changed columns
+
+```java
+@Entity
+@DynamicUpdate
+public class Student { ... }
+```
+
+Now the commit above sends:
+
+```sql
+UPDATE Student SET city=? WHERE id=?
+```
+
+* Hibernate builds the UPDATE at flush time from the dirty properties, instead of using one fixed UPDATE with all columns.
+* Small CPU cost (SQL is built per flush, not once), big win when the table has many or large columns.
+* Works together with `@Version` (the version column is always added).
+
+---
+
+### 🔹 2. `PartialUpdate` - no SELECT at all
+
+```java
+int updated = PartialUpdate.of(session, Student.class, 101)
+		.set("city", "Noida")
+		.execute();
+```
+
+sends only
+
+```sql
+UPDATE Student SET city=? WHERE id=?
+```
+
+* **Typed**: the property name and the value type are checked against the mapping before anything is sent.
+  With the JPA static metamodel (`Student_`) you can write `.set(Student_.city, "Noida")` and get compile-time checks.
+* **`@Version`**: if the entity is versioned, the version is checked and moved to its next value (`VersionType.next`,
+  so a number +1 or the current timestamp) in the same statement. `expectVersion` on a non-versioned entity is refused.
+  If nobody matches (someone else changed the row), a `StaleObjectStateException` is thrown, like a normal update.
+* **Session**: if the same entity is already loaded in this session, its field and its snapshot are updated too,
+  so the session does not see it as dirty and does not write it again at flush.
+* **Second-level cache**: Hibernate's bulk update cleanup invalidates the cached entries of the table after the update.
+
+---
+
+PartialUpdate.java
+
+package com.crud;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.StaleObjectStateException;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.Query;
+import org.hibernate.type.VersionType;
+
+/**
+ * UPDATE of some columns of one row, without loading the entity first.
+ */
+public class PartialUpdate<T> {
+
+	private final SessionImplementor session;
+	private final Class<T> entityClass;
+	private final Serializable id;
+	private final EntityPersister persister;
+	private final Map<String, Object> values = new LinkedHashMap<>();
+	private Object expectedVersion;
+
+	private PartialUpdate(Session session, Class<T> entityClass, Serializable id) {
+		this.session = session.unwrap(SessionImplementor.class);
+		this.entityClass = entityClass;
+		this.id = id;
+		this.persister = this.session.getFactory().getMetamodel().entityPersister(entityClass);
+	}
+
+	public static <T> PartialUpdate<T> of(Session session, Class<T> entityClass, Serializable id) {
+		return new PartialUpdate<>(session, entityClass, id);
+	}
+
+	public PartialUpdate<T> set(String property, Object value) {
+		int index = propertyIndex(property);
+		Class<?> type = persister.getPropertyTypes()[index].getReturnedClass();
+		if (value != null && !wrap(type).isInstance(value)) {
+			throw new IllegalArgumentException(entityClass.getSimpleName() + "." + property + " is " + type.getName()
+					+ ", not " + value.getClass().getName());
+		}
+		if (persister.isVersioned() && index == persister.getVersionProperty()) {
+			throw new IllegalArgumentException("The version property is managed by Hibernate");
+		}
+		values.put(property, value);
+		return this;
+	}
+
+	// Compile-time checked, with the generated JPA metamodel (Student_.city)
+	public <V> PartialUpdate<T> set(SingularAttribute<? super T, V> attribute, V value) {
+		return set(attribute.getName(), value);
+	}
+
+	// Only update if the row still has this version (optimistic locking)
+	public PartialUpdate<T> expectVersion(Object version) {
+		if (!persister.isVersioned()) {
+			throw new IllegalArgumentException(entityClass.getSimpleName() + " has no @Version property");
+		}
+		this.expectedVersion = version;
+		return this;
+	}
+
+	/**
+	 * Runs the UPDATE. Returns 1 if the row was updated, 0 if there is no row with this id.
+	 */
+	public int execute() {
+		if (values.isEmpty()) {
+			return 0;
+		}
+		PersistenceContext context = session.getPersistenceContext();
+		Object managed = context.getEntity(session.generateEntityKey(id, persister));
+		EntityEntry entry = managed == null ? null : context.getEntry(managed);
+
+		// A loaded instance tells us the version we expect
+		Object version = expectedVersion;
+		if (version == null && entry != null && persister.isVersioned()) {
+			version = entry.getVersion();
+		}
+
+		StringBuilder hql = new StringBuilder("update ");
+		if (persister.isVersioned() && version == null) {
+			// Let Hibernate increment the version, no check possible
+			hql.append("versioned ");
+		}
+		hql.append(persister.getEntityName()).append(" e set ");
+		int i = 0;
+		for (String property : values.keySet()) {
+			if (i > 0) {
+				hql.append(", ");
+			}
+			hql.append("e.").append(property).append(" = :p").append(i++);
+		}
+		String versionName = persister.isVersioned() ? persister.getPropertyNames()[persister.getVersionProperty()] : null;
+		// The version type gives the next value, so it works for numbers and timestamps alike
+		Object nextVersion = version == null ? null : nextVersion(version);
+		if (version != null) {
+			hql.append(", e.").append(versionName).append(" = :nextVersion");
+		}
+		hql.append(" where e.").append(persister.getIdentifierPropertyName()).append(" = :id");
+		if (version != null) {
+			hql.append(" and e.").append(versionName).append(" = :version");
+		}
+
+		Query<?> query = session.createQuery(hql.toString());
+		i = 0;
+		for (Object value : values.values()) {
+			query.setParameter("p" + i++, value);
+		}
+		query.setParameter("id", id);
+		if (version != null) {
+			query.setParameter("version", version);
+			query.setParameter("nextVersion", nextVersion);
+		}
+
+		int updated = query.executeUpdate();
+		if (updated == 0 && version != null) {
+			throw new StaleObjectStateException(persister.getEntityName(), id);
+		}
+		if (updated > 0 && entry != null) {
+			syncManagedInstance(managed, entry, nextVersion);
+		}
+		return updated;
+	}
+
+	// Put the new values in the loaded object and its snapshot, so flush finds nothing dirty
+	private void syncManagedInstance(Object managed, EntityEntry entry, Object nextVersion) {
+		Object[] loadedState = entry.getLoadedState().clone();
+		for (Map.Entry<String, Object> value : values.entrySet()) {
+			int index = propertyIndex(value.getKey());
+			persister.setPropertyValue(managed, index, value.getValue());
+			loadedState[index] = value.getValue();
+		}
+		if (persister.isVersioned()) {
+			if (nextVersion == null) {
+				// "update versioned" - we don't know the new version, reload it
+				session.refresh(managed);
+				return;
+			}
+			loadedState[persister.getVersionProperty()] = nextVersion;
+		}
+		entry.postUpdate(managed, loadedState, nextVersion);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object nextVersion(Object version) {
+		return ((VersionType<Object>) persister.getVersionType()).next(version, session);
+	}
+
+	private int propertyIndex(String property) {
+		String[] names = persister.getPropertyNames();
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(property)) {
+				if (persister.getPropertyTypes()[i].isCollectionType()) {
+					throw new IllegalArgumentException(property + " is a collection, it has no column to update");
+				}
+				return i;
+			}
+		}
+		throw new HibernateException("Unknown property " + entityClass.getSimpleName() + "." + property);
+	}
+
+	private static Class<?> wrap(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		}
+		if (type == int.class) {
+			return Integer.class;
+		}
+		if (type == long.class) {
+			return Long.class;
+		}
+		if (type == boolean.class) {
+			return Boolean.class;
+		}
+		if (type == double.class) {
+			return Double.class;
+		}
+		if (type == float.class) {
+			return Float.class;
+		}
+		if (type == short.class) {
+			return Short.class;
+		}
+		if (type == byte.class) {
+			return Byte.class;
+		}
+		return Character.class;
+	}
+}
+
+-------------------------------------
+
+PartialUpdateDemo.java
+
+package com.crud;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class PartialUpdateDemo {
+
+	public static void main(String[] args) {
+		SessionFactory factory = new Configuration().configure("hibernate.cfg.xml").buildSessionFactory();
+
+		Session session = factory.openSession();
+		Transaction tx = session.beginTransaction();
+
+		// UPDATE Student SET city=? WHERE id=?   - no SELECT before
+		int r = PartialUpdate.of(session, Student.class, 101).set("city", "Noida").execute();
+		System.out.println(r + " Object Updated");
+
+		// Already loaded in this session: the object is updated too and is not dirty afterwards
+		Student st = session.get(Student.class, 102);
+		PartialUpdate.of(session, Student.class, 102).set("city", "Gzb").execute();
+		System.out.println(st.getCity()); // Gzb
+
+		// Wrong type is refused before going to the DB
+		try {
+			PartialUpdate.of(session, Student.class, 101).set("city", 42);
+		}
+		catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+		}
+
+		tx.commit();
+		session.close();
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* `PartialUpdate` is a bulk HQL update under the hood, so **entity listeners and `@PreUpdate` are not called**.
+* Hibernate's bulk cleanup evicts the **whole** second-level cache region of that entity (not only this id). For an
+  entity which is updated like this very often, a cache is probably not worth it anyway.
+* Use `@DynamicUpdate` when rows are wide or have big columns. For small tables the fixed UPDATE is fine.
+
+---
+
+### 🔸 Summary
+
+| Item                                  | SQL sent                                   |
+| ------------------------------------- | ------------------------------------------ |
+| Normal get + set + commit             | SELECT all columns, UPDATE all columns     |
+| `@DynamicUpdate` + get + set + commit | SELECT all columns, UPDATE changed columns |
+| `PartialUpdate.of(..).set(..)`        | UPDATE given columns only, no SELECT       |
+| `.expectVersion(v)`                   | Adds `AND version = ?`, throws if stale    |
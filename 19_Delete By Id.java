@@ -0,0 +1,335 @@
+Delete by Id without Loading the Entity**
+
+The delete in `2_CRUD.java` is:
+
+```java
+User user = session.get(User.class, 1);   // SELECT the full row
+session.delete(user);                     // DELETE ... WHERE id=?
+```
+
+We load a whole row just to throw it away. A purge job deleting 300,000 rows this way does
+300,000 SELECTs + 300,000 DELETEs, and keeps 300,000 objects in the session until commit.
+
+`BulkDeleter` deletes by id directly:
+
+```sql
+DELETE FROM Student WHERE id IN (?, ?, ?, ... 500 ids)
+```
+
+* Ids are sent in **chunks** (default 500, or less if the database has a limit on `IN` lists, like Oracle's 1000).
+* **Cascades** configured on the entity still work. For a parent with `@OneToMany(mappedBy = "parent", cascade = CascadeType.ALL)`,
+  the child rows are deleted first (and their own cascades too). `Question` in `7_Mapping.java` has **no** cascade
+  on `answers`, so the demo deletes the `Answer`s itself first.
+* Rows in other tables which belong to the deleted row are removed first, same as `session.delete()` does:
+  * **join table rows** of the owning side (`Emp.projects`, or a `@OneToMany` without `mappedBy` which uses a join table),
+  * **`@ElementCollection`** rows,
+  * a `@OneToMany` with `@JoinColumn` and without `mappedBy` and without cascade: the children's foreign key is set to `null`.
+* To-one targets with cascade delete are deleted in foreign key order: the **inverse** side
+  (`@OneToOne(mappedBy = ..., cascade = REMOVE)`, the foreign key is in the target's table) **before** the parent row,
+  the **owning** side (the foreign key is in the parent's row) **after** it.
+* Each entity + id is deleted only once, so cascades which go round in a circle (A cascades to B, B back to A) stop.
+* Deleted ids are **evicted from the session** and from the **second-level cache**.
+
+---
+
+BulkDeleter.java
+
+package com.crud;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.CascadingActions;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+
+/**
+ * Deletes rows by id with chunked "DELETE ... WHERE id IN (...)", following delete cascades.
+ *
+ * Transaction tx = session.beginTransaction();
+ * int deleted = new BulkDeleter().deleteByIds(session, Student.class, ids);
+ * tx.commit();
+ */
+public class BulkDeleter {
+
+	private int chunkSize = 500;
+
+	public BulkDeleter setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	public int deleteById(Session session, Class<?> entityClass, Serializable id) {
+		return deleteByIds(session, entityClass, Collections.singletonList(id));
+	}
+
+	/**
+	 * Deletes all rows with these ids. Returns the number of rows of entityClass deleted
+	 * (cascaded rows are not counted).
+	 */
+	public int deleteByIds(Session session, Class<?> entityClass, Collection<? extends Serializable> ids) {
+		SessionImplementor sessionImpl = session.unwrap(SessionImplementor.class);
+		// Changes waiting in the session must be written before we delete behind its back
+		session.flush();
+		AbstractEntityPersister persister = (AbstractEntityPersister) sessionImpl.getFactory().getMetamodel()
+				.entityPersister(entityClass);
+		return delete(sessionImpl, persister, new ArrayList<>(ids), new HashSet<>());
+	}
+
+	// visited: every entity + id deleted so far in this call, so a cascade cycle doesn't recurse forever
+	private int delete(SessionImplementor session, AbstractEntityPersister persister, List<Serializable> candidates,
+			Set<EntityKey> visited) {
+		List<Serializable> ids = new ArrayList<>(candidates.size());
+		for (Serializable id : candidates) {
+			if (visited.add(session.generateEntityKey(id, persister))) {
+				ids.add(id);
+			}
+		}
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		SessionFactoryImplementor factory = session.getFactory();
+		int chunk = chunkSize;
+		int limit = factory.getJdbcServices().getDialect().getInExpressionCountLimit();
+		if (limit > 0) {
+			chunk = Math.min(chunk, limit);
+		}
+
+		int deleted = 0;
+		for (int from = 0; from < ids.size(); from += chunk) {
+			List<Serializable> part = ids.subList(from, Math.min(from + chunk, ids.size()));
+
+			// Owning to-one targets with cascade delete: remember them before the parent row is gone
+			List<Object[]> toOneTargets = new ArrayList<>();
+
+			Type[] types = persister.getPropertyTypes();
+			for (int i = 0; i < types.length; i++) {
+				if (types[i].isCollectionType()) {
+					deleteCollection(session, persister, i, (CollectionType) types[i], part, visited);
+				}
+				else if (types[i].isEntityType() && cascadesDelete(persister, i)) {
+					EntityType entityType = (EntityType) types[i];
+					List<?> targetIds = session.createQuery("select e." + persister.getPropertyNames()[i] + ".id from "
+							+ persister.getEntityName() + " e where e." + persister.getIdentifierPropertyName() + " in (:ids)")
+							.setParameterList("ids", part)
+							.list();
+					AbstractEntityPersister targetPersister = (AbstractEntityPersister) factory.getMetamodel()
+							.entityPersister(entityType.getAssociatedEntityName());
+					if (persister.getPropertyColumnNames(i).length == 0) {
+						// Inverse side (mappedBy) or shared primary key: the target's row points at ours, delete it first
+						delete(session, targetPersister, nonNull(targetIds), visited);
+					}
+					else {
+						toOneTargets.add(new Object[] { targetPersister, targetIds });
+					}
+				}
+			}
+
+			deleted += session.createQuery("delete from " + persister.getEntityName() + " e where e."
+					+ persister.getIdentifierPropertyName() + " in (:ids)")
+					.setParameterList("ids", part)
+					.executeUpdate();
+			evict(session, persister, part);
+
+			for (Object[] target : toOneTargets) {
+				delete(session, (AbstractEntityPersister) target[0], nonNull((List<?>) target[1]), visited);
+			}
+		}
+		return deleted;
+	}
+
+	/**
+	 * Like session.delete(): join table and element collection rows are always removed, entity children only with
+	 * cascade delete. A one-to-many owned by the parent (no mappedBy) without cascade gets its foreign key set to null.
+	 */
+	private void deleteCollection(SessionImplementor session, AbstractEntityPersister owner, int property,
+			CollectionType type, List<Serializable> ownerIds, Set<EntityKey> visited) {
+		AbstractCollectionPersister collection = (AbstractCollectionPersister) session.getFactory().getMetamodel()
+				.collectionPersister(type.getRole());
+		String table = collection.getTableName();
+		String keyColumn = collection.getKeyColumnNames()[0];
+		boolean cascade = cascadesDelete(owner, property);
+
+		if (collection.isOneToMany()) {
+			// Foreign key in the child table
+			if (cascade) {
+				AbstractEntityPersister child = (AbstractEntityPersister) collection.getElementPersister();
+				delete(session, child, selectIds(session, child, child.getIdentifierColumnNames()[0], table,
+						keyColumn, ownerIds), visited);
+			}
+			else if (!collection.isInverse()) {
+				session.createNativeQuery("update " + table + " set " + keyColumn + " = null where " + keyColumn
+						+ " in (:ids)")
+						.setParameterList("ids", ownerIds)
+						.executeUpdate();
+			}
+		}
+		else {
+			// Join table (many-to-many, one-to-many with join table) or @ElementCollection table
+			AbstractEntityPersister child = null;
+			List<Serializable> childIds = Collections.emptyList();
+			if (cascade && collection.getElementType().isEntityType()) {
+				child = (AbstractEntityPersister) collection.getElementPersister();
+				childIds = selectIds(session, child, collection.getElementColumnNames()[0], table, keyColumn,
+						ownerIds);
+			}
+			if (!collection.isInverse()) {
+				session.createNativeQuery("delete from " + table + " where " + keyColumn + " in (:ids)")
+						.setParameterList("ids", ownerIds)
+						.executeUpdate();
+			}
+			if (child != null) {
+				delete(session, child, childIds, visited);
+			}
+		}
+		if (collection.hasCache()) {
+			for (Serializable ownerId : ownerIds) {
+				session.getFactory().getCache().evictCollectionData(collection.getRole(), ownerId);
+			}
+		}
+	}
+
+	private static List<Serializable> selectIds(SessionImplementor session, AbstractEntityPersister child,
+			String idColumn, String table, String keyColumn, List<Serializable> ownerIds) {
+		@SuppressWarnings("unchecked")
+		List<Object> rows = session.createNativeQuery("select " + idColumn + " from " + table + " where " + keyColumn
+				+ " in (:ids)")
+				.setParameterList("ids", ownerIds)
+				.list();
+		List<Serializable> ids = new ArrayList<>(rows.size());
+		for (Object row : rows) {
+			if (row != null) {
+				ids.add(convertId(child, row));
+			}
+		}
+		return ids;
+	}
+
+	private static boolean cascadesDelete(AbstractEntityPersister persister, int property) {
+		return persister.getPropertyCascadeStyles()[property].doCascade(CascadingActions.DELETE);
+	}
+
+	private static void evict(SessionImplementor session, AbstractEntityPersister persister, List<Serializable> ids) {
+		PersistenceContext context = session.getPersistenceContext();
+		for (Serializable id : ids) {
+			Object managed = context.getEntity(session.generateEntityKey(id, persister));
+			if (managed != null) {
+				session.evict(managed);
+			}
+			if (persister.canWriteToCache()) {
+				session.getFactory().getCache().evictEntityData(persister.getEntityName(), id);
+			}
+		}
+	}
+
+	// A native query gives the JDBC type (BigInteger, Long...), the entity may use int
+	private static Serializable convertId(AbstractEntityPersister persister, Object id) {
+		Class<?> idType = persister.getIdentifierType().getReturnedClass();
+		if (id instanceof Number) {
+			Number number = (Number) id;
+			if (idType == Integer.class || idType == int.class) {
+				return number.intValue();
+			}
+			if (idType == Long.class || idType == long.class) {
+				return number.longValue();
+			}
+		}
+		return (Serializable) id;
+	}
+
+	private static List<Serializable> nonNull(List<?> ids) {
+		List<Serializable> result = new ArrayList<>(ids.size());
+		for (Object id : ids) {
+			if (id != null) {
+				result.add((Serializable) id);
+			}
+		}
+		return result;
+	}
+}
+
+-------------------------------------
+
+DeleteByIdDemo.java
+
+package com.crud;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+
+import com.map.Answer;
+import com.map.Question;
+import com.mavenlearn.Student;
+
+public class DeleteByIdDemo {
+
+	public static void main(String[] args) {
+		SessionFactory factory = new Configuration().configure("hibernate.cfg.xml").buildSessionFactory();
+		BulkDeleter deleter = new BulkDeleter();
+
+		Session session = factory.openSession();
+		Transaction tx = session.beginTransaction();
+
+		// One row, no SELECT
+		System.out.println(deleter.deleteById(session, Student.class, 501) + " deleted");
+
+		// Purge: 10,000 ids -> 20 statements of 500 ids
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 1000; i < 11000; i++) {
+			ids.add(i);
+		}
+		System.out.println(deleter.deleteByIds(session, Student.class, ids) + " deleted");
+
+		// Question 101 and its Answers. Question.answers has no cascade, so the answers go first.
+		List<Integer> answerIds = session.createQuery(
+				"select a.answerId from Answer a where a.question.questionId = :q", Integer.class)
+				.setParameter("q", 101)
+				.list();
+		System.out.println(deleter.deleteByIds(session, Answer.class, answerIds) + " answers deleted");
+		System.out.println(deleter.deleteById(session, Question.class, 101) + " question deleted");
+
+		tx.commit();
+		session.close();
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* `@PreRemove` / entity listeners are **not** called, because Hibernate does not delete the rows one by one.
+* A cascade is only followed if it is **configured** (`cascade = REMOVE` or `ALL`). Without it, child rows with a
+  foreign key to the deleted row make the DELETE fail, the same as in SQL (like `Answer` -> `Question` in the demo).
+* Only single-column keys are handled for collection tables (the usual case).
+* The bulk `DELETE` also makes Hibernate clear the entity's second-level cache region, not only these ids.
+* Keep the chunk size at a few hundred: very long `IN` lists are slow to parse and some databases have limits.
+
+---
+
+### 🔸 Summary
+
+| Method                                       | SQL                                  |
+| -------------------------------------------- | ------------------------------------ |
+| `session.get()` + `session.delete()`         | SELECT + DELETE per row              |
+| `deleter.deleteById(session, X.class, id)`   | `DELETE ... WHERE id IN (?)`         |
+| `deleter.deleteByIds(session, X.class, ids)` | `DELETE ... WHERE id IN (...)` per chunk |
+| `setChunkSize(n)`                            | Ids per statement                    |
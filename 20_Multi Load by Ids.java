@@ -0,0 +1,272 @@
+Loading Many Entities by a List of Ids**
+
+A screen that shows a known set of students (or projects) usually does:
+
+```java
+for (int id : ids) {
+	Student st = session.get(Student.class, id);   // one SELECT per id
+	...
+}
+```
+
+50 ids = 50 SELECTs, even when most of those students are already in the session or in the second-level cache.
+
+`MultiLoader` loads the whole list in three steps:
+
+```
+ids: 1 2 3 4 5 6 7 8
+      |
+      |-- 1. session (first level cache)      -> 1, 4 found                         (L1)
+      |-- 2. second-level cache               -> 2, 6, 7 found                      (L2)
+      |-- 3. database, only what is left       -> SELECT ... WHERE id IN (3, 5, 8)  (DB)
+```
+
+* Step 3 sends the misses in **chunks** (default 100 ids, less if the dialect has an `IN` limit).
+* Result comes back **in request order** (with `null` for ids that don't exist) or **unordered** as a map by id.
+* Every call reports how many came from **L1, L2 and DB**; the loader also keeps running totals.
+
+> Hibernate has `session.byMultipleIds(Student.class).multiLoad(ids)` which does the chunked IN query too.
+> We do the lookups ourselves so we can skip the second-level cache hits and count every source.
+
+---
+
+MultiLoader.java
+
+package com.crud;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.loader.entity.CacheEntityLoaderHelper;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Loads many entities by id: session first, then second-level cache, then chunked IN queries.
+ *
+ * MultiLoader loader = new MultiLoader(factory);
+ * MultiLoader.Result<Student> result = loader.load(session, Student.class, ids);
+ * List<Student> inOrder = result.getOrdered();
+ */
+public class MultiLoader {
+
+	public static class Result<T> {
+		private final List<Serializable> requested;
+		private final Map<Serializable, T> found;
+		private final int fromSession;
+		private final int fromSecondLevelCache;
+		private final int fromDatabase;
+
+		Result(List<Serializable> requested, Map<Serializable, T> found, int fromSession, int fromSecondLevelCache,
+				int fromDatabase) {
+			this.requested = requested;
+			this.found = found;
+			this.fromSession = fromSession;
+			this.fromSecondLevelCache = fromSecondLevelCache;
+			this.fromDatabase = fromDatabase;
+		}
+
+		// Same order as the ids asked for, null where no row exists
+		public List<T> getOrdered() {
+			List<T> ordered = new ArrayList<>(requested.size());
+			for (Serializable id : requested) {
+				ordered.add(found.get(id));
+			}
+			return ordered;
+		}
+
+		// Only the entities found, no particular order
+		public Collection<T> getUnordered() {
+			return found.values();
+		}
+
+		public Map<Serializable, T> asMap() {
+			return found;
+		}
+
+		public int getFromSession() {
+			return fromSession;
+		}
+
+		public int getFromSecondLevelCache() {
+			return fromSecondLevelCache;
+		}
+
+		public int getFromDatabase() {
+			return fromDatabase;
+		}
+
+		public int getNotFound() {
+			return new LinkedHashSet<>(requested).size() - found.size();
+		}
+
+		@Override
+		public String toString() {
+			return "L1=" + fromSession + " L2=" + fromSecondLevelCache + " DB=" + fromDatabase + " missing="
+					+ getNotFound();
+		}
+	}
+
+	private final SessionFactoryImplementor factory;
+	private int chunkSize = 100;
+
+	private final AtomicLong totalSession = new AtomicLong();
+	private final AtomicLong totalSecondLevelCache = new AtomicLong();
+	private final AtomicLong totalDatabase = new AtomicLong();
+	private final AtomicLong totalQueries = new AtomicLong();
+
+	public MultiLoader(SessionFactory factory) {
+		this.factory = factory.unwrap(SessionFactoryImplementor.class);
+		int limit = this.factory.getJdbcServices().getDialect().getInExpressionCountLimit();
+		if (limit > 0) {
+			chunkSize = Math.min(chunkSize, limit);
+		}
+	}
+
+	public MultiLoader setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	public <T> Result<T> load(Session session, Class<T> entityClass, Collection<? extends Serializable> ids) {
+		SessionImplementor sessionImpl = session.unwrap(SessionImplementor.class);
+		EntityPersister persister = factory.getMetamodel().entityPersister(entityClass);
+		List<Serializable> requested = new ArrayList<>(ids);
+
+		Map<Serializable, T> found = new LinkedHashMap<>();
+		List<Serializable> misses = new ArrayList<>();
+		int l1 = 0;
+		int l2 = 0;
+
+		for (Serializable id : new LinkedHashSet<>(requested)) {
+			// 1. Session
+			EntityKey key = sessionImpl.generateEntityKey(id, persister);
+			Object managed = sessionImpl.getPersistenceContext().getEntity(key);
+			if (managed != null) {
+				found.put(id, entityClass.cast(managed));
+				l1++;
+				continue;
+			}
+			// 2. Second-level cache, read once: what it returns is what we count. Never a SELECT, an entry evicted
+			// since the check would make session.get() go to the database. Adds the entity to the session.
+			if (persister.canReadFromCache()) {
+				LoadEvent event = new LoadEvent(id, persister.getEntityName(), false, session.unwrap(EventSource.class), null);
+				Object cached = CacheEntityLoaderHelper.INSTANCE.loadFromSecondLevelCache(event, persister, key);
+				if (cached != null) {
+					found.put(id, entityClass.cast(cached));
+					l2++;
+					continue;
+				}
+			}
+			misses.add(id);
+		}
+
+		// 3. Database, in chunks
+		int db = 0;
+		String hql = "from " + persister.getEntityName() + " e where e." + persister.getIdentifierPropertyName()
+				+ " in (:ids)";
+		for (int from = 0; from < misses.size(); from += chunkSize) {
+			List<Serializable> chunk = misses.subList(from, Math.min(from + chunkSize, misses.size()));
+			List<T> rows = session.createQuery(hql, entityClass).setParameterList("ids", chunk).list();
+			totalQueries.incrementAndGet();
+			for (T row : rows) {
+				found.put(persister.getIdentifier(row, sessionImpl), row);
+				db++;
+			}
+		}
+
+		totalSession.addAndGet(l1);
+		totalSecondLevelCache.addAndGet(l2);
+		totalDatabase.addAndGet(db);
+		return new Result<>(requested, found, l1, l2, db);
+	}
+
+	public long getTotalFromSession() {
+		return totalSession.get();
+	}
+
+	public long getTotalFromSecondLevelCache() {
+		return totalSecondLevelCache.get();
+	}
+
+	public long getTotalFromDatabase() {
+		return totalDatabase.get();
+	}
+
+	// Number of IN queries sent
+	public long getTotalQueries() {
+		return totalQueries.get();
+	}
+}
+
+-------------------------------------
+
+MultiLoadDemo.java
+
+package com.crud;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import com.map1.Project;
+import com.mavenlearn.Student;
+
+public class MultiLoadDemo {
+
+	public static void main(String[] args) {
+		SessionFactory factory = new Configuration().configure("hibernate.cfg.xml").buildSessionFactory();
+		MultiLoader loader = new MultiLoader(factory);
+		List<Integer> ids = Arrays.asList(105, 101, 103, 999, 102);
+
+		// First time: everything from the DB, one query
+		Session s1 = factory.openSession();
+		MultiLoader.Result<Student> first = loader.load(s1, Student.class, ids);
+		System.out.println(first + " -> " + first.getOrdered());
+
+		// Same session again: everything from the session
+		System.out.println(loader.load(s1, Student.class, ids));
+		s1.close();
+
+		// New session: from the second-level cache (if Student is @Cacheable)
+		Session s2 = factory.openSession();
+		System.out.println(loader.load(s2, Student.class, ids));
+
+		MultiLoader.Result<Project> projects = loader.load(s2, Project.class, Arrays.asList(11, 22));
+		for (Project p : projects.getUnordered()) {
+			System.out.println(p.getPid() + " : " + p.getProjectName());
+		}
+		s2.close();
+
+		System.out.println("Totals L1=" + loader.getTotalFromSession() + " L2=" + loader.getTotalFromSecondLevelCache()
+				+ " DB=" + loader.getTotalFromDatabase() + " in " + loader.getTotalQueries() + " queries");
+		factory.close();
+	}
+}
+
+---
+
+### 🔸 Summary
+
+| Item                     | Purpose                                    |
+| ------------------------ | ------------------------------------------ |
+| `loader.load(s, X, ids)` | Load many ids, L1 -> L2 -> DB              |
+| `getOrdered()`           | Same order as the ids, `null` if not found |
+| `getUnordered()`         | Just the entities found                    |
+| `getFromSession()` etc.  | Where each entity came from                |
+| `setChunkSize(n)`        | Ids per `IN` query                         |
@@ -0,0 +1,384 @@
+Read/Write Splitting to Replica Databases**
+
+Right now everything goes to **one MySQL primary**:
+
+* writes: `App` (`session.save(st)`), `MapDemo` (questions and answers)
+* reads: `HqlExample` (`from Student`), `HQLPegination` (pages of students)
+
+Listing and pagination are most of the traffic, so the primary is busy with reads. MySQL **replicas**
+get a copy of the data from the primary, so reads can go there and the primary only does writes.
+
+How we route:
+
+* Hibernate gets every JDBC connection from a **`ConnectionProvider`**. We plug in `RoutingConnectionProvider`,
+  which holds one pool for the primary and one pool per replica.
+* The code marks a unit of work as **read-only** with `ReadWriteRouting.read(...)`. Connections taken inside it come from a replica.
+  Everything else (and all writes) uses the primary.
+* Replicas are used **round-robin**. If a replica does not give a connection, the next one is tried, and at the end the primary.
+* **Read-your-writes**: replicas are a little behind the primary. After a thread commits a write, its reads stay on the
+  primary for a short window (default 2 seconds), so a user always sees what they just saved.
+
+---
+
+### 🔹 Configuration
+
+```xml
+<property name="hibernate.connection.provider_class">com.routing.RoutingConnectionProvider</property>
+
+<property name="hibernate.routing.primary.url">jdbc:mysql://db-primary:3306/myhiber</property>
+<property name="hibernate.routing.replica.0.url">jdbc:mysql://db-replica-1:3306/myhiber</property>
+<property name="hibernate.routing.replica.1.url">jdbc:mysql://db-replica-2:3306/myhiber</property>
+<!-- username / password / driver / pool_size are the normal connection.* properties, used for all of them -->
+<property name="connection.username">root</property>
+<property name="connection.password">root</property>
+<property name="hibernate.routing.read_your_writes_ms">2000</property>
+```
+
+---
+
+RoutingConnectionProvider.java
+
+package com.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.internal.DriverManagerConnectionProviderImpl;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.ServiceRegistryAwareService;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.hibernate.service.spi.Stoppable;
+
+/**
+ * Gives Hibernate a primary connection, or a replica connection when the current thread
+ * is inside ReadWriteRouting.read(...).
+ */
+public class RoutingConnectionProvider implements ConnectionProvider, Configurable, Stoppable,
+		ServiceRegistryAwareService {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final String PRIMARY_URL = "hibernate.routing.primary.url";
+	public static final String REPLICA_URL = "hibernate.routing.replica.%d.url";
+	public static final String READ_YOUR_WRITES_MS = "hibernate.routing.read_your_writes_ms";
+
+	// The provider Hibernate created, so ReadWriteRouting can find it
+	static volatile RoutingConnectionProvider current;
+
+	private ServiceRegistryImplementor serviceRegistry;
+	private DriverManagerConnectionProviderImpl primary;
+	private final List<DriverManagerConnectionProviderImpl> replicas = new ArrayList<>();
+	// Replica connections currently handed out, and the pool each one must go back to
+	private final Map<Connection, DriverManagerConnectionProviderImpl> borrowed = Collections
+			.synchronizedMap(new IdentityHashMap<>());
+	private final AtomicInteger next = new AtomicInteger();
+	private long readYourWritesMillis = 2000;
+
+	private final AtomicLong primaryConnections = new AtomicLong();
+	private final AtomicLong replicaConnections = new AtomicLong();
+	private final AtomicLong replicaFailures = new AtomicLong();
+
+	@Override
+	public void injectServices(ServiceRegistryImplementor serviceRegistry) {
+		this.serviceRegistry = serviceRegistry;
+	}
+
+	@Override
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public void configure(Map configurationValues) {
+		String primaryUrl = (String) configurationValues.get(PRIMARY_URL);
+		if (primaryUrl == null) {
+			primaryUrl = (String) configurationValues.get(AvailableSettings.URL);
+		}
+		primary = createPool(configurationValues, primaryUrl);
+		for (int i = 0;; i++) {
+			String url = (String) configurationValues.get(String.format(REPLICA_URL, i));
+			if (url == null) {
+				break;
+			}
+			replicas.add(createPool(configurationValues, url));
+		}
+		Object window = configurationValues.get(READ_YOUR_WRITES_MS);
+		if (window != null) {
+			readYourWritesMillis = Long.parseLong(window.toString());
+		}
+		current = this;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private DriverManagerConnectionProviderImpl createPool(Map configurationValues, String url) {
+		Map settings = new HashMap(configurationValues);
+		settings.put(AvailableSettings.URL, url);
+		DriverManagerConnectionProviderImpl pool = new DriverManagerConnectionProviderImpl();
+		pool.injectServices(serviceRegistry);
+		pool.configure(settings);
+		return pool;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if (ReadWriteRouting.shouldUseReplica(readYourWritesMillis) && !replicas.isEmpty()) {
+			// Round-robin, skip a replica which is down
+			for (int attempt = 0; attempt < replicas.size(); attempt++) {
+				int index = Math.floorMod(next.getAndIncrement(), replicas.size());
+				try {
+					Connection connection = replicas.get(index).getConnection();
+					connection.setReadOnly(true);
+					borrowed.put(connection, replicas.get(index));
+					replicaConnections.incrementAndGet();
+					return connection;
+				}
+				catch (SQLException e) {
+					replicaFailures.incrementAndGet();
+				}
+			}
+		}
+		primaryConnections.incrementAndGet();
+		return primary.getConnection();
+	}
+
+	@Override
+	public void closeConnection(Connection connection) throws SQLException {
+		DriverManagerConnectionProviderImpl replica = borrowed.remove(connection);
+		if (replica != null) {
+			connection.setReadOnly(false);
+			replica.closeConnection(connection);
+			return;
+		}
+		primary.closeConnection(connection);
+	}
+
+	@Override
+	public boolean supportsAggressiveRelease() {
+		return false;
+	}
+
+	@Override
+	public boolean isUnwrappableAs(@SuppressWarnings("rawtypes") Class unwrapType) {
+		return unwrapType.isInstance(this);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T unwrap(Class<T> unwrapType) {
+		if (unwrapType.isInstance(this)) {
+			return (T) this;
+		}
+		throw new UnknownUnwrapTypeException(unwrapType);
+	}
+
+	@Override
+	public void stop() {
+		primary.stop();
+		for (DriverManagerConnectionProviderImpl replica : replicas) {
+			replica.stop();
+		}
+		if (current == this) {
+			current = null;
+		}
+	}
+
+	public long getPrimaryConnections() {
+		return primaryConnections.get();
+	}
+
+	public long getReplicaConnections() {
+		return replicaConnections.get();
+	}
+
+	public long getReplicaFailures() {
+		return replicaFailures.get();
+	}
+}
+
+-------------------------------------
+
+ReadWriteRouting.java
+
+package com.routing;
+
+import java.util.function.Function;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+/**
+ * Runs work on a replica (read) or on the primary (write).
+ *
+ * List<Student> list = ReadWriteRouting.read(factory, s -> s.createQuery("from Student", Student.class).list());
+ * ReadWriteRouting.write(factory, s -> s.save(st));
+ */
+public final class ReadWriteRouting {
+
+	private static final ThreadLocal<Boolean> READ_ONLY = ThreadLocal.withInitial(() -> Boolean.FALSE);
+	private static final ThreadLocal<Long> LAST_WRITE = ThreadLocal.withInitial(() -> 0L);
+
+	private ReadWriteRouting() {
+	}
+
+	// Read-only session and transaction on a replica
+	public static <R> R read(SessionFactory factory, Function<Session, R> work) {
+		boolean outer = READ_ONLY.get();
+		READ_ONLY.set(Boolean.TRUE);
+		// The flag must be set before the session takes its connection (at beginTransaction)
+		try (Session session = factory.openSession()) {
+			session.setDefaultReadOnly(true);
+			Transaction tx = session.beginTransaction();
+			try {
+				R result = work.apply(session);
+				tx.commit();
+				return result;
+			}
+			catch (RuntimeException e) {
+				if (tx.isActive()) {
+					tx.rollback();
+				}
+				throw e;
+			}
+		}
+		finally {
+			READ_ONLY.set(outer);
+		}
+	}
+
+	// Normal transaction on the primary. After commit, this thread reads from the primary for a while.
+	public static <R> R write(SessionFactory factory, Function<Session, R> work) {
+		boolean outer = READ_ONLY.get();
+		READ_ONLY.set(Boolean.FALSE);
+		try (Session session = factory.openSession()) {
+			Transaction tx = session.beginTransaction();
+			try {
+				R result = work.apply(session);
+				tx.commit();
+				wroteNow();
+				return result;
+			}
+			catch (RuntimeException e) {
+				if (tx.isActive()) {
+					tx.rollback();
+				}
+				throw e;
+			}
+		}
+		finally {
+			READ_ONLY.set(outer);
+		}
+	}
+
+	// For code which commits on its own (like App): call this after tx.commit()
+	public static void wroteNow() {
+		LAST_WRITE.set(System.currentTimeMillis());
+	}
+
+	static boolean shouldUseReplica(long readYourWritesMillis) {
+		return READ_ONLY.get() && System.currentTimeMillis() - LAST_WRITE.get() >= readYourWritesMillis;
+	}
+
+	public static RoutingConnectionProvider provider() {
+		return RoutingConnectionProvider.current;
+	}
+}
+
+-------------------------------------
+
+ReadWriteSplitDemo.java
+
+Two local H2 databases stand in for primary and replica. There is no real replication between them,
+so we put a different row in each one and can see where every read went.
+
+package com.routing;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class ReadWriteSplitDemo {
+
+	private static final String PRIMARY = "jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1";
+	private static final String REPLICA = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+	public static void main(String[] args) throws Exception {
+		// Same table in both, different content
+		for (String url : new String[] { PRIMARY, REPLICA }) {
+			try (Connection c = DriverManager.getConnection(url, "sa", ""); Statement st = c.createStatement()) {
+				st.execute("create table Student (id int primary key, name varchar(255), city varchar(255))");
+				st.execute("insert into Student values (1, 'Sahil', '" + (url.equals(PRIMARY) ? "primary" : "replica") + "')");
+			}
+		}
+
+		Configuration cfg = new Configuration();
+		cfg.setProperty("hibernate.connection.provider_class", RoutingConnectionProvider.class.getName());
+		cfg.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+		cfg.setProperty("hibernate.connection.username", "sa");
+		cfg.setProperty("hibernate.connection.password", "");
+		cfg.setProperty(RoutingConnectionProvider.PRIMARY_URL, PRIMARY);
+		cfg.setProperty("hibernate.routing.replica.0.url", REPLICA);
+		cfg.setProperty(RoutingConnectionProvider.READ_YOUR_WRITES_MS, "500");
+		cfg.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		cfg.addAnnotatedClass(Student.class);
+		SessionFactory factory = cfg.buildSessionFactory();
+
+		// Read -> replica
+		print("read", ReadWriteRouting.read(factory, s -> s.createQuery("from Student", Student.class).list()));
+
+		// Write -> primary
+		ReadWriteRouting.write(factory, s -> s.save(new Student(2, "Rishabh", "Gzb")));
+
+		// Right after our write: still primary (read-your-writes), so we see student 2
+		print("read after write", ReadWriteRouting.read(factory, s -> s.createQuery("from Student", Student.class).list()));
+
+		Thread.sleep(600);
+		// Window is over -> replica again
+		print("read later", ReadWriteRouting.read(factory, s -> s.createQuery("from Student", Student.class).list()));
+
+		RoutingConnectionProvider provider = ReadWriteRouting.provider();
+		System.out.println("primary connections: " + provider.getPrimaryConnections() + ", replica connections: "
+				+ provider.getReplicaConnections());
+		factory.close();
+	}
+
+	private static void print(String label, List<Student> list) {
+		System.out.println(label + " : " + list);
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* Only work inside `ReadWriteRouting.read(...)` goes to a replica. Code like `HqlExample` which opens its own session
+  still uses the primary until it is moved to `read(...)`.
+* Replica lag: a read on a replica can be a little old. The read-your-writes window only covers the **same thread**.
+  If a user's next request can land on another thread or node, keep the window per user (for example in the HTTP session).
+* The connection is marked `setReadOnly(true)`, so an accidental write in `read(...)` fails instead of going to a replica.
+* Don't put `read(...)` around code that writes: the session is read-only and the connection too.
+
+---
+
+### 🔸 Summary
+
+| Item                                  | Purpose                                    |
+| ------------------------------------- | ------------------------------------------ |
+| `RoutingConnectionProvider`           | Primary pool + replica pools               |
+| `hibernate.routing.replica.N.url`     | One line per replica                       |
+| `ReadWriteRouting.read(factory, ..)`  | Read-only work on a replica                |
+| `ReadWriteRouting.write(factory, ..)` | Transaction on the primary                 |
+| `read_your_writes_ms`                 | Stay on primary after a write              |
@@ -0,0 +1,365 @@
+Horizontal Sharding with Scatter-Gather Queries**
+
+When one database server is not enough for the `Student` table, we split the **rows** over several databases (**shards**):
+
+```
+shard 0  (db0) : students with id % 3 == 0
+shard 1  (db1) : students with id % 3 == 1
+shard 2  (db2) : students with id % 3 == 2
+```
+
+Every shard has the same tables, and each one has its own `SessionFactory`. A small layer on top decides where things go:
+
+* **Save / get by shard key** -> exactly one shard. The shard key is a property of the entity, e.g. `id` or `city`.
+* **Shard-local transaction** -> a normal Hibernate transaction on that one shard.
+* **Query without a shard key** (`from Student order by name`) -> **scatter-gather**: the query runs on **all shards at the same time**,
+  and the sorted results are **merged** into one sorted list.
+* **Pagination** (`setFirstResult` / `setMaxResults`) is **global**: page 3 is page 3 of the merged result, not of each shard.
+
+How global pagination works: for page `first=20, max=10`, every shard returns its own first **30** rows (sorted).
+The global rows 20..29 must be among those, so we merge the lists and skip 20, take 10.
+
+> Transactions are **per shard**. A write to two shards is two transactions; there is no atomic commit across shards.
+> Keep the data of one business operation on one shard (choose the shard key for that).
+
+---
+
+ShardStrategy.java
+
+package com.shard;
+
+// Picks a shard for a shard key value
+public interface ShardStrategy {
+
+	int shardFor(Object shardKey, int shardCount);
+
+	// id % N, for numeric keys
+	static ShardStrategy modulo() {
+		return (key, count) -> (int) Math.floorMod(((Number) key).longValue(), (long) count);
+	}
+
+	// hash of the value, for keys like city
+	static ShardStrategy hash() {
+		return (key, count) -> Math.floorMod(key.hashCode(), count);
+	}
+}
+
+-------------------------------------
+
+ShardedSessionFactory.java
+
+package com.shard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.Query;
+
+/**
+ * N SessionFactories, one per shard, with routing by shard key and parallel queries on all shards.
+ */
+public class ShardedSessionFactory implements AutoCloseable {
+
+	private static class Routing {
+		// sharded by the entity's identifier, so get() can go to one shard
+		final boolean byId;
+		final ShardStrategy strategy;
+		final Function<Object, Object> keyOf;
+
+		Routing(boolean byId, ShardStrategy strategy, Function<Object, Object> keyOf) {
+			this.byId = byId;
+			this.strategy = strategy;
+			this.keyOf = keyOf;
+		}
+	}
+
+	private final List<SessionFactory> shards;
+	private final Map<Class<?>, Routing> routing = new HashMap<>();
+	private final ExecutorService pool;
+
+	public ShardedSessionFactory(List<SessionFactory> shards) {
+		this.shards = new ArrayList<>(shards);
+		this.pool = Executors.newFixedThreadPool(shards.size());
+	}
+
+	/**
+	 * Register how an entity is sharded, e.g.
+	 * shardBy(Student.class, "id", ShardStrategy.modulo(), Student::getId)
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> ShardedSessionFactory shardBy(Class<T> entityClass, String property, ShardStrategy strategy,
+			Function<T, Object> keyOf) {
+		// All shards have the same mapping, the first one tells us the id property
+		String idProperty = shards.get(0).unwrap(SessionFactoryImplementor.class).getMetamodel().entityPersister(entityClass)
+				.getIdentifierPropertyName();
+		routing.put(entityClass, new Routing(property.equals(idProperty), strategy, (Function<Object, Object>) keyOf));
+		return this;
+	}
+
+	public int getShardCount() {
+		return shards.size();
+	}
+
+	public int shardFor(Class<?> entityClass, Object shardKey) {
+		return routingOf(entityClass).strategy.shardFor(shardKey, shards.size());
+	}
+
+	// ---------------------------------------------------------------- one shard
+
+	// Shard-local transaction: everything in work runs in one transaction on one shard
+	public <R> R inShard(int shard, Function<Session, R> work) {
+		try (Session session = shards.get(shard).openSession()) {
+			Transaction tx = session.beginTransaction();
+			try {
+				R result = work.apply(session);
+				tx.commit();
+				return result;
+			}
+			catch (RuntimeException e) {
+				if (tx.isActive()) {
+					tx.rollback();
+				}
+				throw e;
+			}
+		}
+	}
+
+	public <R> R inShardOf(Class<?> entityClass, Object shardKey, Function<Session, R> work) {
+		return inShard(shardFor(entityClass, shardKey), work);
+	}
+
+	public void save(Object entity) {
+		Routing r = routingOf(entity.getClass());
+		inShard(r.strategy.shardFor(r.keyOf.apply(entity), shards.size()), s -> s.save(entity));
+	}
+
+	// Load by id. One shard if the entity is sharded by id, otherwise ask all shards.
+	public <T> T get(Class<T> entityClass, Object id) {
+		Routing r = routingOf(entityClass);
+		if (r.byId) {
+			return inShard(r.strategy.shardFor(id, shards.size()), s -> s.get(entityClass, (java.io.Serializable) id));
+		}
+		for (T found : scatter(s -> Collections.singletonList(s.get(entityClass, (java.io.Serializable) id)))) {
+			if (found != null) {
+				return found;
+			}
+		}
+		return null;
+	}
+
+	// ---------------------------------------------------------------- all shards
+
+	/**
+	 * Runs the query on every shard in parallel and merges the sorted results.
+	 * The HQL must have an ORDER BY which matches the comparator.
+	 */
+	public <T> List<T> query(String hql, Class<T> resultClass, Map<String, Object> params, Comparator<? super T> order,
+			int firstResult, int maxResults) {
+		int perShard = maxResults < 0 ? -1 : firstResult + maxResults;
+
+		List<List<T>> parts = scatterLists(s -> {
+			Query<T> q = s.createQuery(hql, resultClass);
+			for (Map.Entry<String, Object> p : params.entrySet()) {
+				q.setParameter(p.getKey(), p.getValue());
+			}
+			if (perShard >= 0) {
+				// Every shard gives its top (first + max) rows, the global page is inside them
+				q.setMaxResults(perShard);
+			}
+			return q.list();
+		});
+		return merge(parts, order, firstResult, maxResults);
+	}
+
+	public <T> List<T> query(String hql, Class<T> resultClass, Comparator<? super T> order) {
+		return query(hql, resultClass, Collections.emptyMap(), order, 0, -1);
+	}
+
+	// select count(...) on every shard, summed
+	public long count(String hql, Map<String, Object> params) {
+		long total = 0;
+		for (List<Long> part : scatterLists(s -> {
+			Query<Long> q = s.createQuery(hql, Long.class);
+			for (Map.Entry<String, Object> p : params.entrySet()) {
+				q.setParameter(p.getKey(), p.getValue());
+			}
+			return q.list();
+		})) {
+			for (Long value : part) {
+				total += value;
+			}
+		}
+		return total;
+	}
+
+	private <T> List<T> scatter(Function<Session, List<T>> work) {
+		List<T> all = new ArrayList<>();
+		for (List<T> part : scatterLists(work)) {
+			all.addAll(part);
+		}
+		return all;
+	}
+
+	// Same read on all shards at the same time, one read-only session each
+	private <T> List<List<T>> scatterLists(Function<Session, List<T>> work) {
+		List<Future<List<T>>> futures = new ArrayList<>();
+		for (SessionFactory shard : shards) {
+			futures.add(pool.submit(() -> {
+				try (Session session = shard.openSession()) {
+					session.setDefaultReadOnly(true);
+					return work.apply(session);
+				}
+			}));
+		}
+		List<List<T>> results = new ArrayList<>();
+		for (Future<List<T>> future : futures) {
+			try {
+				results.add(future.get());
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new HibernateException("Interrupted while querying shards", e);
+			}
+			catch (ExecutionException e) {
+				throw new HibernateException("Query failed on a shard", e.getCause());
+			}
+		}
+		return results;
+	}
+
+	// k-way merge of sorted lists, then skip / limit
+	private static <T> List<T> merge(List<List<T>> parts, Comparator<? super T> order, int firstResult, int maxResults) {
+		PriorityQueue<int[]> heads = new PriorityQueue<>(
+				(a, b) -> order.compare(parts.get(a[0]).get(a[1]), parts.get(b[0]).get(b[1])));
+		for (int i = 0; i < parts.size(); i++) {
+			if (!parts.get(i).isEmpty()) {
+				heads.add(new int[] { i, 0 });
+			}
+		}
+		List<T> page = new ArrayList<>();
+		int index = 0;
+		while (!heads.isEmpty() && (maxResults < 0 || page.size() < maxResults)) {
+			int[] head = heads.poll();
+			if (index++ >= firstResult) {
+				page.add(parts.get(head[0]).get(head[1]));
+			}
+			if (head[1] + 1 < parts.get(head[0]).size()) {
+				heads.add(new int[] { head[0], head[1] + 1 });
+			}
+		}
+		return page;
+	}
+
+	private Routing routingOf(Class<?> entityClass) {
+		Routing r = routing.get(entityClass);
+		if (r == null) {
+			throw new HibernateException("No shard key registered for " + entityClass.getName());
+		}
+		return r;
+	}
+
+	@Override
+	public void close() {
+		pool.shutdown();
+		for (SessionFactory shard : shards) {
+			shard.close();
+		}
+	}
+}
+
+-------------------------------------
+
+ShardingDemo.java
+
+Three in-memory H2 databases as shards.
+
+package com.shard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class ShardingDemo {
+
+	public static void main(String[] args) {
+		List<SessionFactory> shards = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Configuration cfg = new Configuration();
+			cfg.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+			cfg.setProperty("hibernate.connection.url", "jdbc:h2:mem:shard" + i + ";DB_CLOSE_DELAY=-1");
+			cfg.setProperty("hibernate.connection.username", "sa");
+			cfg.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+			cfg.setProperty("hibernate.hbm2ddl.auto", "create");
+			cfg.addAnnotatedClass(Student.class);
+			shards.add(cfg.buildSessionFactory());
+		}
+
+		try (ShardedSessionFactory sharded = new ShardedSessionFactory(shards)
+				.shardBy(Student.class, "id", ShardStrategy.modulo(), Student::getId)) {
+
+			String[] cities = { "Delhi", "Gzb", "Noida", "Meerut" };
+			for (int id = 1; id <= 20; id++) {
+				sharded.save(new Student(id, "Student " + (char) ('A' + (id * 7) % 20), cities[id % 4]));
+			}
+
+			// One shard
+			System.out.println(sharded.get(Student.class, 7));
+
+			// Shard-local transaction
+			sharded.inShardOf(Student.class, 7, s -> {
+				s.get(Student.class, 7).setCity("Gurgaon");
+				return null;
+			});
+
+			// All shards, merged by name, page 2 of 5
+			List<Student> page = sharded.query("from Student order by name, id", Student.class, Collections.emptyMap(),
+					Comparator.comparing(Student::getName).thenComparing(Student::getId), 5, 5);
+			page.forEach(System.out::println);
+
+			System.out.println("Total : " + sharded.count("select count(s) from Student s", Collections.emptyMap()));
+		}
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* The **ORDER BY** of the HQL and the **Comparator** must sort the same way, or the merge gives a wrong order.
+  Add the id at the end of both so the order is always unique.
+* Deep pages are expensive: page 1000 asks every shard for `first + max` rows. Prefer "next page after last id" for big lists.
+* Joins only work **inside** one shard. Keep entities which are joined together on the same shard (same shard key).
+* Aggregates like `count` can be summed. `avg`, `distinct`, `group by` need more work than a simple merge.
+
+---
+
+### 🔸 Summary
+
+| Method                                   | Goes to                   |
+| ---------------------------------------- | ------------------------- |
+| `save(entity)`                           | Shard of its shard key    |
+| `get(X.class, id)`                       | One shard (if keyed by id)|
+| `inShard(n, work)` / `inShardOf(..)`     | One shard, one transaction|
+| `query(hql, X, params, order, first, max)` | All shards, merged, paged |
+| `count(hql, params)`                     | All shards, summed        |
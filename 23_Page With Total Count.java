@@ -0,0 +1,306 @@
+Page and Total Count in One Round Trip**
+
+`9_Pagination.java` shows how to get a page **and** the total count for "Page 1 of 12":
+
+```java
+List<Employee> employees = query.list();                                              // query 1
+Long totalRecords = session.createQuery("SELECT COUNT(e) FROM Employee e", Long.class) // query 2
+                           .uniqueResult();
+```
+
+That is **two round trips** and the database reads the table **twice**.
+
+Databases with **window functions** (MySQL 8, PostgreSQL, H2, ...) can return the total on every row of the page:
+
+```sql
+SELECT s.*, COUNT(*) OVER() AS total_rows
+FROM Student s
+WHERE s.city = ?
+ORDER BY s.id
+LIMIT 10 OFFSET 20
+```
+
+`COUNT(*) OVER()` is computed on **all** rows matching the WHERE, before `LIMIT` cuts the page. So one query gives both.
+
+`Pager` does this:
+
+* If the dialect has window functions -> **one query** with `COUNT(*) OVER()`.
+* If not (MySQL 5.x...) -> page query and count query **at the same time**, on two sessions (two connections).
+  Still two queries, but the wait is only as long as the slower one.
+* The result is a `Page<T>` with the rows, total count and **total pages** already computed.
+
+> HQL in Hibernate 5 has no window functions, so `Pager` uses a native query.
+> The WHERE and ORDER BY are written with **column names** and the alias `e`.
+
+---
+
+Page.java
+
+package com.pegination;
+
+import java.util.List;
+
+public class Page<T> {
+
+	private final List<T> content;
+	private final int pageNumber;
+	private final int pageSize;
+	private final long totalElements;
+
+	public Page(List<T> content, int pageNumber, int pageSize, long totalElements) {
+		this.content = content;
+		this.pageNumber = pageNumber;
+		this.pageSize = pageSize;
+		this.totalElements = totalElements;
+	}
+
+	public List<T> getContent() {
+		return content;
+	}
+
+	// 1-based, like "Page 1 of 12"
+	public int getPageNumber() {
+		return pageNumber;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public long getTotalElements() {
+		return totalElements;
+	}
+
+	public int getTotalPages() {
+		return (int) Math.ceil((double) totalElements / pageSize);
+	}
+
+	public boolean hasNext() {
+		return pageNumber < getTotalPages();
+	}
+
+	public boolean hasPrevious() {
+		return pageNumber > 1;
+	}
+
+	@Override
+	public String toString() {
+		return "Page " + pageNumber + " of " + getTotalPages() + " (" + totalElements + " rows) " + content;
+	}
+}
+
+-------------------------------------
+
+Pager.java
+
+package com.pegination;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MariaDB103Dialect;
+import org.hibernate.dialect.MySQL8Dialect;
+import org.hibernate.dialect.Oracle8iDialect;
+import org.hibernate.dialect.PostgreSQL9Dialect;
+import org.hibernate.dialect.SQLServer2005Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.LongType;
+
+/**
+ * Page of entities plus total count.
+ *
+ * Pager pager = new Pager(factory);
+ * Page<Student> page = pager.page(Student.class, "e.city = :c", "e.id", Collections.singletonMap("c", "Delhi"), 3, 10);
+ */
+public class Pager implements AutoCloseable {
+
+	private final SessionFactoryImplementor factory;
+	private final boolean windowFunctions;
+	private final ExecutorService pool = Executors.newCachedThreadPool();
+
+	public Pager(SessionFactory factory) {
+		this.factory = factory.unwrap(SessionFactoryImplementor.class);
+		this.windowFunctions = supportsWindowFunctions(this.factory.getJdbcServices().getDialect());
+	}
+
+	// Use this one if you know better than the dialect class (e.g. MySQL 8 with MySQL5Dialect configured)
+	public Pager(SessionFactory factory, boolean windowFunctions) {
+		this.factory = factory.unwrap(SessionFactoryImplementor.class);
+		this.windowFunctions = windowFunctions;
+	}
+
+	/**
+	 * @param where      SQL condition on alias e, or null
+	 * @param orderBy    SQL order by on alias e, required for stable pages
+	 * @param pageNumber 1-based
+	 */
+	public <T> Page<T> page(Class<T> entityClass, String where, String orderBy, Map<String, Object> params,
+			int pageNumber, int pageSize) {
+		if (pageNumber < 1 || pageSize < 1) {
+			throw new IllegalArgumentException("pageNumber and pageSize start at 1");
+		}
+		AbstractEntityPersister persister = (AbstractEntityPersister) factory.getMetamodel().entityPersister(entityClass);
+		String from = " from " + persister.getTableName() + " e" + (where == null ? "" : " where " + where);
+		int first = (pageNumber - 1) * pageSize;
+
+		if (windowFunctions) {
+			return pageWithWindow(entityClass, from, orderBy, params, pageNumber, pageSize, first);
+		}
+		return pageInParallel(entityClass, from, orderBy, params, pageNumber, pageSize, first);
+	}
+
+	public <T> Page<T> page(Class<T> entityClass, String orderBy, int pageNumber, int pageSize) {
+		return page(entityClass, null, orderBy, Collections.emptyMap(), pageNumber, pageSize);
+	}
+
+	// One query: every row of the page carries the total
+	private <T> Page<T> pageWithWindow(Class<T> entityClass, String from, String orderBy, Map<String, Object> params,
+			int pageNumber, int pageSize, int first) {
+		try (Session session = factory.openSession()) {
+			session.setDefaultReadOnly(true);
+			NativeQuery<?> query = session.createNativeQuery("select {e.*}, count(*) over() as total_rows" + from
+					+ " order by " + orderBy)
+					.addEntity("e", entityClass)
+					.addScalar("total_rows", LongType.INSTANCE);
+			bind(query, params);
+			query.setFirstResult(first);
+			query.setMaxResults(pageSize);
+
+			List<T> content = new ArrayList<>(pageSize);
+			long total = -1;
+			for (Object row : query.list()) {
+				Object[] columns = (Object[]) row;
+				content.add(entityClass.cast(columns[0]));
+				total = (Long) columns[1];
+			}
+			if (total < 0) {
+				// Page after the end: no row, so no total. Only here we need a count query.
+				total = count(session, from, params);
+			}
+			return new Page<>(content, pageNumber, pageSize, total);
+		}
+	}
+
+	// Two queries, two connections, at the same time
+	private <T> Page<T> pageInParallel(Class<T> entityClass, String from, String orderBy, Map<String, Object> params,
+			int pageNumber, int pageSize, int first) {
+		CompletableFuture<Long> total = CompletableFuture.supplyAsync(() -> {
+			try (Session session = factory.openSession()) {
+				return count(session, from, params);
+			}
+		}, pool);
+
+		List<T> content;
+		try (Session session = factory.openSession()) {
+			session.setDefaultReadOnly(true);
+			NativeQuery<T> query = session.createNativeQuery("select {e.*}" + from + " order by " + orderBy)
+					.addEntity("e", entityClass);
+			bind(query, params);
+			query.setFirstResult(first);
+			query.setMaxResults(pageSize);
+			content = query.list();
+		}
+
+		try {
+			return new Page<>(content, pageNumber, pageSize, total.join());
+		}
+		catch (CompletionException e) {
+			throw new HibernateException("Count query failed", e.getCause());
+		}
+	}
+
+	private static long count(Session session, String from, Map<String, Object> params) {
+		NativeQuery<?> query = session.createNativeQuery("select count(*)" + from);
+		bind(query, params);
+		return ((Number) query.uniqueResult()).longValue();
+	}
+
+	private static void bind(NativeQuery<?> query, Map<String, Object> params) {
+		for (Map.Entry<String, Object> p : params.entrySet()) {
+			query.setParameter(p.getKey(), p.getValue());
+		}
+	}
+
+	private static boolean supportsWindowFunctions(Dialect dialect) {
+		return dialect instanceof MySQL8Dialect
+				|| dialect instanceof MariaDB103Dialect
+				|| dialect instanceof PostgreSQL9Dialect // window functions came in 8.4, the 8.2 dialect is too old
+				|| dialect instanceof H2Dialect
+				|| dialect instanceof Oracle8iDialect
+				|| dialect instanceof SQLServer2005Dialect;
+	}
+
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+}
+
+-------------------------------------
+
+PageDemo.java
+
+package com.pegination;
+
+import java.util.Collections;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class PageDemo {
+
+	public static void main(String[] args) {
+		SessionFactory factory = new Configuration().configure().buildSessionFactory();
+
+		try (Pager pager = new Pager(factory)) {
+			// Like HQLPegination: first 3 students, plus the total
+			Page<Student> page = pager.page(Student.class, "e.id", 1, 3);
+			System.out.println("Page " + page.getPageNumber() + " of " + page.getTotalPages());
+			for (Student st : page.getContent()) {
+				System.out.println(st.getId() + " : " + st.getName() + " : " + st.getCity());
+			}
+
+			// With a filter
+			Page<Student> delhi = pager.page(Student.class, "e.city = :c", "e.id", Collections.singletonMap("c", "Delhi"),
+					2, 10);
+			System.out.println(delhi);
+		}
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* The dialect in `1_Introduction.md` is `MySQL5Dialect`. MySQL 5.x has **no** window functions, so `Pager` uses the
+  parallel way. With MySQL 8 switch to `MySQL8Dialect`, or use `new Pager(factory, true)`.
+* `COUNT(*) OVER()` still counts all matching rows, it just does it in the same scan. For very big tables
+  an exact total is always expensive; consider showing "more than 1000" instead.
+* Always give an `orderBy` with a unique column at the end (like `e.id`), so pages don't overlap.
+
+---
+
+### 🔸 Summary
+
+| Item                              | Purpose                                     |
+| --------------------------------- | ------------------------------------------- |
+| `COUNT(*) OVER()`                 | Total count on every row of the page        |
+| `pager.page(X, where, order, params, page, size)` | Page + total in one call    |
+| Parallel fallback                 | Page and count at the same time, 2 sessions |
+| `Page.getTotalPages()`            | `ceil(total / pageSize)`, already computed  |
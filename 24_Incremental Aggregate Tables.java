@@ -0,0 +1,534 @@
+Incrementally Maintained Aggregate Tables**
+
+Our dashboards run queries like these on **every refresh**:
+
+```sql
+SELECT city, COUNT(*) FROM Student GROUP BY city;              -- students per city
+SELECT question_question_id, COUNT(*) FROM Answer GROUP BY 1;  -- answers per question
+```
+
+Each one reads the **whole table**. The bigger the table, the slower the dashboard.
+
+Instead, we keep the counts in a small **summary table** and change them a little **every time a row changes**:
+
+```
+aggregate_count
++-------------------------+-----------+-----------+
+| aggregate_name          | group_key | row_count |
++-------------------------+-----------+-----------+
+| students_per_city       | Delhi     |       120 |
+| students_per_city       | Gzb       |        45 |
+| answers_per_question    | 101       |         3 |
++-------------------------+-----------+-----------+
+```
+
+* Insert a `Student` in Delhi -> `Delhi + 1`
+* Delete it -> `Delhi - 1`
+* Change its city from Delhi to Noida -> `Delhi - 1`, `Noida + 1`
+
+Reading "students in Delhi" is then **one primary key lookup** (O(1)), no matter how big `Student` is.
+
+How:
+
+* The aggregate is **declared on the entity** with `@CountBy`.
+* Hibernate **post-insert / pre-update / post-update / post-delete** event listeners change the counts with plain JDBC on the
+  **same connection and transaction** as the entity change. If the transaction rolls back, the count change rolls back too.
+* `AggregateMaintainer.rebuild(...)` recomputes an aggregate from scratch (first time, or to repair it).
+
+---
+
+### 🔹 Declare the aggregates
+
+Student.java (only the changed part)
+
+```java
+@Entity
+@CountBy(name = "students_per_city", property = "city")
+public class Student { ... }
+```
+
+Answer.java (only the changed part)
+
+```java
+@Entity
+@CountBy(name = "answers_per_question", property = "question")   // grouped by the question's id
+public class Answer { ... }
+```
+
+Add the summary entity to `hibernate.cfg.xml` so the table is created:
+
+```xml
+<mapping class="com.aggregate.AggregateCount"/>
+```
+
+---
+
+CountBy.java
+
+package com.aggregate;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Keep a row count of this entity per value of property, in table aggregate_count
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Repeatable(CountBys.class)
+public @interface CountBy {
+
+	String name();
+
+	String property();
+}
+
+-------------------------------------
+
+CountBys.java
+
+package com.aggregate;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CountBys {
+
+	CountBy[] value();
+}
+
+-------------------------------------
+
+AggregateCount.java
+
+package com.aggregate;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "aggregate_count")
+public class AggregateCount {
+
+	@Embeddable
+	public static class Key implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		@Column(name = "aggregate_name", length = 100)
+		private String name;
+
+		@Column(name = "group_key", length = 255)
+		private String group;
+
+		public Key() {
+			super();
+		}
+
+		public Key(String name, String group) {
+			this.name = name;
+			this.group = group;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getGroup() {
+			return group;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return Objects.equals(name, other.name) && Objects.equals(group, other.group);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(name, group);
+		}
+	}
+
+	@EmbeddedId
+	private Key key;
+
+	@Column(name = "row_count")
+	private long count;
+
+	public Key getKey() {
+		return key;
+	}
+
+	public long getCount() {
+		return count;
+	}
+}
+
+-------------------------------------
+
+AggregateMaintainer.java
+
+package com.aggregate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+
+/**
+ * Keeps the @CountBy aggregates up to date.
+ *
+ * SessionFactory factory = cfg.buildSessionFactory();
+ * AggregateMaintainer aggregates = AggregateMaintainer.attach(factory);
+ * long delhi = aggregates.count(session, "students_per_city", "Delhi");
+ */
+public class AggregateMaintainer implements PostInsertEventListener, PreUpdateEventListener, PostUpdateEventListener,
+		PostDeleteEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	static final String NULL_GROUP = "<null>";
+
+	private static class Definition {
+		final String name;
+		final String entityName;
+		final String property;
+		final int propertyIndex;
+
+		Definition(String name, String entityName, String property, int propertyIndex) {
+			this.name = name;
+			this.entityName = entityName;
+			this.property = property;
+			this.propertyIndex = propertyIndex;
+		}
+	}
+
+	// entity name -> aggregates declared on it
+	private final Map<String, List<Definition>> byEntity = new HashMap<>();
+	private final Map<String, Definition> byName = new LinkedHashMap<>();
+
+	public static AggregateMaintainer attach(SessionFactory factory) {
+		SessionFactoryImplementor sfi = factory.unwrap(SessionFactoryImplementor.class);
+		AggregateMaintainer maintainer = new AggregateMaintainer();
+
+		for (EntityPersister persister : sfi.getMetamodel().entityPersisters().values()) {
+			Class<?> mapped = persister.getMappedClass();
+			if (mapped == null) {
+				continue;
+			}
+			for (CountBy countBy : mapped.getAnnotationsByType(CountBy.class)) {
+				int index = persister.getEntityMetamodel().getPropertyIndex(countBy.property());
+				Definition definition = new Definition(countBy.name(), persister.getEntityName(), countBy.property(), index);
+				maintainer.byEntity.computeIfAbsent(persister.getEntityName(), k -> new ArrayList<>()).add(definition);
+				maintainer.byName.put(countBy.name(), definition);
+			}
+		}
+
+		EventListenerRegistry registry = sfi.getServiceRegistry().getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, maintainer);
+		registry.appendListeners(EventType.PRE_UPDATE, maintainer);
+		registry.appendListeners(EventType.POST_UPDATE, maintainer);
+		registry.appendListeners(EventType.POST_DELETE, maintainer);
+		return maintainer;
+	}
+
+	// ---------------------------------------------------------------- listeners
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		for (Definition d : definitions(event.getPersister())) {
+			add(event.getSession(), d.name, groupOf(event.getSession(), event.getState()[d.propertyIndex]), 1);
+		}
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		for (Definition d : definitions(event.getPersister())) {
+			add(event.getSession(), d.name, groupOf(event.getSession(), event.getDeletedState()[d.propertyIndex]), -1);
+		}
+	}
+
+	@Override
+	public boolean onPreUpdate(PreUpdateEvent event) {
+		if (event.getOldState() != null || definitions(event.getPersister()).isEmpty()) {
+			return false;
+		}
+		// Detached entity passed to session.update(): read the row before Hibernate's UPDATE overwrites it.
+		// Many-to-one values in the snapshot are already ids, which groupOf() handles.
+		Object[] snapshot = event.getPersister().getDatabaseSnapshot(event.getId(), event.getSession());
+		if (snapshot != null) {
+			move(event.getSession(), event.getPersister(), snapshot, event.getState());
+		}
+		return false;
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		// Without old state the move was already counted in onPreUpdate()
+		if (event.getOldState() != null) {
+			move(event.getSession(), event.getPersister(), event.getOldState(), event.getState());
+		}
+	}
+
+	private void move(SharedSessionContractImplementor session, EntityPersister persister, Object[] oldState,
+			Object[] state) {
+		for (Definition d : definitions(persister)) {
+			String before = groupOf(session, oldState[d.propertyIndex]);
+			String after = groupOf(session, state[d.propertyIndex]);
+			if (!before.equals(after)) {
+				add(session, d.name, before, -1);
+				add(session, d.name, after, 1);
+			}
+		}
+	}
+
+	@Override
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return false;
+	}
+
+	private List<Definition> definitions(EntityPersister persister) {
+		List<Definition> list = byEntity.get(persister.getEntityName());
+		return list == null ? Collections.<Definition> emptyList() : list;
+	}
+
+	// Same connection and transaction as the entity change. Plain JDBC, so no auto-flush during the flush.
+	private static void add(SharedSessionContractImplementor session, String name, String group, long delta) {
+		Connection connection = session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection();
+		try {
+			int updated;
+			try (PreparedStatement ps = connection.prepareStatement(
+					"update aggregate_count set row_count = row_count + ? where aggregate_name = ? and group_key = ?")) {
+				ps.setLong(1, delta);
+				ps.setString(2, name);
+				ps.setString(3, group);
+				updated = ps.executeUpdate();
+			}
+			if (updated == 0) {
+				try (PreparedStatement ps = connection.prepareStatement(
+						"insert into aggregate_count (aggregate_name, group_key, row_count) values (?, ?, ?)")) {
+					ps.setString(1, name);
+					ps.setString(2, group);
+					ps.setLong(3, delta);
+					ps.executeUpdate();
+				}
+			}
+		}
+		catch (SQLException e) {
+			throw new HibernateException("Could not update aggregate " + name + "/" + group, e);
+		}
+	}
+
+	// Entity values are grouped by their id (Answer.question -> question id)
+	private static String groupOf(SharedSessionContractImplementor session, Object value) {
+		if (value instanceof HibernateProxy) {
+			return key(((HibernateProxy) value).getHibernateLazyInitializer().getIdentifier());
+		}
+		if (value != null && session.getFactory().getMetamodel().entityPersisters().containsKey(value.getClass().getName())) {
+			return key(session.getEntityPersister(null, value).getIdentifier(value, session));
+		}
+		return key(value);
+	}
+
+	// The entity holds a java.util.Date, the DB gives back a java.sql.Timestamp: both must give the same key
+	private static String key(Object value) {
+		if (value == null) {
+			return NULL_GROUP;
+		}
+		if (value instanceof Date) {
+			return new Timestamp(((Date) value).getTime()).toString();
+		}
+		if (value instanceof Calendar) {
+			return new Timestamp(((Calendar) value).getTimeInMillis()).toString();
+		}
+		return value.toString();
+	}
+
+	// ---------------------------------------------------------------- reading and rebuilding
+
+	// O(1): one primary key lookup in aggregate_count
+	public long count(Session session, String aggregate, Object group) {
+		Object result = session.createNativeQuery(
+				"select row_count from aggregate_count where aggregate_name = :n and group_key = :g")
+				.setParameter("n", aggregate)
+				.setParameter("g", key(group))
+				.uniqueResult();
+		return result == null ? 0 : ((Number) result).longValue();
+	}
+
+	// All groups of one aggregate, e.g. for the dashboard table
+	public Map<String, Long> counts(Session session, String aggregate) {
+		Map<String, Long> result = new LinkedHashMap<>();
+		List<?> rows = session.createNativeQuery(
+				"select group_key, row_count from aggregate_count where aggregate_name = :n and row_count <> 0 order by group_key")
+				.setParameter("n", aggregate)
+				.list();
+		for (Object row : rows) {
+			Object[] columns = (Object[]) row;
+			result.put((String) columns[0], ((Number) columns[1]).longValue());
+		}
+		return result;
+	}
+
+	/**
+	 * Recomputes one aggregate from the entity table, inside the caller's transaction.
+	 * Use it to backfill, and after HQL bulk updates/deletes (they don't fire entity events).
+	 */
+	public void rebuild(Session session, String aggregate) {
+		Definition d = byName.get(aggregate);
+		if (d == null) {
+			throw new HibernateException("Unknown aggregate " + aggregate);
+		}
+		EntityPersister persister = session.getSessionFactory().unwrap(SessionFactoryImplementor.class).getMetamodel()
+				.entityPersister(d.entityName);
+		String groupExpression = persister.getPropertyTypes()[d.propertyIndex].isEntityType() ? "e." + d.property + ".id"
+				: "e." + d.property;
+		List<?> groups = session.createQuery("select " + groupExpression + ", count(e) from " + d.entityName
+				+ " e group by " + groupExpression).list();
+
+		session.doWork(connection -> {
+			try (PreparedStatement delete = connection.prepareStatement("delete from aggregate_count where aggregate_name = ?")) {
+				delete.setString(1, aggregate);
+				delete.executeUpdate();
+			}
+			try (PreparedStatement insert = connection.prepareStatement(
+					"insert into aggregate_count (aggregate_name, group_key, row_count) values (?, ?, ?)")) {
+				for (Object row : groups) {
+					Object[] columns = (Object[]) row;
+					insert.setString(1, aggregate);
+					insert.setString(2, key(columns[0]));
+					insert.setLong(3, ((Number) columns[1]).longValue());
+					insert.addBatch();
+				}
+				insert.executeBatch();
+			}
+		});
+	}
+
+	public void rebuildAll(Session session) {
+		for (String aggregate : byName.keySet()) {
+			rebuild(session, aggregate);
+		}
+	}
+}
+
+-------------------------------------
+
+AggregateDemo.java
+
+package com.aggregate;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class AggregateDemo {
+
+	public static void main(String[] args) {
+		SessionFactory factory = new Configuration().configure("hibernate.cfg.xml").buildSessionFactory();
+		AggregateMaintainer aggregates = AggregateMaintainer.attach(factory);
+
+		Session s = factory.openSession();
+
+		// Backfill once, for rows which were there before the aggregate existed
+		Transaction tx = s.beginTransaction();
+		aggregates.rebuildAll(s);
+		tx.commit();
+		System.out.println(aggregates.counts(s, "students_per_city"));
+
+		// Normal entity changes keep the counts current, in the same transaction
+		tx = s.beginTransaction();
+		s.save(new Student(301, "Kunal", "Delhi"));          // Delhi + 1
+		Student st = s.get(Student.class, 101);
+		st.setCity("Noida");                                 // old city - 1, Noida + 1
+		tx.commit();
+		System.out.println("Delhi : " + aggregates.count(s, "students_per_city", "Delhi"));
+		System.out.println("Noida : " + aggregates.count(s, "students_per_city", "Noida"));
+
+		// HQL bulk update (like HqlExample) does not fire entity events -> rebuild in the same transaction
+		tx = s.beginTransaction();
+		s.createQuery("update Student set city=:c where name=:n")
+				.setParameter("c", "Gzb")
+				.setParameter("n", "Rishabh")
+				.executeUpdate();
+		aggregates.rebuild(s, "students_per_city");
+		tx.commit();
+		System.out.println(aggregates.counts(s, "students_per_city"));
+
+		System.out.println("Answers of question 101 : " + aggregates.count(s, "answers_per_question", 101));
+
+		s.close();
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* Every insert/update/delete of the entity now also writes one row of `aggregate_count`. Many concurrent writes to the
+  **same group** (same city) wait on that one row lock. For very hot groups, this is the price of O(1) reads.
+* Two transactions creating the **first** row of a new group at the same moment: one of them gets a duplicate key error
+  and must retry. After that the row exists and only UPDATEs happen.
+* HQL `update` / `delete` and native SQL skip entity events. Call `rebuild(...)` after them, in the same transaction.
+* Updating a **detached** object with `session.update()` gives no old state. Then the pre-update listener reads the
+  row once (`getDatabaseSnapshot`) before the UPDATE, so the old group is still known. One extra SELECT per such update.
+* Group keys are strings. Dates and calendars become `yyyy-mm-dd hh:mm:ss.fff`, whether the value is a
+  `java.util.Date` from the entity or a `java.sql.Timestamp` from the database.
+
+---
+
+### 🔸 Summary
+
+| Item                              | Purpose                                   |
+| --------------------------------- | ----------------------------------------- |
+| `@CountBy(name, property)`        | Declare a count per value of a property   |
+| `aggregate_count` table           | Summary rows (name, group, count)         |
+| `AggregateMaintainer.attach(sf)`  | Registers the insert/update/delete listeners |
+| `count(session, name, group)`     | One count, primary key lookup             |
+| `counts(session, name)`           | All groups of an aggregate                |
+| `rebuild(session, name)`          | Backfill / repair from the entity table   |
@@ -0,0 +1,636 @@
+Write-Behind Buffer for Hot Rows**
+
+Some rows are updated **all the time**: counters, or a status field like `Student.city` which our jobs rewrite again and again.
+Normally every change is a full transaction:
+
+```java
+Transaction tx = session.beginTransaction();
+Student st = session.get(Student.class, 101);
+st.setCity("Noida");
+tx.commit();                       // SELECT + UPDATE + COMMIT (fsync) for every single change
+```
+
+At thousands of changes per second the database spends all its time on commits, and most of those writes are
+**overwritten a few milliseconds later** anyway.
+
+**Write-behind** (opt-in, per entity and property):
+
+* An update goes into an **in-memory buffer** instead of the database. The call returns immediately.
+* If the same row/property is changed again before the flush, the new value **replaces** the old one in the buffer
+  (**coalescing**): 500 changes of one city become **one** UPDATE.
+* The buffer is **flushed** every N ms, or as soon as it has M entries, as **one JDBC batch in one transaction**.
+* The buffer is split into **stripes** (each with its own lock), so many threads can write at the same time.
+
+### ⚠️ Durability - read this first
+
+Buffered changes are **only in memory** until the next flush. If the JVM crashes, changes of the last flush window are **lost**.
+Only use it for data where that is acceptable (view counters, "last seen", a status which is written again soon).
+The limits are explicit settings:
+
+| Setting            | Meaning                                                              |
+| ------------------ | -------------------------------------------------------------------- |
+| `flushIntervalMs`  | Max time a change stays only in memory (= max data loss on crash)    |
+| `flushThreshold`   | Flush early when this many entries are waiting                       |
+| `maxBuffered`      | Hard limit; writers flush themselves (and wait) if it is reached     |
+| `close()`          | Flushes everything on normal shutdown                                |
+
+---
+
+WriteBehindBuffer.java
+
+package com.writebehind;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.exception.JDBCConnectionException;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.Type;
+import org.jboss.logging.Logger;
+
+/**
+ * Buffers property updates of one entity in memory and writes them in JDBC batches.
+ *
+ * WriteBehindBuffer<Student> cities = new WriteBehindBuffer<>(factory, Student.class, "city")
+ *         .setFlushIntervalMs(200).setFlushThreshold(5000).start();
+ * cities.update(101, "city", "Noida");
+ * ...
+ * cities.close();
+ */
+public class WriteBehindBuffer<T> implements AutoCloseable {
+
+	private static final Logger LOG = Logger.getLogger(WriteBehindBuffer.class);
+
+	// Called for a row the database refuses even on its own (bad value, constraint); the row is dropped
+	public interface RejectHandler {
+		void rejected(Serializable id, Map<String, Object> values, RuntimeException cause);
+	}
+
+	// One part of the buffer: id -> (property index -> newest value)
+	private static class Stripe {
+		final ReentrantLock lock = new ReentrantLock();
+		Map<Serializable, Map<Integer, Object>> pending = new HashMap<>();
+	}
+
+	private final SessionFactoryImplementor factory;
+	private final AbstractEntityPersister persister;
+	private final Map<String, Integer> allowed = new HashMap<>();
+	private final Stripe[] stripes;
+
+	private long flushIntervalMs = 100;
+	private int flushThreshold = 1000;
+	private int maxBuffered = 100_000;
+	private int batchSize = 500;
+	private RejectHandler rejectHandler = (id, values, cause) -> LOG.warnf(cause,
+			"Write-behind dropped %s for id %s: %s", values, id, cause.getMessage());
+
+	private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "write-behind-flusher");
+		t.setDaemon(true);
+		return t;
+	});
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final AtomicBoolean earlyFlushRequested = new AtomicBoolean();
+	private volatile boolean closed;
+
+	// metrics
+	private final AtomicInteger depth = new AtomicInteger();
+	private final AtomicLong updates = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong flushes = new AtomicLong();
+	private final AtomicLong rowsWritten = new AtomicLong();
+	private final AtomicLong failedFlushes = new AtomicLong();
+	private final AtomicLong rejectedRows = new AtomicLong();
+	private final AtomicLong missingRows = new AtomicLong();
+	private volatile long lastFlushNanos;
+	private volatile long maxFlushNanos;
+	private final AtomicLong totalFlushNanos = new AtomicLong();
+
+	public WriteBehindBuffer(SessionFactory factory, Class<T> entityClass, String... properties) {
+		this(factory, entityClass, 16, properties);
+	}
+
+	public WriteBehindBuffer(SessionFactory factory, Class<T> entityClass, int stripeCount, String... properties) {
+		this.factory = factory.unwrap(SessionFactoryImplementor.class);
+		this.persister = (AbstractEntityPersister) this.factory.getMetamodel().entityPersister(entityClass);
+		if (persister.isVersioned()) {
+			// Blind UPDATEs would skip the version check
+			throw new HibernateException("Write-behind is not supported for versioned entity " + entityClass.getName());
+		}
+		List<String> names = Arrays.asList(persister.getPropertyNames());
+		for (String property : properties) {
+			int index = names.indexOf(property);
+			if (index < 0 || persister.getPropertyTypes()[index].isCollectionType()) {
+				throw new HibernateException("Write-behind needs a column property, got " + property);
+			}
+			allowed.put(property, index);
+		}
+		this.stripes = new Stripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new Stripe();
+		}
+	}
+
+	public WriteBehindBuffer<T> setFlushIntervalMs(long flushIntervalMs) {
+		this.flushIntervalMs = flushIntervalMs;
+		return this;
+	}
+
+	public WriteBehindBuffer<T> setFlushThreshold(int flushThreshold) {
+		this.flushThreshold = flushThreshold;
+		return this;
+	}
+
+	public WriteBehindBuffer<T> setMaxBuffered(int maxBuffered) {
+		this.maxBuffered = maxBuffered;
+		return this;
+	}
+
+	public WriteBehindBuffer<T> setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	public WriteBehindBuffer<T> setRejectHandler(RejectHandler rejectHandler) {
+		this.rejectHandler = rejectHandler;
+		return this;
+	}
+
+	public WriteBehindBuffer<T> start() {
+		flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+		return this;
+	}
+
+	// ---------------------------------------------------------------- writing
+
+	public void update(Serializable id, String property, Object value) {
+		if (closed) {
+			throw new IllegalStateException("Write-behind buffer is closed");
+		}
+		Integer index = allowed.get(property);
+		if (index == null) {
+			throw new IllegalArgumentException(property + " is not write-behind for " + persister.getEntityName());
+		}
+		Stripe stripe = stripeOf(id);
+		stripe.lock.lock();
+		try {
+			Map<Integer, Object> row = stripe.pending.computeIfAbsent(id, k -> new HashMap<>());
+			if (row.containsKey(index)) {
+				coalesced.incrementAndGet();
+			}
+			else {
+				depth.incrementAndGet();
+			}
+			row.put(index, value);
+		}
+		finally {
+			stripe.lock.unlock();
+		}
+		updates.incrementAndGet();
+
+		int current = depth.get();
+		if (closed) {
+			// close() ran while we were buffering: its last flush may have missed this value, and the flusher is gone
+			flush();
+		}
+		else if (current >= maxBuffered) {
+			// Backpressure: the caller pays for the flush
+			flush();
+		}
+		else if (current >= flushThreshold && earlyFlushRequested.compareAndSet(false, true)) {
+			try {
+				flusher.execute(this::flushQuietly);
+			}
+			catch (RejectedExecutionException e) {
+				// Closed between the check above and here
+				flush();
+			}
+		}
+	}
+
+	// The value waiting in the buffer, if any. Reads that must see it can check here first.
+	public Object pendingValue(Serializable id, String property) {
+		Stripe stripe = stripeOf(id);
+		stripe.lock.lock();
+		try {
+			Map<Integer, Object> row = stripe.pending.get(id);
+			return row == null ? null : row.get(allowed.get(property));
+		}
+		finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	private Stripe stripeOf(Serializable id) {
+		return stripes[Math.floorMod(id.hashCode(), stripes.length)];
+	}
+
+	// ---------------------------------------------------------------- flushing
+
+	private void flushQuietly() {
+		try {
+			flush();
+		}
+		catch (RuntimeException e) {
+			LOG.warnf("Write-behind flush of %s failed, will retry: %s", persister.getEntityName(), e);
+		}
+	}
+
+	/**
+	 * Writes everything buffered so far. One transaction, JDBC batches grouped by the set of changed columns.
+	 * If the database refuses the batch, the rows are tried one by one and the ones which still fail are rejected.
+	 */
+	public void flush() {
+		flushLock.lock();
+		try {
+			earlyFlushRequested.set(false);
+			// Take the pending maps; writers continue with fresh ones
+			Map<Serializable, Map<Integer, Object>> drained = new LinkedHashMap<>();
+			for (Stripe stripe : stripes) {
+				stripe.lock.lock();
+				try {
+					if (!stripe.pending.isEmpty()) {
+						drained.putAll(stripe.pending);
+						stripe.pending = new HashMap<>();
+					}
+				}
+				finally {
+					stripe.lock.unlock();
+				}
+			}
+			if (drained.isEmpty()) {
+				return;
+			}
+
+			long start = System.nanoTime();
+			int written = drained.size();
+			RuntimeException outage = null;
+			try {
+				int missing = write(drained);
+				missingRows.addAndGet(missing);
+				written -= missing;
+			}
+			catch (RuntimeException e) {
+				failedFlushes.incrementAndGet();
+				if (isOutage(e)) {
+					// Nothing wrong with the values, try all of them again later
+					requeue(drained);
+					throw e;
+				}
+				// One bad value fails the whole batch: find it row by row, so it doesn't come back forever
+				written = 0;
+				for (Serializable id : new ArrayList<>(drained.keySet())) {
+					Map<Serializable, Map<Integer, Object>> single = new HashMap<>();
+					single.put(id, drained.get(id));
+					if (outage != null) {
+						requeue(single);
+						drained.remove(id);
+						continue;
+					}
+					try {
+						int missing = write(single);
+						missingRows.addAndGet(missing);
+						written += 1 - missing;
+					}
+					catch (RuntimeException rowFailure) {
+						if (isOutage(rowFailure)) {
+							outage = rowFailure;
+							requeue(single);
+							drained.remove(id);
+						}
+						else {
+							reject(id, drained.get(id), rowFailure);
+						}
+					}
+				}
+			}
+			// Written, missing or rejected: no longer waiting
+			int entries = 0;
+			for (Map<Integer, Object> row : drained.values()) {
+				entries += row.size();
+			}
+			depth.addAndGet(-entries);
+
+			long nanos = System.nanoTime() - start;
+			lastFlushNanos = nanos;
+			maxFlushNanos = Math.max(maxFlushNanos, nanos);
+			totalFlushNanos.addAndGet(nanos);
+			flushes.incrementAndGet();
+			rowsWritten.addAndGet(written);
+
+			// The second-level cache must not keep serving the old values
+			if (persister.canWriteToCache()) {
+				for (Serializable id : drained.keySet()) {
+					factory.getCache().evictEntityData(persister.getEntityName(), id);
+				}
+			}
+			if (outage != null) {
+				throw outage;
+			}
+		}
+		finally {
+			flushLock.unlock();
+		}
+	}
+
+	// Connection lost, timeout, deadlock: the values are fine, the database isn't
+	private static boolean isOutage(Throwable e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof JDBCConnectionException || t instanceof SQLTransientException
+					|| t instanceof SQLRecoverableException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void reject(Serializable id, Map<Integer, Object> row, RuntimeException cause) {
+		rejectedRows.incrementAndGet();
+		Map<String, Object> values = new LinkedHashMap<>();
+		for (Map.Entry<Integer, Object> value : new TreeMap<>(row).entrySet()) {
+			values.put(persister.getPropertyNames()[value.getKey()], value.getValue());
+		}
+		try {
+			rejectHandler.rejected(id, values, cause);
+		}
+		catch (RuntimeException e) {
+			LOG.warn("Write-behind reject handler failed", e);
+		}
+	}
+
+	// Returns the number of rows which no longer exist (update count 0)
+	private int write(Map<Serializable, Map<Integer, Object>> drained) {
+		// Rows with the same changed columns share one UPDATE statement
+		Map<List<Integer>, List<Serializable>> byColumns = new LinkedHashMap<>();
+		for (Map.Entry<Serializable, Map<Integer, Object>> row : drained.entrySet()) {
+			List<Integer> columns = new ArrayList<>(new TreeMap<>(row.getValue()).keySet());
+			byColumns.computeIfAbsent(columns, k -> new ArrayList<>()).add(row.getKey());
+		}
+
+		try (StatelessSession session = factory.openStatelessSession()) {
+			SharedSessionContractImplementor sessionImpl = (SharedSessionContractImplementor) session;
+			Transaction tx = session.beginTransaction();
+			try {
+				int missing = session.doReturningWork(connection -> {
+					Type[] types = persister.getPropertyTypes();
+					int gone = 0;
+					for (Map.Entry<List<Integer>, List<Serializable>> group : byColumns.entrySet()) {
+						try (PreparedStatement ps = connection.prepareStatement(updateSql(group.getKey()))) {
+							int inBatch = 0;
+							for (Serializable id : group.getValue()) {
+								Map<Integer, Object> values = drained.get(id);
+								int position = 1;
+								for (Integer property : group.getKey()) {
+									types[property].nullSafeSet(ps, values.get(property), position, sessionImpl);
+									position += persister.getPropertyColumnNames(property).length;
+								}
+								persister.getIdentifierType().nullSafeSet(ps, id, position, sessionImpl);
+								ps.addBatch();
+								if (++inBatch == batchSize) {
+									gone += zeroCounts(ps.executeBatch());
+									inBatch = 0;
+								}
+							}
+							if (inBatch > 0) {
+								gone += zeroCounts(ps.executeBatch());
+							}
+						}
+					}
+					return gone;
+				});
+				tx.commit();
+				return missing;
+			}
+			catch (RuntimeException e) {
+				if (tx.isActive()) {
+					tx.rollback();
+				}
+				throw e;
+			}
+		}
+	}
+
+	// Updates which matched no row: the id was deleted in the meantime. SUCCESS_NO_INFO (-2) counts as written.
+	private static int zeroCounts(int[] counts) {
+		int zero = 0;
+		for (int count : counts) {
+			if (count == 0) {
+				zero++;
+			}
+		}
+		return zero;
+	}
+
+	private String updateSql(List<Integer> properties) {
+		StringBuilder sql = new StringBuilder("update ").append(persister.getTableName()).append(" set ");
+		boolean first = true;
+		for (Integer property : properties) {
+			for (String column : persister.getPropertyColumnNames(property)) {
+				if (!first) {
+					sql.append(", ");
+				}
+				sql.append(column).append(" = ?");
+				first = false;
+			}
+		}
+		sql.append(" where ").append(String.join(" = ? and ", persister.getIdentifierColumnNames())).append(" = ?");
+		return sql.toString();
+	}
+
+	// Failed flush: put the values back, unless a newer value arrived in the meantime
+	private void requeue(Map<Serializable, Map<Integer, Object>> drained) {
+		for (Map.Entry<Serializable, Map<Integer, Object>> row : drained.entrySet()) {
+			Stripe stripe = stripeOf(row.getKey());
+			stripe.lock.lock();
+			try {
+				Map<Integer, Object> current = stripe.pending.computeIfAbsent(row.getKey(), k -> new HashMap<>());
+				for (Map.Entry<Integer, Object> value : row.getValue().entrySet()) {
+					if (current.containsKey(value.getKey())) {
+						depth.decrementAndGet(); // counted twice, keep the newer one
+					}
+					else {
+						current.put(value.getKey(), value.getValue());
+					}
+				}
+			}
+			finally {
+				stripe.lock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+	}
+
+	// ---------------------------------------------------------------- metrics
+
+	// Entries (id + property) waiting in memory right now
+	public int getDepth() {
+		return depth.get();
+	}
+
+	public long getUpdates() {
+		return updates.get();
+	}
+
+	// Updates which replaced a value still in the buffer (writes saved)
+	public long getCoalesced() {
+		return coalesced.get();
+	}
+
+	public long getFlushes() {
+		return flushes.get();
+	}
+
+	public long getFailedFlushes() {
+		return failedFlushes.get();
+	}
+
+	public long getRowsWritten() {
+		return rowsWritten.get();
+	}
+
+	// Rows the database refused even one by one, passed to the RejectHandler and dropped
+	public long getRejectedRows() {
+		return rejectedRows.get();
+	}
+
+	// Updates which matched no row (the entity was deleted before the flush)
+	public long getMissingRows() {
+		return missingRows.get();
+	}
+
+	public double getLastFlushMillis() {
+		return lastFlushNanos / 1_000_000.0;
+	}
+
+	public double getMaxFlushMillis() {
+		return maxFlushNanos / 1_000_000.0;
+	}
+
+	public double getAvgFlushMillis() {
+		long count = flushes.get();
+		return count == 0 ? 0 : totalFlushNanos.get() / 1_000_000.0 / count;
+	}
+}
+
+-------------------------------------
+
+WriteBehindDemo.java
+
+package com.writebehind;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class WriteBehindDemo {
+
+	public static void main(String[] args) throws Exception {
+		SessionFactory factory = new Configuration().configure("hibernate.cfg.xml").buildSessionFactory();
+		String[] cities = { "Delhi", "Noida", "Gzb", "Meerut" };
+
+		try (WriteBehindBuffer<Student> buffer = new WriteBehindBuffer<>(factory, Student.class, "city")
+				.setFlushIntervalMs(200)
+				.setFlushThreshold(5_000)
+				.start()) {
+
+			// 8 threads, 200,000 city changes on 100 students
+			ExecutorService pool = Executors.newFixedThreadPool(8);
+			for (int t = 0; t < 8; t++) {
+				int thread = t;
+				pool.submit(() -> {
+					for (int i = 0; i < 25_000; i++) {
+						buffer.update(101 + (i % 100), "city", cities[(i + thread) % cities.length]);
+					}
+				});
+			}
+			pool.shutdown();
+			pool.awaitTermination(1, TimeUnit.MINUTES);
+
+			System.out.println("Updates   : " + buffer.getUpdates());
+			System.out.println("Coalesced : " + buffer.getCoalesced());
+			System.out.println("Depth     : " + buffer.getDepth());
+			System.out.println("Flushes   : " + buffer.getFlushes() + ", rows written " + buffer.getRowsWritten()
+					+ ", rejected " + buffer.getRejectedRows() + ", missing " + buffer.getMissingRows());
+			System.out.println("Flush ms  : last " + buffer.getLastFlushMillis() + ", avg " + buffer.getAvgFlushMillis()
+					+ ", max " + buffer.getMaxFlushMillis());
+		} // close() flushes the rest
+
+		Session s = factory.openSession();
+		System.out.println(s.get(Student.class, 101));
+		s.close();
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* Only the listed properties go through the buffer. Everything else about the entity works as before.
+* A normal `session.get()` does **not** see buffered values until the flush. Use `pendingValue(...)` where that matters.
+* Don't mix write-behind and normal updates of the **same property**: the buffer may overwrite a newer normal update.
+* Versioned entities are refused: blind UPDATEs would skip optimistic locking.
+* If a flush fails because the database is down (connection lost, timeout, deadlock), the values go back into the
+  buffer and are tried again on the next flush. If the database stays down, `maxBuffered` is reached and writers
+  start failing, so the problem is visible.
+* If the database **refuses** the batch (a value too long, a constraint), the rows are written **one by one**. Rows
+  which still fail are **dropped**: counted in `getRejectedRows()` and passed to the `RejectHandler` (default: a warning).
+  Without this one bad value would fail every flush, and everything else with it, forever.
+* An update of a row which was deleted in the meantime matches nothing. It is counted in `getMissingRows()`, not in
+  `getRowsWritten()`.
+
+---
+
+### 🔸 Summary
+
+| Item                      | Purpose                                        |
+| ------------------------- | ---------------------------------------------- |
+| `update(id, prop, value)` | Buffer a change, returns immediately           |
+| Stripes                   | Many writer threads without one global lock    |
+| Coalescing                | Only the newest value per id+property is written |
+| `flush()`                 | One transaction, JDBC batches                  |
+| `getDepth()`              | Entries waiting in memory                      |
+| `setRejectHandler(...)`   | Rows refused by the database, one by one       |
+| `getAvgFlushMillis()`     | Flush latency (also last / max)                |
@@ -0,0 +1,790 @@
+Cache Stampede Protection (Single-Flight Loading)**
+
+With the second-level cache from `5_Caching.java`, a popular entry like `Employee#1` or a cached query
+`FROM Employee WHERE department = :dept` is read by many sessions at the same time. When it **expires**, this happens:
+
+```
+t=0  entry expires
+t=1  100 sessions: cache miss -> 100 x SELECT ... WHERE id = 1  -> MySQL
+t=5  100 results come back, 100 puts into the cache (all the same value)
+```
+
+This is a **cache stampede**: one expiry becomes a burst of identical queries.
+
+**Single-flight loading** fixes it:
+
+* The **first** session which misses a key becomes the **loader**. It goes to the database as usual.
+* Every other session which misses the **same key** while the load is running **waits** for it.
+* When the loader puts the value into the cache, all waiters wake up and read it from the cache. 100 misses -> **1 SELECT**.
+
+**Refresh-ahead** (optional) avoids the miss completely for hot entries:
+when an entry is read after e.g. 80% of its time-to-live, it is still returned, and a background thread loads a fresh
+copy from the database. Popular entries never expire, rarely used ones expire as normal.
+Refresh-ahead only works for `READ_ONLY` and `NONSTRICT_READ_WRITE` entities: a `READ_WRITE` region refuses a put
+over an entry whose version did not change, so the refreshed copy would never land (see below).
+
+---
+
+### 🔹 How it works
+
+* We plug our own `RegionFactory` (same way as `10_Off-Heap Second Level Cache.java`). Entries are normal heap objects
+  with a **time-to-live**.
+* A cache miss registers a **flight** for the key (`ConcurrentHashMap.putIfAbsent`). Only one flight per key can exist.
+* `putIntoCache` (Hibernate calls it after the load) and evictions **end** the flight and wake the waiters.
+* Waiting is **bounded** (`wait_ms`). If the loader never puts a value (row not found, loader failed), the waiters
+  stop waiting and load themselves. So the worst case is the same as without single-flight.
+* **Where** we wait matters. For `READ_WRITE` regions Hibernate reads the storage while holding the region's
+  **read lock**, and the loader's put needs the **write lock**. A waiter inside the storage would block the put until
+  it gave up. So for entities we wait in a **load event listener**, before Hibernate touches the cache
+  (`SingleFlightRegionFactory.attach(factory)`). Query result regions have no such lock, there we wait in the storage.
+* Works for **entity** regions (any concurrency strategy) and **query cache** regions. Collection regions only get the
+  time-to-live. The timestamps region is never single-flight and never expires.
+
+### 🔹 Configuration (`hibernate.cfg.xml`)
+
+```xml
+<property name="hibernate.cache.use_second_level_cache">true</property>
+<property name="hibernate.cache.use_query_cache">true</property>
+<property name="hibernate.cache.region.factory_class">com.cache.SingleFlightRegionFactory</property>
+
+<!-- time-to-live of entries, default for all regions, and for one region -->
+<property name="hibernate.cache.singleflight.ttl_ms">60000</property>
+<property name="hibernate.cache.singleflight.ttl_ms.com.mavenlearn.Student">300000</property>
+
+<!-- max time a miss waits for a running load of the same key -->
+<property name="hibernate.cache.singleflight.wait_ms">500</property>
+
+<!-- refresh-ahead: refresh entries read after 80% of their ttl (0 = off). READ_ONLY / NONSTRICT_READ_WRITE only -->
+<property name="hibernate.cache.singleflight.refresh_ahead">0.8</property>
+<property name="hibernate.cache.singleflight.refresh_threads">2</property>
+```
+
+---
+
+SingleFlightRegionFactory.java
+
+package com.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.cfg.spi.EntityDataCachingConfig;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.jboss.logging.Logger;
+
+public class SingleFlightRegionFactory extends RegionFactoryTemplate {
+
+	private static final Logger LOG = Logger.getLogger(SingleFlightRegionFactory.class);
+
+	public static final String TTL_MS = "hibernate.cache.singleflight.ttl_ms";
+	public static final String WAIT_MS = "hibernate.cache.singleflight.wait_ms";
+	public static final String REFRESH_AHEAD = "hibernate.cache.singleflight.refresh_ahead";
+	public static final String REFRESH_THREADS = "hibernate.cache.singleflight.refresh_threads";
+
+	private static final long DEFAULT_TTL_MS = 60_000;
+	private static final long DEFAULT_WAIT_MS = 500;
+
+	private final Map<String, SingleFlightStorageAccess> regions = new ConcurrentHashMap<>();
+	private Map<?, ?> configValues;
+	private ExecutorService refreshPool;
+
+	/**
+	 * Single-flight for entity loads. Without it entity regions only have the time-to-live.
+	 */
+	public static void attach(SessionFactory factory) {
+		SessionFactoryImplementor sessionFactory = factory.unwrap(SessionFactoryImplementor.class);
+		SingleFlightRegionFactory regionFactory = (SingleFlightRegionFactory) sessionFactory.getCache()
+				.getRegionFactory();
+		sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class)
+				.prependListeners(EventType.LOAD, new SingleFlightLoadListener(regionFactory));
+	}
+
+	@Override
+	protected void prepareForUse(SessionFactoryOptions settings, @SuppressWarnings("rawtypes") Map configValues) {
+		this.configValues = configValues;
+		if (refreshAhead() > 0) {
+			int threads = Integer.parseInt(String.valueOf(configValues.getOrDefault(REFRESH_THREADS, "2")).trim());
+			refreshPool = Executors.newFixedThreadPool(threads, r -> {
+				Thread t = new Thread(r, "cache-refresh-ahead");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	@Override
+	protected void releaseFromUse() {
+		if (refreshPool != null) {
+			refreshPool.shutdownNow();
+		}
+		for (SingleFlightStorageAccess region : regions.values()) {
+			region.release();
+		}
+		regions.clear();
+	}
+
+	@Override
+	protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+			DomainDataRegionBuildingContext buildingContext) {
+		// The access strategy may hold a lock around getFromCache: never wait in there, the load listener does it
+		SingleFlightStorageAccess region = createRegion(regionConfig.getRegionName(), false);
+		// Refresh-ahead needs to know which entity a key belongs to: only for regions with exactly one entity
+		if (refreshPool != null && regionConfig.getEntityCaching().size() == 1
+				&& regionConfig.getCollectionCaching().isEmpty()) {
+			EntityDataCachingConfig entity = regionConfig.getEntityCaching().get(0);
+			String entityName = entity.getNavigableRole().getFullPath();
+			if (entity.getAccessType() == AccessType.READ_ONLY || entity.getAccessType() == AccessType.NONSTRICT_READ_WRITE) {
+				region.enableRefreshAhead(buildingContext.getSessionFactory(), entityName, refreshAhead(), refreshPool);
+			}
+			else {
+				// READ_WRITE puts over an existing Item only with a newer version: the refresh would be refused
+				LOG.infof("No refresh-ahead for %s, it is %s (only READ_ONLY / NONSTRICT_READ_WRITE)", entityName,
+						entity.getAccessType());
+			}
+		}
+		return region;
+	}
+
+	@Override
+	protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		return createRegion(regionName, true);
+	}
+
+	// Timestamps must never expire, and a miss there is normal (no load follows)
+	@Override
+	protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		SingleFlightStorageAccess region = new SingleFlightStorageAccess(regionName, 0, 0, false, false);
+		regions.put(regionName, region);
+		return region;
+	}
+
+	// All regions with their counters
+	public Map<String, SingleFlightStorageAccess> getRegions() {
+		return regions;
+	}
+
+	private SingleFlightStorageAccess createRegion(String regionName, boolean waitInGet) {
+		SingleFlightStorageAccess region = new SingleFlightStorageAccess(regionName, ttlMillis(regionName),
+				longValue(WAIT_MS, DEFAULT_WAIT_MS), true, waitInGet);
+		regions.put(regionName, region);
+		return region;
+	}
+
+	// Region specific ttl wins, then the default ttl
+	private long ttlMillis(String regionName) {
+		Object value = configValues.get(TTL_MS + "." + regionName);
+		return value == null ? longValue(TTL_MS, DEFAULT_TTL_MS) : Long.parseLong(value.toString().trim());
+	}
+
+	private double refreshAhead() {
+		Object value = configValues.get(REFRESH_AHEAD);
+		return value == null ? 0 : Double.parseDouble(value.toString().trim());
+	}
+
+	private long longValue(String name, long defaultValue) {
+		Object value = configValues.get(name);
+		return value == null ? defaultValue : Long.parseLong(value.toString().trim());
+	}
+}
+
+-------------------------------------
+
+SingleFlightStorageAccess.java
+
+package com.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * One cache region with time-to-live entries. Concurrent misses on the same key wait for one load:
+ * inside getFromCache for query regions (waitInGet), through awaitLoad() from the load listener for entity regions.
+ */
+public class SingleFlightStorageAccess implements DomainDataStorageAccess, SnapshotSource {
+
+	private static final class Entry {
+		final Object value;
+		final long expiresAt;   // 0 = never
+		final long refreshAt;   // 0 = no refresh-ahead
+		final AtomicBoolean refreshing = new AtomicBoolean();
+
+		Entry(Object value, long expiresAt, long refreshAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+			this.refreshAt = refreshAt;
+		}
+
+		boolean isFresh(long now) {
+			return expiresAt == 0 || now < expiresAt;
+		}
+	}
+
+	// A load in progress for one key
+	private static final class Flight {
+		final Thread loader = Thread.currentThread();
+		final long started = System.currentTimeMillis();
+		final CountDownLatch done = new CountDownLatch(1);
+	}
+
+	private final String regionName;
+	private final long ttlMillis;
+	private final long waitMillis;
+	private final boolean singleFlight;
+	private final boolean waitInGet;
+
+	private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+	private final Map<Object, Flight> flights = new ConcurrentHashMap<>();
+
+	// refresh-ahead, only set for single-entity regions
+	private SessionFactoryImplementor sessionFactory;
+	private String entityName;
+	private double refreshAhead;
+	private ExecutorService refreshPool;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder waiting = new LongAdder();
+	private final LongAdder waitTimeouts = new LongAdder();
+	private final LongAdder refreshes = new LongAdder();
+	private final LongAdder refreshFailures = new LongAdder();
+
+	public SingleFlightStorageAccess(String regionName, long ttlMillis, long waitMillis, boolean singleFlight,
+			boolean waitInGet) {
+		this.regionName = regionName;
+		this.ttlMillis = ttlMillis;
+		this.waitMillis = waitMillis;
+		this.singleFlight = singleFlight;
+		this.waitInGet = waitInGet;
+	}
+
+	void enableRefreshAhead(SessionFactoryImplementor sessionFactory, String entityName, double refreshAhead,
+			ExecutorService refreshPool) {
+		this.sessionFactory = sessionFactory;
+		this.entityName = entityName;
+		this.refreshAhead = refreshAhead;
+		this.refreshPool = refreshPool;
+	}
+
+	@Override
+	public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+		Entry entry = entries.get(key);
+		long now = System.currentTimeMillis();
+		if (entry != null && entry.isFresh(now)) {
+			hits.increment();
+			if (entry.refreshAt != 0 && now >= entry.refreshAt && entry.refreshing.compareAndSet(false, true)) {
+				refreshLater(key, entry);
+			}
+			return entry.value;
+		}
+		if (entry != null) {
+			entries.remove(key, entry);
+		}
+		if (waitInGet && awaitLoad(key)) {
+			Entry loaded = entries.get(key);
+			if (loaded != null && loaded.isFresh(System.currentTimeMillis())) {
+				coalesced.increment();
+				return loaded.value;
+			}
+		}
+		misses.increment();
+		return null;
+	}
+
+	/**
+	 * Single-flight for one key. Returns at once when the key is cached or this thread becomes the loader,
+	 * otherwise when the running load has put the key (true) or waiting gave up (false).
+	 * Must not be called while a lock is held which the loader's put needs.
+	 */
+	public boolean awaitLoad(Object key) {
+		if (!singleFlight || contains(key)) {
+			return false;
+		}
+		Flight mine = new Flight();
+		Flight running = flights.putIfAbsent(key, mine);
+		if (running != null && System.currentTimeMillis() - running.started > waitMillis
+				&& flights.replace(key, running, mine)) {
+			// Old flight which never landed (row not found, loader failed): take it over
+			running = null;
+		}
+		if (running == null || running.loader == Thread.currentThread()) {
+			// We are the loader: Hibernate goes to the database and calls putIntoCache
+			return false;
+		}
+
+		waiting.increment();
+		try {
+			if (!running.done.await(waitMillis, TimeUnit.MILLISECONDS)) {
+				// The loader did not put anything in time (row not found, failed, very slow): load ourselves
+				waitTimeouts.increment();
+				flights.remove(key, running);
+				return false;
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		finally {
+			waiting.decrement();
+		}
+		// Landed with a put, or with an eviction (concurrent update): then the caller goes to the database
+		return contains(key);
+	}
+
+	/**
+	 * awaitLoad() for an entity load in this session. Counts as coalesced only if Hibernate will really serve the
+	 * landed value: a READ_WRITE Item is only readable by sessions which started after the loader's session.
+	 */
+	public boolean awaitLoad(Object key, SharedSessionContractImplementor session) {
+		if (!awaitLoad(key)) {
+			return false;
+		}
+		Object value = peek(key);
+		if (value instanceof AbstractReadWriteAccess.Item
+				&& !((AbstractReadWriteAccess.Item) value).isReadable(session.getTransactionStartTimestamp())) {
+			return false;
+		}
+		if (value == null) {
+			return false;
+		}
+		coalesced.increment();
+		return true;
+	}
+
+	@Override
+	public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+		long now = System.currentTimeMillis();
+		long expiresAt = ttlMillis == 0 ? 0 : now + ttlMillis;
+		long refreshAt = refreshPool == null || ttlMillis == 0 ? 0 : now + (long) (ttlMillis * refreshAhead);
+		entries.put(key, new Entry(value, expiresAt, refreshAt));
+		land(key);
+	}
+
+	@Override
+	public boolean contains(Object key) {
+		Entry entry = entries.get(key);
+		return entry != null && entry.isFresh(System.currentTimeMillis());
+	}
+
+	@Override
+	public List<Object> keys() {
+		List<Object> keys = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		entries.forEach((key, entry) -> {
+			if (entry.isFresh(now)) {
+				keys.add(key);
+			}
+		});
+		return keys;
+	}
+
+	@Override
+	public Object peek(Object key) {
+		Entry entry = entries.get(key);
+		return entry != null && entry.isFresh(System.currentTimeMillis()) ? entry.value : null;
+	}
+
+	@Override
+	public void evictData() {
+		entries.clear();
+		for (Object key : flights.keySet()) {
+			land(key);
+		}
+	}
+
+	@Override
+	public void evictData(Object key) {
+		entries.remove(key);
+		land(key);
+	}
+
+	@Override
+	public void release() {
+		evictData();
+	}
+
+	// End the flight of this key and wake up the waiters
+	private void land(Object key) {
+		Flight flight = flights.remove(key);
+		if (flight != null) {
+			flight.done.countDown();
+		}
+	}
+
+	// Load a fresh copy in the background. CacheMode.REFRESH skips the cache read (no hit counted) and puts the result;
+	// only enabled for READ_ONLY / NONSTRICT_READ_WRITE, where that put replaces the entry.
+	private void refreshLater(Object key, Entry entry) {
+		try {
+			refreshPool.execute(() -> {
+				try (Session session = sessionFactory.openSession()) {
+					session.setCacheMode(CacheMode.REFRESH);
+					EntityPersister persister = sessionFactory.getMetamodel().entityPersister(entityName);
+					Object id = persister.getCacheAccessStrategy().getCacheKeyId(key);
+					session.get(entityName, (Serializable) id);
+					refreshes.increment();
+				}
+				catch (RuntimeException e) {
+					refreshFailures.increment();
+				}
+				finally {
+					entry.refreshing.set(false);
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			// shutting down
+			entry.refreshing.set(false);
+		}
+	}
+
+	public String getRegionName() {
+		return regionName;
+	}
+
+	public int getEntryCount() {
+		return entries.size();
+	}
+
+	// Loads running right now
+	public int getInFlightCount() {
+		return flights.size();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	// Misses which went to the database
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	// Misses which were served the value of another session's load instead of going to the database
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+
+	// Sessions waiting for another session's load right now
+	public long getWaitingCount() {
+		return waiting.sum();
+	}
+
+	public long getWaitTimeoutCount() {
+		return waitTimeouts.sum();
+	}
+
+	public long getRefreshCount() {
+		return refreshes.sum();
+	}
+
+	public long getRefreshFailureCount() {
+		return refreshFailures.sum();
+	}
+
+	@Override
+	public String toString() {
+		return regionName + ": entries=" + getEntryCount() + " hits=" + getHitCount() + " misses=" + getMissCount()
+				+ " coalesced=" + getCoalescedCount() + " waitTimeouts=" + getWaitTimeoutCount()
+				+ " refreshes=" + getRefreshCount();
+	}
+}
+
+-------------------------------------
+
+SingleFlightLoadListener.java
+
+Runs before Hibernate's own load listener, so no cache lock is held while it waits.
+
+package com.cache;
+
+import org.hibernate.HibernateException;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+public class SingleFlightLoadListener implements LoadEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	private final SingleFlightRegionFactory regionFactory;
+
+	public SingleFlightLoadListener(SingleFlightRegionFactory regionFactory) {
+		this.regionFactory = regionFactory;
+	}
+
+	@Override
+	public void onLoad(LoadEvent event, LoadType loadType) throws HibernateException {
+		// load() and lazy associations only create a proxy, no SELECT
+		if (loadType == LOAD || loadType == INTERNAL_LOAD_LAZY) {
+			return;
+		}
+		SessionImplementor session = event.getSession();
+		if (!session.getCacheMode().isGetEnabled()) {
+			return;
+		}
+		EntityPersister persister = session.getFactory().getMetamodel().entityPersister(event.getEntityClassName());
+		if (!persister.canReadFromCache()) {
+			return;
+		}
+		EntityKey entityKey = session.generateEntityKey(event.getEntityId(), persister);
+		if (session.getPersistenceContext().getEntity(entityKey) != null) {
+			return;
+		}
+		EntityDataAccess access = persister.getCacheAccessStrategy();
+		SingleFlightStorageAccess storage = regionFactory.getRegions().get(access.getRegion().getName());
+		if (storage != null) {
+			storage.awaitLoad(access.generateCacheKey(event.getEntityId(), persister, session.getFactory(),
+					session.getTenantIdentifier()), session);
+		}
+		// Hibernate's listener runs next: a cache hit now, or the database if we are the loader
+	}
+}
+
+-------------------------------------
+
+StampedeDemo.java
+
+Student is `@Cacheable` with `@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)` here. `Employee` works the same way.
+
+package com.cache;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import com.mavenlearn.Student;
+
+public class StampedeDemo {
+
+	public static void main(String[] args) throws Exception {
+		Configuration cfg = new Configuration().configure();
+		cfg.setProperty("hibernate.cache.use_second_level_cache", "true");
+		cfg.setProperty("hibernate.cache.use_query_cache", "true");
+		cfg.setProperty("hibernate.cache.region.factory_class", SingleFlightRegionFactory.class.getName());
+		cfg.setProperty("hibernate.cache.singleflight.ttl_ms", "2000");
+		cfg.setProperty("hibernate.cache.singleflight.refresh_ahead", "0.8");
+		cfg.setProperty("hibernate.generate_statistics", "true");
+		SessionFactory factory = cfg.buildSessionFactory();
+		SingleFlightRegionFactory.attach(factory);
+
+		// 100 sessions start at the same moment on a cold cache
+		stampede(factory, 100);
+		System.out.println("SQL statements (single-flight): " + factory.getStatistics().getPrepareStatementCount());
+
+		SingleFlightRegionFactory regions = (SingleFlightRegionFactory) factory.unwrap(SessionFactoryImplementor.class)
+				.getCache().getRegionFactory();
+		regions.getRegions().values().forEach(System.out::println);
+
+		// Keep reading. Student is READ_WRITE, so there is no refresh-ahead: each expiry costs one SELECT (single-flight).
+		// With READ_ONLY / NONSTRICT_READ_WRITE the entries would be refreshed after 80% of the ttl, no misses at all.
+		for (int i = 0; i < 30; i++) {
+			stampede(factory, 10);
+			Thread.sleep(100);
+		}
+		regions.getRegions().values().forEach(System.out::println);
+		factory.close();
+	}
+
+	private static void stampede(SessionFactory factory, int sessions) throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(sessions);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < sessions; i++) {
+			pool.submit(() -> {
+				start.await();
+				try (Session session = factory.openSession()) {
+					session.get(Student.class, 101);
+					List<Student> delhi = session.createQuery("from Student where city = :city", Student.class)
+							.setParameter("city", "Delhi")
+							.setCacheable(true)
+							.list();
+					return delhi.size();
+				}
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.MINUTES);
+	}
+}
+
+-------------------------------------
+
+StampedeCheck.java
+
+50 sessions miss the same `READ_WRITE` entity while one load is running: exactly one SELECT must reach the database,
+and all 50 must be served by that load.
+Runs against H2 in memory and throws otherwise.
+
+package com.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+import com.mavenlearn.Student;
+
+public class StampedeCheck {
+
+	private static final int SESSIONS = 50;
+
+	public static void main(String[] args) throws Exception {
+		Configuration cfg = new Configuration();
+		cfg.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+		cfg.setProperty("hibernate.connection.url", "jdbc:h2:mem:stampede;DB_CLOSE_DELAY=-1");
+		cfg.setProperty("hibernate.connection.username", "sa");
+		cfg.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		cfg.setProperty("hibernate.hbm2ddl.auto", "create");
+		cfg.setProperty("hibernate.connection.pool_size", "20");
+		cfg.setProperty("hibernate.cache.use_second_level_cache", "true");
+		cfg.setProperty("hibernate.cache.region.factory_class", SingleFlightRegionFactory.class.getName());
+		cfg.setProperty("hibernate.cache.singleflight.wait_ms", "5000");
+		cfg.setProperty("javax.persistence.sharedCache.mode", "ALL");
+		cfg.setProperty("hibernate.cache.default_cache_concurrency_strategy", "read-write");
+		cfg.setProperty("hibernate.generate_statistics", "true");
+		cfg.addAnnotatedClass(Student.class);
+		SessionFactory factory = cfg.buildSessionFactory();
+		SingleFlightRegionFactory.attach(factory);
+
+		Session s = factory.openSession();
+		Transaction tx = s.beginTransaction();
+		s.save(new Student(101, "Rishabh", "Delhi"));
+		tx.commit();
+		s.close();
+		factory.getCache().evictAllRegions();
+		factory.getStatistics().clear();
+
+		SessionFactoryImplementor sf = factory.unwrap(SessionFactoryImplementor.class);
+		EntityPersister persister = sf.getMetamodel().entityPersister(Student.class);
+		EntityDataAccess access = persister.getCacheAccessStrategy();
+		SingleFlightStorageAccess storage = ((SingleFlightRegionFactory) sf.getCache().getRegionFactory()).getRegions()
+				.get(access.getRegion().getName());
+		Object key = access.generateCacheKey(101, persister, sf, null);
+
+		// The loader's session is opened and claims the flight first. Waiter sessions start later,
+		// so Hibernate may serve them the loader's READ_WRITE Item (it is readable only by newer sessions).
+		Session loader = factory.openSession();
+		storage.awaitLoad(key);
+		Thread.sleep(50);
+
+		ExecutorService pool = Executors.newFixedThreadPool(SESSIONS);
+		List<Future<Student>> results = new ArrayList<>();
+		for (int i = 0; i < SESSIONS; i++) {
+			results.add(pool.submit(() -> {
+				try (Session session = factory.openSession()) {
+					return session.get(Student.class, 101);
+				}
+			}));
+		}
+		// Deterministic: the load runs only when every waiter is parked on the flight
+		long deadline = System.currentTimeMillis() + 4000;
+		while (storage.getWaitingCount() < SESSIONS) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new IllegalStateException("Only " + storage.getWaitingCount() + " of " + SESSIONS + " sessions wait");
+			}
+			Thread.sleep(5);
+		}
+		loader.get(Student.class, 101);
+		loader.close();
+
+		for (Future<Student> result : results) {
+			if (result.get() == null) {
+				throw new IllegalStateException("A session did not get the student");
+			}
+		}
+		pool.shutdown();
+
+		long loads = factory.getStatistics().getEntityLoadCount();
+		long coalesced = storage.getCoalescedCount();
+		if (loads != 1 || coalesced != SESSIONS) {
+			throw new IllegalStateException(SESSIONS + " concurrent misses made " + loads + " SELECTs and " + coalesced
+					+ " coalesced loads, expected 1 and " + SESSIONS);
+		}
+		System.out.println("OK: " + SESSIONS + " concurrent misses, 1 SELECT, " + coalesced + " served from the one load");
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* Single-flight only helps when the value **ends up in the cache**. A miss on a row which does not exist is never cached,
+  so waiters wait up to `wait_ms` and then load themselves. Keep `wait_ms` a bit above your normal query time.
+* A cached query which is **stale** (one of its tables was updated) is refused by Hibernate above the storage,
+  so that case is not coalesced, only expiry and eviction are.
+* Refresh-ahead is for **entity regions** (one entity per region, the default) with `READ_ONLY` or
+  `NONSTRICT_READ_WRITE`. A `READ_WRITE` region only accepts a put over an existing entry with a **newer version**,
+  so a refresh of an unchanged row is refused; those regions are logged at startup and only get single-flight.
+  Query results cannot be refreshed in the background either, the storage does not know the query.
+* With `READ_WRITE`, a cached value is only readable by sessions that **started after** the loader's session.
+  A waiter that opened its session earlier is refused by Hibernate and goes to the database; it is not counted
+  as coalesced.
+* Refresh-ahead keeps hot entries alive forever. Don't use a long ttl together with data which changes in the database
+  without Hibernate (another app): the refresh loads it, but only every `ttl * refresh_ahead`.
+* Without `SingleFlightRegionFactory.attach(factory)` entity misses are **not** coalesced (only query results are).
+* This is a local cache. For several nodes, combine it with `11_Cluster Cache Invalidation.java`.
+
+---
+
+### 🔸 Summary
+
+| Item                      | Purpose                                                |
+| ------------------------- | ------------------------------------------------------ |
+| Flight per key            | Only one session loads a missing key                   |
+| `attach(factory)`         | Load listener: entity misses wait above the cache lock |
+| `wait_ms`                 | Max wait for the other load, then load yourself        |
+| `refresh_ahead`           | Hot entries are reloaded in the background before expiry |
+| `getCoalescedCount()`     | Misses really served by another session's load         |
+| `getWaitTimeoutCount()`   | Waits which gave up                                    |
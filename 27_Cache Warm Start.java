@@ -0,0 +1,582 @@
+Second Level Cache Warm-Start from a Snapshot File**
+
+After every deploy (or restart) the second-level cache from `5_Caching.java` is **empty**.
+Until it is warm again, every read goes to MySQL, and with several nodes restarting together the database
+gets a big burst of reads exactly when the app is starting.
+
+**Warm-start**:
+
+* On **shutdown** (and also every few minutes, in case the node crashes) the entity regions are written to a small
+  local **snapshot file**.
+* On **startup**, before the node serves traffic, the snapshot is read back into the cache.
+  The file is **memory-mapped** and split into segments, and every segment is read by its own thread.
+* An entry is only put back if it is still **fresh**:
+  * **Versioned** entities (`@Version`): one cheap query per chunk of ids (`select id, version ... where id in (...)`),
+    entries whose version changed (or whose row is gone) are dropped.
+  * **Unversioned** entities (like the READ_ONLY reference data): the whole snapshot must be younger than `maxAge`.
+  * If the **mapping** of an entity changed in the new deploy (properties added/removed), its entries are dropped.
+
+Entries go back into the cache through the normal cache access strategy (`putFromLoad`), exactly like a load from the
+database would put them. So READ_ONLY, NONSTRICT_READ_WRITE and READ_WRITE regions all work.
+
+---
+
+### 🔹 File format
+
+```
+header   : magic, format, header length, created at (ms)
+           entity table : name, mapping hash
+           segment table: offset, length, record count
+segments : record = entity number (2 bytes), id, version, cached value
+```
+
+`id`, `version` and the cached value are written with `BinaryEntryCodec` from `10_Off-Heap Second Level Cache.java`.
+With `hibernate.cache.use_structured_entries=true` a cached entity is a `Map`, so a record is only a few bytes more than its data.
+
+> The snapshot needs a region factory which can **list its keys** (`SnapshotSource`):
+> `OffHeapRegionFactory` (file 10) and `SingleFlightRegionFactory` (file 26) both can.
+> Only **entity** regions are saved. Collections and query results are rebuilt by normal use.
+
+---
+
+SnapshotSource.java
+
+package com.cache;
+
+import java.util.List;
+
+// A cache storage which can list the keys it holds, so its region can be saved to a snapshot
+public interface SnapshotSource {
+
+	List<Object> keys();
+
+	// The stored value or null. Not a cache read: no statistics, no waiting, no single-flight, no refresh.
+	Object peek(Object key);
+}
+
+-------------------------------------
+
+CacheSnapshot.java
+
+package com.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.entry.CacheEntry;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess;
+import org.hibernate.cache.spi.support.DomainDataRegionTemplate;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Saves the entity regions of the second-level cache to a file and loads them back.
+ *
+ * CacheSnapshot.dump(factory, Paths.get("l2.snapshot"));
+ * ...
+ * CacheSnapshot.LoadReport report = CacheSnapshot.load(factory, Paths.get("l2.snapshot"), 10 * 60_000);
+ */
+public final class CacheSnapshot {
+
+	private static final int MAGIC = 0x4C32534E; // "L2SN"
+	private static final int FORMAT = 1;
+	private static final int ID_CHUNK = 500;
+
+	public static class LoadReport {
+		final AtomicInteger records = new AtomicInteger();
+		final AtomicInteger loaded = new AtomicInteger();
+		final AtomicInteger stale = new AtomicInteger();
+		final AtomicInteger skipped = new AtomicInteger();
+		long millis;
+
+		public int getRecords() {
+			return records.get();
+		}
+
+		public int getLoaded() {
+			return loaded.get();
+		}
+
+		// Version changed or row deleted since the snapshot
+		public int getStale() {
+			return stale.get();
+		}
+
+		// Entity unknown, mapping changed, or snapshot too old for an unversioned entity
+		public int getSkipped() {
+			return skipped.get();
+		}
+
+		public long getMillis() {
+			return millis;
+		}
+
+		@Override
+		public String toString() {
+			return "records=" + getRecords() + " loaded=" + getLoaded() + " stale=" + getStale() + " skipped="
+					+ getSkipped() + " in " + millis + " ms";
+		}
+	}
+
+	private CacheSnapshot() {
+	}
+
+	// ---------------------------------------------------------------- dump
+
+	/**
+	 * Writes all cached entities to the file. The file is replaced atomically, a crash never leaves half a snapshot.
+	 * Only the keys are collected first; values are encoded and streamed to the file one by one.
+	 *
+	 * @return number of entries written
+	 */
+	public static int dump(SessionFactory factory, Path file) throws IOException {
+		SessionFactoryImplementor sf = factory.unwrap(SessionFactoryImplementor.class);
+		List<EntityPersister> persisters = cachedRootEntities(sf);
+
+		// [entity number, key] of every entity entry, in region order
+		List<Object[]> keys = new ArrayList<>();
+		List<SnapshotSource> sources = new ArrayList<>();
+		for (int e = 0; e < persisters.size(); e++) {
+			EntityPersister persister = persisters.get(e);
+			EntityDataAccess access = persister.getCacheAccessStrategy();
+			DomainDataStorageAccess storage = ((DomainDataRegionTemplate) access.getRegion()).getCacheStorageAccess();
+			sources.add(storage instanceof SnapshotSource ? (SnapshotSource) storage : null);
+			if (!(storage instanceof SnapshotSource)) {
+				continue;
+			}
+			for (Object key : ((SnapshotSource) storage).keys()) {
+				if (key.equals(access.generateCacheKey(access.getCacheKeyId(key), persister, sf, null))) {
+					keys.add(new Object[] { e, key });
+				}
+				// else: another entity or a collection in the same region
+			}
+		}
+
+		int segmentCount = Runtime.getRuntime().availableProcessors();
+		long[] lengths = new long[segmentCount];
+		int[] counts = new int[segmentCount];
+		int headerLength = headerLength(persisters, segmentCount);
+		int written = 0;
+
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			// Segments first, after room for the header; the header is written last when the lengths are known
+			channel.position(headerLength);
+			OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+			for (int segment = 0; segment < segmentCount; segment++) {
+				int from = (int) ((long) keys.size() * segment / segmentCount);
+				int to = (int) ((long) keys.size() * (segment + 1) / segmentCount);
+				for (Object[] entry : keys.subList(from, to)) {
+					int e = (Integer) entry[0];
+					EntityPersister persister = persisters.get(e);
+					Object value = cachedValue(sources.get(e).peek(entry[1]));
+					if (value == null) {
+						continue; // evicted since keys(), or locked by an update which is running right now
+					}
+					EntityDataAccess access = persister.getCacheAccessStrategy();
+					CacheEntry cacheEntry = (CacheEntry) persister.getCacheEntryStructure().destructure(value, sf);
+
+					out.write(e >> 8);
+					out.write(e);
+					lengths[segment] += 2 + append(out, access.getCacheKeyId(entry[1]))
+							+ append(out, cacheEntry.getVersion()) + append(out, value);
+					counts[segment]++;
+					written++;
+				}
+			}
+			out.flush();
+
+			ByteBuffer header = header(persisters, headerLength, lengths, counts);
+			long position = 0;
+			while (header.hasRemaining()) {
+				position += channel.write(header, position);
+			}
+			channel.force(true);
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return written;
+	}
+
+	// READ_WRITE regions store the entry inside an Item, or a soft lock while an update runs
+	private static Object cachedValue(Object stored) {
+		if (stored instanceof AbstractReadWriteAccess.Item) {
+			return ((AbstractReadWriteAccess.Item) stored).getValue();
+		}
+		if (stored instanceof AbstractReadWriteAccess.SoftLockImpl) {
+			return null;
+		}
+		return stored;
+	}
+
+	// Returns the number of bytes written
+	private static int append(OutputStream out, Object value) throws IOException {
+		ByteBuffer encoded = BinaryEntryCodec.encode(value);
+		int length = encoded.remaining();
+		out.write(encoded.array(), encoded.arrayOffset() + encoded.position(), length);
+		return length;
+	}
+
+	private static int headerLength(List<EntityPersister> persisters, int segmentCount) {
+		int length = 4 + 4 + 4 + 8 + 4;
+		for (EntityPersister persister : persisters) {
+			length += 4 + persister.getEntityName().getBytes(StandardCharsets.UTF_8).length + 4;
+		}
+		return length + 4 + segmentCount * (8 + 8 + 4);
+	}
+
+	private static ByteBuffer header(List<EntityPersister> persisters, int length, long[] lengths, int[] counts) {
+		ByteBuffer header = ByteBuffer.allocate(length);
+		header.putInt(MAGIC).putInt(FORMAT).putInt(length).putLong(System.currentTimeMillis());
+		header.putInt(persisters.size());
+		for (EntityPersister persister : persisters) {
+			byte[] name = persister.getEntityName().getBytes(StandardCharsets.UTF_8);
+			header.putInt(name.length).put(name).putInt(mappingHash(persister));
+		}
+		header.putInt(lengths.length);
+		long offset = length;
+		for (int i = 0; i < lengths.length; i++) {
+			header.putLong(offset).putLong(lengths[i]).putInt(counts[i]);
+			offset += lengths[i];
+		}
+		header.flip();
+		return header;
+	}
+
+	// ---------------------------------------------------------------- load
+
+	/**
+	 * Loads the snapshot into the cache, one thread per segment. Call it right after building the SessionFactory,
+	 * before the application serves requests.
+	 *
+	 * @param maxAgeMillis entries of unversioned entities are only used if the snapshot is younger than this
+	 */
+	public static LoadReport load(SessionFactory factory, Path file, long maxAgeMillis) throws IOException {
+		SessionFactoryImplementor sf = factory.unwrap(SessionFactoryImplementor.class);
+		LoadReport report = new LoadReport();
+		long start = System.currentTimeMillis();
+		if (!Files.exists(file)) {
+			return report;
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer prefix = ByteBuffer.allocate(12);
+			channel.read(prefix, 0);
+			prefix.flip();
+			if (prefix.remaining() < 12 || prefix.getInt() != MAGIC || prefix.getInt() != FORMAT) {
+				throw new HibernateException("Not a cache snapshot (or an old format): " + file);
+			}
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, prefix.getInt());
+			header.position(12);
+			long age = System.currentTimeMillis() - header.getLong();
+
+			// Which entities of the snapshot can be used in this deploy
+			EntityPersister[] persisters = new EntityPersister[header.getInt()];
+			for (int e = 0; e < persisters.length; e++) {
+				byte[] name = new byte[header.getInt()];
+				header.get(name);
+				int hash = header.getInt();
+				EntityPersister persister = sf.getMetamodel().entityPersisters().get(new String(name, StandardCharsets.UTF_8));
+				boolean usable = persister != null && persister.canWriteToCache() && mappingHash(persister) == hash
+						&& (persister.isVersioned() || age <= maxAgeMillis);
+				persisters[e] = usable ? persister : null;
+			}
+
+			int segmentCount = header.getInt();
+			ExecutorService pool = Executors.newFixedThreadPool(segmentCount);
+			try {
+				List<Future<?>> futures = new ArrayList<>();
+				for (int i = 0; i < segmentCount; i++) {
+					long offset = header.getLong();
+					long length = header.getLong();
+					int records = header.getInt();
+					if (records == 0) {
+						continue;
+					}
+					MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+					futures.add(pool.submit(() -> loadSegment(sf, segment, records, persisters, report)));
+				}
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new HibernateException("Interrupted while loading cache snapshot", e);
+			}
+			catch (ExecutionException e) {
+				throw new HibernateException("Loading cache snapshot failed", e.getCause());
+			}
+			finally {
+				pool.shutdown();
+			}
+		}
+		report.millis = System.currentTimeMillis() - start;
+		return report;
+	}
+
+	private static void loadSegment(SessionFactoryImplementor sf, ByteBuffer segment, int records,
+			EntityPersister[] persisters, LoadReport report) {
+		// Decode everything first, grouped by entity: [id, version, value]
+		Map<Integer, List<Object[]>> byEntity = new HashMap<>();
+		for (int i = 0; i < records; i++) {
+			int e = segment.getShort() & 0xFFFF;
+			Object id = BinaryEntryCodec.decode(segment);
+			Object version = BinaryEntryCodec.decode(segment);
+			Object value = BinaryEntryCodec.decode(segment);
+			report.records.incrementAndGet();
+			if (persisters[e] == null) {
+				report.skipped.incrementAndGet();
+				continue;
+			}
+			byEntity.computeIfAbsent(e, k -> new ArrayList<>()).add(new Object[] { id, version, value });
+		}
+
+		try (Session s = sf.openSession()) {
+			SharedSessionContractImplementor session = s.unwrap(SharedSessionContractImplementor.class);
+			for (Map.Entry<Integer, List<Object[]>> group : byEntity.entrySet()) {
+				EntityPersister persister = persisters[group.getKey()];
+				EntityDataAccess access = persister.getCacheAccessStrategy();
+				List<Object[]> entries = group.getValue();
+				for (int from = 0; from < entries.size(); from += ID_CHUNK) {
+					List<Object[]> chunk = entries.subList(from, Math.min(from + ID_CHUNK, entries.size()));
+					Map<Object, Object> current = persister.isVersioned() ? currentVersions(s, persister, chunk) : null;
+					for (Object[] entry : chunk) {
+						if (current != null && (!current.containsKey(entry[0])
+								|| !persister.getVersionType().isEqual(current.get(entry[0]), entry[1]))) {
+							report.stale.incrementAndGet();
+							continue;
+						}
+						Object key = access.generateCacheKey(entry[0], persister, sf, null);
+						if (access.putFromLoad(session, key, entry[2], entry[1], false)) {
+							report.loaded.incrementAndGet();
+						}
+					}
+				}
+			}
+		}
+	}
+
+	// id -> version now in the database, for one chunk of ids
+	private static Map<Object, Object> currentVersions(Session session, EntityPersister persister, List<Object[]> chunk) {
+		String id = persister.getIdentifierPropertyName();
+		String version = persister.getPropertyNames()[persister.getVersionProperty()];
+		List<Serializable> ids = new ArrayList<>(chunk.size());
+		for (Object[] entry : chunk) {
+			ids.add((Serializable) entry[0]);
+		}
+		Map<Object, Object> versions = new HashMap<>();
+		for (Object[] row : session.createQuery("select e." + id + ", e." + version + " from " + persister.getEntityName()
+				+ " e where e." + id + " in (:ids)", Object[].class).setParameterList("ids", ids).list()) {
+			versions.put(row[0], row[1]);
+		}
+		return versions;
+	}
+
+	// ---------------------------------------------------------------- helpers
+
+	// Subclasses share the region and key of their root entity
+	private static List<EntityPersister> cachedRootEntities(SessionFactoryImplementor sf) {
+		List<EntityPersister> persisters = new ArrayList<>();
+		for (EntityPersister persister : sf.getMetamodel().entityPersisters().values()) {
+			if (persister.canWriteToCache() && persister.getEntityName().equals(persister.getRootEntityName())) {
+				persisters.add(persister);
+			}
+		}
+		return persisters;
+	}
+
+	// Changes when properties are added, removed or change type: old entries would not fit anymore
+	private static int mappingHash(EntityPersister persister) {
+		int hash = Arrays.hashCode(persister.getPropertyNames());
+		for (org.hibernate.type.Type type : persister.getPropertyTypes()) {
+			hash = 31 * hash + type.getName().hashCode();
+		}
+		return hash;
+	}
+
+	public static Path defaultFile() {
+		return Paths.get(System.getProperty("java.io.tmpdir"), "hibernate-l2.snapshot");
+	}
+}
+
+-------------------------------------
+
+SnapshotScheduler.java
+
+package com.cache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.jboss.logging.Logger;
+
+/**
+ * Writes a snapshot every few minutes and a last one on close(). Close it before closing the SessionFactory.
+ */
+public class SnapshotScheduler implements AutoCloseable {
+
+	private static final Logger LOG = Logger.getLogger(SnapshotScheduler.class);
+
+	private final SessionFactory factory;
+	private final Path file;
+	private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "cache-snapshot");
+		t.setDaemon(true);
+		return t;
+	});
+
+	public SnapshotScheduler(SessionFactory factory, Path file) {
+		this.factory = factory;
+		this.file = file;
+	}
+
+	public SnapshotScheduler every(long period, TimeUnit unit) {
+		timer.scheduleWithFixedDelay(this::dumpQuietly, period, period, unit);
+		return this;
+	}
+
+	private void dumpQuietly() {
+		try {
+			int entries = CacheSnapshot.dump(factory, file);
+			LOG.infof("Cache snapshot written: %d entries -> %s", entries, file);
+		}
+		catch (IOException | RuntimeException e) {
+			LOG.warn("Cache snapshot failed", e);
+		}
+	}
+
+	@Override
+	public void close() {
+		timer.shutdown();
+		try {
+			timer.awaitTermination(30, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		dumpQuietly();
+	}
+}
+
+-------------------------------------
+
+WarmStartDemo.java
+
+Two "deploys" in one run: the first warms the cache and writes the snapshot on close, the second loads it at startup.
+Student is `@Cacheable` with `@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)`.
+
+package com.cache;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class WarmStartDemo {
+
+	public static void main(String[] args) throws Exception {
+		Path file = CacheSnapshot.defaultFile();
+
+		// Deploy 1: normal work fills the cache, snapshot on shutdown
+		SessionFactory first = build();
+		try (SnapshotScheduler snapshots = new SnapshotScheduler(first, file).every(5, TimeUnit.MINUTES)) {
+			List<Integer> ids;
+			try (Session session = first.openSession()) {
+				ids = session.createQuery("select s.id from Student s", Integer.class).list();
+			}
+			for (Integer id : ids) {
+				try (Session session = first.openSession()) {
+					session.get(Student.class, id);
+				}
+			}
+		}
+		first.close();
+
+		// Deploy 2: load the snapshot before serving
+		SessionFactory second = build();
+		CacheSnapshot.LoadReport report = CacheSnapshot.load(second, file, TimeUnit.MINUTES.toMillis(30));
+		System.out.println("Warm-start: " + report);
+
+		second.getStatistics().clear();
+		try (Session session = second.openSession()) {
+			System.out.println(session.get(Student.class, 101));
+		}
+		System.out.println("SQL statements after warm-start: " + second.getStatistics().getPrepareStatementCount());
+		second.close();
+	}
+
+	private static SessionFactory build() {
+		Configuration cfg = new Configuration().configure();
+		cfg.setProperty("hibernate.cache.use_second_level_cache", "true");
+		cfg.setProperty("hibernate.cache.use_structured_entries", "true");
+		cfg.setProperty("hibernate.cache.region.factory_class", SingleFlightRegionFactory.class.getName());
+		cfg.setProperty("hibernate.cache.singleflight.ttl_ms", "3600000");
+		cfg.setProperty("hibernate.generate_statistics", "true");
+		return cfg.buildSessionFactory();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* For **unversioned** entities the snapshot can not know if a row changed while the node was down.
+  Use a `maxAge` which matches how often that data changes, or add a `@Version` column to get an exact check.
+* The version check is one indexed query per 500 ids. That is much cheaper than loading the rows, but it is not free;
+  for pure READ_ONLY reference data a `maxAge` alone is enough.
+* Load the snapshot **before** the node serves traffic. Entries written by normal loads at the same time are fine
+  (`putFromLoad` does not overwrite newer data in READ_WRITE regions), but the warm-up benefit is gone.
+* The snapshot is **local** to one node. It is not a way to share a cache between nodes.
+* Dumping keeps only the **keys** in memory; each value is encoded and streamed to the file. Values are read with
+  `SnapshotSource.peek`, not through the cache, so a dump never counts as a hit/miss or waits on a single-flight load.
+* A crash between two scheduled snapshots only makes the next start a bit colder, the old file is still complete.
+
+---
+
+### 🔸 Summary
+
+| Item                              | Purpose                                              |
+| --------------------------------- | ---------------------------------------------------- |
+| `CacheSnapshot.dump(f, file)`     | Entity regions -> compact file (atomic replace)       |
+| `CacheSnapshot.load(f, file, maxAge)` | mmap + one thread per segment -> cache           |
+| Version check                     | Drops entries changed or deleted since the snapshot  |
+| Mapping hash                      | Drops entries of entities changed by the deploy      |
+| `SnapshotScheduler`               | Snapshot every N minutes and on shutdown             |
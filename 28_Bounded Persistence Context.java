@@ -0,0 +1,382 @@
+Bounded Persistence Context (Automatic Flush and Clear)**
+
+`MapDemo` in `7_Mapping.java` keeps **one Session** open: save, commit, and later `session.get(...)`.
+Every entity saved or loaded in that session stays in the **first-level cache** (persistence context) until the session closes.
+
+For a demo with 4 objects that is fine. A batch job with the same pattern and 500,000 objects has two problems:
+
+* **Memory**: every managed entity keeps its object **and** a snapshot of its loaded state. The heap fills up.
+* **Flush time**: every `flush()` / `commit()` dirty-checks **all** managed entities, so every flush gets slower than the one before.
+
+The usual fix is manual:
+
+```java
+if (i % 50 == 0) {
+	session.flush();
+	session.clear();
+}
+```
+
+`BoundedSession` does this **automatically**, based on limits:
+
+* It tracks the **number** of managed entities and their **estimated size** (sampled from the loaded state).
+* When a limit is passed, it **flushes** (the SQL goes to the database, inside the running transaction) and **clears**.
+* Identity stays safe:
+  * Work inside `unit(...)` is never cleared in the middle. Objects which belong together are saved in one unit.
+  * **Pinned** entities are re-attached after every clear, so the same instance stays managed for the whole job.
+* Metrics: current/peak managed entities, estimated bytes, number of automatic flushes and clears.
+
+---
+
+BoundedSession.java
+
+package com.session;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.hibernate.LockOptions;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+
+/**
+ * A Session with a limit on its first-level cache.
+ *
+ * try (BoundedSession bs = BoundedSession.open(factory).setMaxEntities(1000)) {
+ *     Transaction tx = bs.session().beginTransaction();
+ *     for (...) {
+ *         bs.unit(s -> { s.save(question); s.save(answer); });
+ *     }
+ *     tx.commit();
+ * }
+ */
+public class BoundedSession implements AutoCloseable {
+
+	// EntityEntry, EntityKey, map nodes and the two arrays (instance fields + loaded state snapshot)
+	private static final int ENTRY_OVERHEAD = 200;
+	private static final int SAMPLE_SIZE = 64;
+
+	private final Session session;
+	private final PersistenceContext persistenceContext;
+	private final Set<Object> pinned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	private int maxEntities = 10_000;
+	private long maxBytes = 64L * 1024 * 1024;
+	private int sizeCheckEvery = 100;
+
+	private int unitDepth;
+	private int operationsSinceSizeCheck;
+	private long estimatedBytes;
+	private long bytesPerEntity = ENTRY_OVERHEAD;
+
+	// metrics
+	private int peakEntities;
+	private long autoFlushes;
+	private long autoClears;
+	private long deferredClears;
+	private long lastFlushNanos;
+	private long totalFlushNanos;
+
+	public BoundedSession(Session session) {
+		this.session = session;
+		this.persistenceContext = session.unwrap(SessionImplementor.class).getPersistenceContext();
+	}
+
+	public static BoundedSession open(SessionFactory factory) {
+		return new BoundedSession(factory.openSession());
+	}
+
+	public BoundedSession setMaxEntities(int maxEntities) {
+		this.maxEntities = maxEntities;
+		return this;
+	}
+
+	public BoundedSession setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		return this;
+	}
+
+	// The size estimate walks a sample of the persistence context, so it is not done after every call
+	public BoundedSession setSizeCheckEvery(int sizeCheckEvery) {
+		this.sizeCheckEvery = sizeCheckEvery;
+		return this;
+	}
+
+	// The real session, for queries, transactions etc. Call checkpoint() after adding many entities through it.
+	public Session session() {
+		return session;
+	}
+
+	// ---------------------------------------------------------------- operations with a check afterwards
+
+	public Serializable save(Object entity) {
+		Serializable id = session.save(entity);
+		checkpoint();
+		return id;
+	}
+
+	public void persist(Object entity) {
+		session.persist(entity);
+		checkpoint();
+	}
+
+	public <T> T get(Class<T> entityClass, Serializable id) {
+		T entity = session.get(entityClass, id);
+		checkpoint();
+		return entity;
+	}
+
+	/**
+	 * Everything in work sees the same instances: no automatic clear happens until it returns.
+	 */
+	public <R> R unit(Function<Session, R> work) {
+		unitDepth++;
+		try {
+			return work.apply(session);
+		}
+		finally {
+			unitDepth--;
+			checkpoint();
+		}
+	}
+
+	public void unit(Consumer<Session> work) {
+		unit(s -> {
+			work.accept(s);
+			return null;
+		});
+	}
+
+	// Pinned entities stay managed (same instance) across automatic clears
+	public <T> T pin(T entity) {
+		pinned.add(entity);
+		return entity;
+	}
+
+	public void unpin(Object entity) {
+		pinned.remove(entity);
+	}
+
+	// ---------------------------------------------------------------- policy
+
+	/**
+	 * Flushes and clears if a limit is passed. Does nothing inside a unit.
+	 */
+	public void checkpoint() {
+		int entities = persistenceContext.getNumberOfManagedEntities();
+		peakEntities = Math.max(peakEntities, entities);
+		if (++operationsSinceSizeCheck >= sizeCheckEvery) {
+			bytesPerEntity = sampleBytesPerEntity();
+			operationsSinceSizeCheck = 0;
+		}
+		estimatedBytes = entities * bytesPerEntity;
+
+		if (unitDepth > 0 || (entities < maxEntities && estimatedBytes < maxBytes)) {
+			return;
+		}
+
+		if (session.getTransaction().isActive()) {
+			long start = System.nanoTime();
+			session.flush();
+			lastFlushNanos = System.nanoTime() - start;
+			totalFlushNanos += lastFlushNanos;
+			autoFlushes++;
+		}
+		else if (session.isDirty()) {
+			// Outside a transaction changes can't be flushed, and clearing would lose them
+			deferredClears++;
+			return;
+		}
+
+		session.clear();
+		autoClears++;
+		for (Object entity : pinned) {
+			// Just flushed, so the instance matches the database: re-attach without a query
+			session.buildLockRequest(LockOptions.NONE).lock(entity);
+		}
+		estimatedBytes = persistenceContext.getNumberOfManagedEntities() * bytesPerEntity;
+	}
+
+	// Average size of some managed entities, from their loaded state
+	private long sampleBytesPerEntity() {
+		Map.Entry<Object, EntityEntry>[] entries = persistenceContext.reentrantSafeEntityEntries();
+		if (entries.length == 0) {
+			return bytesPerEntity;
+		}
+		int step = Math.max(1, entries.length / SAMPLE_SIZE);
+		long total = 0;
+		int sampled = 0;
+		for (int i = 0; i < entries.length; i += step) {
+			Object[] state = entries[i].getValue().getLoadedState();
+			long bytes = ENTRY_OVERHEAD;
+			if (state != null) {
+				bytes += 16L * state.length;
+				for (Object value : state) {
+					bytes += sizeOf(value);
+				}
+			}
+			total += bytes;
+			sampled++;
+		}
+		return total / sampled;
+	}
+
+	private static long sizeOf(Object value) {
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof String) {
+			return 40 + 2L * ((String) value).length();
+		}
+		if (value instanceof byte[]) {
+			return 16 + ((byte[]) value).length;
+		}
+		if (value instanceof char[]) {
+			return 16 + 2L * ((char[]) value).length;
+		}
+		if (value instanceof PersistentCollection && !((PersistentCollection) value).wasInitialized()) {
+			return 48;
+		}
+		if (value instanceof Collection) {
+			return 48 + 16L * ((Collection<?>) value).size();
+		}
+		// boxed numbers, dates, references to other entities
+		return 24;
+	}
+
+	@Override
+	public void close() {
+		pinned.clear();
+		session.close();
+	}
+
+	// ---------------------------------------------------------------- metrics
+
+	public int getManagedEntities() {
+		return persistenceContext.getNumberOfManagedEntities();
+	}
+
+	public int getPeakManagedEntities() {
+		return peakEntities;
+	}
+
+	public long getEstimatedBytes() {
+		return estimatedBytes;
+	}
+
+	public long getAutoFlushes() {
+		return autoFlushes;
+	}
+
+	public long getAutoClears() {
+		return autoClears;
+	}
+
+	// Limits passed outside a transaction with unsaved changes
+	public long getDeferredClears() {
+		return deferredClears;
+	}
+
+	public double getLastFlushMillis() {
+		return lastFlushNanos / 1_000_000.0;
+	}
+
+	public double getTotalFlushMillis() {
+		return totalFlushNanos / 1_000_000.0;
+	}
+
+	@Override
+	public String toString() {
+		return "managed=" + getManagedEntities() + " peak=" + peakEntities + " estimatedBytes=" + estimatedBytes
+				+ " autoFlushes=" + autoFlushes + " autoClears=" + autoClears + " deferred=" + deferredClears;
+	}
+}
+
+-------------------------------------
+
+BoundedMapDemo.java
+
+The `MapDemo` pattern (one session, save, commit, get) with 100,000 questions and answers.
+
+package com.session;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+
+import com.map.Answer;
+import com.map.Question;
+
+public class BoundedMapDemo {
+
+	public static void main(String[] args) {
+		Configuration cfg = new Configuration();
+		cfg.configure("hibernate.cfg.xml");
+		cfg.setProperty("hibernate.jdbc.batch_size", "50");
+		cfg.setProperty("hibernate.order_inserts", "true");
+		SessionFactory factory = cfg.buildSessionFactory();
+
+		try (BoundedSession bs = BoundedSession.open(factory).setMaxEntities(2_000).setMaxBytes(8L * 1024 * 1024)) {
+			Transaction tx = bs.session().beginTransaction();
+
+			// Stays the same instance for the whole job
+			Question first = bs.pin(new Question(1, "What is Java", null));
+			bs.save(first);
+
+			for (int i = 2; i <= 100_000; i++) {
+				Question q = new Question(i, "Question " + i, null);
+				Answer a = new Answer(100_000 + i, "Answer " + i);
+				a.setQuestion(q);
+				q.setAnswer(a);
+				// q and a are saved together, never cleared in between
+				bs.unit(s -> {
+					s.save(a);
+					s.save(q);
+				});
+			}
+			first.setQuestion("What is Java?"); // still managed: flushed on commit
+			tx.commit();
+			System.out.println(bs);
+			System.out.println("Flush time total: " + bs.getTotalFlushMillis() + " ms");
+
+			//Fetch the details
+			Question q = bs.get(Question.class, 5_000);
+			System.out.println(q.getQuestion() + " -> " + q.getAnswer().getAnswer());
+		}
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* After an automatic clear, objects you still hold (and did not pin) are **detached**. Changing them does nothing.
+  Keep related work in one `unit(...)`, or `pin(...)` what must stay managed.
+* Pin only a **few** entities. Re-attaching them after every clear is cheap for a few, not for thousands.
+* The flush writes SQL but does **not commit**. A rollback still undoes everything.
+* Outside a transaction nothing can be flushed, so a dirty session is never cleared (see `getDeferredClears()`).
+* Use it together with `hibernate.jdbc.batch_size`, so each automatic flush sends its inserts in batches.
+* For jobs which don't need entities at all, a `StatelessSession` (see `14_Parallel Partitioned Reader.java`) is even cheaper.
+
+---
+
+### 🔸 Summary
+
+| Item                     | Purpose                                          |
+| ------------------------ | ------------------------------------------------ |
+| `setMaxEntities(n)`      | Flush + clear after n managed entities           |
+| `setMaxBytes(b)`         | Flush + clear after about b bytes (estimated)    |
+| `unit(s -> ...)`         | No clear in the middle, same instances           |
+| `pin(entity)`            | Stays managed across clears                      |
+| `getPeakManagedEntities()` / `getEstimatedBytes()` | Persistence context size |
@@ -0,0 +1,590 @@
+Streaming @Lob Access and Lazy Large Attributes**
+
+In `3_Annotations.java` we map large content with `@Lob`:
+
+```java
+@Lob
+private byte[] content;
+```
+
+This works, but every time the entity is loaded, the **whole** value comes with it:
+
+* A listing screen with 50 documents of 5 MB each loads **250 MB** into the heap, only to show the titles.
+* `byte[]` / `String` must hold the complete value in memory. A 500 MB file needs a 500 MB array.
+
+Two separate fixes:
+
+1. **Lazy fetch group**: the LOB column is not selected when the entity is loaded. It is loaded on first access,
+   in its own query, and each LOB can have its **own group** (loading `content` does not load `text`).
+2. **Streaming**: reads and writes go through `InputStream` / `Reader` / channels in **chunks**, so memory use
+   is one chunk, not the whole value.
+
+---
+
+### 🔹 Lazy fetch groups
+
+```java
+@Lob
+@Basic(fetch = FetchType.LAZY)
+@LazyGroup("content")
+private Blob content;
+```
+
+> `@Basic(fetch = LAZY)` on a column only works with **bytecode enhancement**. Without it Hibernate silently loads it eagerly.
+> Add the enhancement plugin to the build:
+
+```xml
+<plugin>
+    <groupId>org.hibernate.orm.tooling</groupId>
+    <artifactId>hibernate-enhance-maven-plugin</artifactId>
+    <version>5.6.6.Final</version>
+    <executions>
+        <execution>
+            <configuration>
+                <enableLazyInitialization>true</enableLazyInitialization>
+            </configuration>
+            <goals>
+                <goal>enhance</goal>
+            </goals>
+        </execution>
+    </executions>
+</plugin>
+```
+
+We use `java.sql.Blob` / `java.sql.Clob` instead of `byte[]` / `String`: they are **handles**, the data can stay in the database.
+
+### 🔹 Why our own chunked stream?
+
+`blob.getBinaryStream()` looks like streaming, but many drivers (MySQL Connector/J included) read the **whole LOB**
+into memory as soon as the row is read. `LobStreams` instead reads the LOB in ranges with the dialect's `substring`
+function (`select substring(content, 1, 262144) ...`, then the next range, ...). Memory use is **one chunk**, on any driver.
+
+Writing uses `session.getLobHelper().createBlob(stream, length)`: Hibernate binds it with `setBinaryStream`, so the
+driver sends it from the stream without a `byte[]` of the full size.
+
+---
+
+Document.java
+
+package com.lob;
+
+import java.sql.Blob;
+import java.sql.Clob;
+
+import javax.persistence.Basic;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.LazyGroup;
+
+@Entity
+@Table(name = "document")
+public class Document {
+
+	@Id
+	private int id;
+	private String title;
+	// Stored next to the LOB, so listings can show the size without touching it
+	private long contentLength;
+
+	@Lob
+	@Basic(fetch = FetchType.LAZY)
+	@LazyGroup("content")
+	private Blob content;
+
+	@Lob
+	@Basic(fetch = FetchType.LAZY)
+	@LazyGroup("text")
+	private Clob text;
+
+	public Document() {
+	}
+
+	public Document(int id, String title) {
+		this.id = id;
+		this.title = title;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public void setId(int id) {
+		this.id = id;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	public void setContentLength(long contentLength) {
+		this.contentLength = contentLength;
+	}
+
+	public Blob getContent() {
+		return content;
+	}
+
+	public void setContent(Blob content) {
+		this.content = content;
+	}
+
+	public Clob getText() {
+		return text;
+	}
+
+	public void setText(Clob text) {
+		this.text = text;
+	}
+
+	@Override
+	public String toString() {
+		return "Document [id=" + id + ", title=" + title + ", contentLength=" + contentLength + "]";
+	}
+}
+
+-------------------------------------
+
+LobStreams.java
+
+package com.lob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.dialect.function.SQLFunction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.BinaryType;
+import org.hibernate.type.StringType;
+import org.hibernate.type.Type;
+
+/**
+ * Reads and writes LOB properties in chunks, without loading the whole value.
+ *
+ * try (InputStream in = LobStreams.openStream(session, Document.class, 7, "content")) { ... }
+ * LobStreams.write(session, document, Files.newInputStream(file), Files.size(file));
+ *
+ * The session must stay open while the stream is read. Read inside a transaction for a consistent value.
+ */
+public final class LobStreams {
+
+	public static final int DEFAULT_CHUNK = 256 * 1024;
+
+	private LobStreams() {
+	}
+
+	// ---------------------------------------------------------------- reading
+
+	public static InputStream openStream(Session session, Class<?> entityClass, Serializable id, String property) {
+		return openStream(session, entityClass, id, property, DEFAULT_CHUNK);
+	}
+
+	public static InputStream openStream(Session session, Class<?> entityClass, Serializable id, String property,
+			int chunkSize) {
+		String sql = chunkSql(session, entityClass, property, BinaryType.INSTANCE);
+		return new InputStream() {
+			private byte[] chunk = new byte[0];
+			private int position;
+			private long offset = 1; // SQL substring starts at 1
+			private boolean end;
+
+			@Override
+			public int read() throws IOException {
+				byte[] one = new byte[1];
+				return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+			}
+
+			@Override
+			public int read(byte[] target, int off, int len) throws IOException {
+				if (position == chunk.length && !fill()) {
+					return -1;
+				}
+				int n = Math.min(len, chunk.length - position);
+				System.arraycopy(chunk, position, target, off, n);
+				position += n;
+				return n;
+			}
+
+			private boolean fill() {
+				if (end) {
+					return false;
+				}
+				byte[] next = (byte[]) fetchChunk(session, sql, BinaryType.INSTANCE, id, offset, chunkSize);
+				if (next == null || next.length == 0) {
+					end = true;
+					return false;
+				}
+				end = next.length < chunkSize;
+				chunk = next;
+				position = 0;
+				offset += next.length;
+				return true;
+			}
+		};
+	}
+
+	public static Reader openReader(Session session, Class<?> entityClass, Serializable id, String property) {
+		return openReader(session, entityClass, id, property, DEFAULT_CHUNK / 2);
+	}
+
+	public static Reader openReader(Session session, Class<?> entityClass, Serializable id, String property,
+			int chunkChars) {
+		String sql = chunkSql(session, entityClass, property, StringType.INSTANCE);
+		return new Reader() {
+			private String chunk = "";
+			private int position;
+			private long offset = 1;
+			private boolean end;
+
+			@Override
+			public int read(char[] target, int off, int len) {
+				if (position == chunk.length() && !fill()) {
+					return -1;
+				}
+				int n = Math.min(len, chunk.length() - position);
+				chunk.getChars(position, position + n, target, off);
+				position += n;
+				return n;
+			}
+
+			private boolean fill() {
+				if (end) {
+					return false;
+				}
+				String next = (String) fetchChunk(session, sql, StringType.INSTANCE, id, offset, chunkChars);
+				if (next == null || next.isEmpty()) {
+					end = true;
+					return false;
+				}
+				end = next.length() < chunkChars;
+				chunk = next;
+				position = 0;
+				offset += next.length();
+				return true;
+			}
+
+			@Override
+			public void close() {
+				chunk = "";
+			}
+		};
+	}
+
+	public static ReadableByteChannel openChannel(Session session, Class<?> entityClass, Serializable id,
+			String property) {
+		return Channels.newChannel(openStream(session, entityClass, id, property));
+	}
+
+	/**
+	 * Copies a binary LOB into a channel (file, socket) through one direct buffer.
+	 *
+	 * @return bytes copied
+	 */
+	public static long copyTo(Session session, Class<?> entityClass, Serializable id, String property,
+			WritableByteChannel target) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(DEFAULT_CHUNK);
+		long copied = 0;
+		try (ReadableByteChannel source = openChannel(session, entityClass, id, property)) {
+			while (source.read(buffer) >= 0) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					copied += target.write(buffer);
+				}
+				buffer.clear();
+			}
+		}
+		return copied;
+	}
+
+	// ---------------------------------------------------------------- writing
+
+	// The stream is read by the driver at flush time, keep it open until then
+	public static void write(Session session, Document document, InputStream content, long length) {
+		document.setContent(session.getLobHelper().createBlob(content, length));
+		document.setContentLength(length);
+	}
+
+	public static void write(Session session, Document document, ReadableByteChannel content, long length) {
+		write(session, document, Channels.newInputStream(content), length);
+	}
+
+	public static void writeText(Session session, Document document, Reader text, long length) {
+		document.setText(session.getLobHelper().createClob(text, length));
+	}
+
+	// ---------------------------------------------------------------- SQL
+
+	// select substring(col, ?, ?) from table where id = ?, with the substring function of the dialect
+	private static String chunkSql(Session session, Class<?> entityClass, String property, Type type) {
+		SessionFactoryImplementor factory = (SessionFactoryImplementor) session.getSessionFactory();
+		AbstractEntityPersister persister = (AbstractEntityPersister) factory.getMetamodel().entityPersister(entityClass);
+		String column = persister.getPropertyColumnNames(property)[0];
+		SQLFunction substring = factory.getSqlFunctionRegistry().findSQLFunction("substring");
+		if (substring == null) {
+			throw new HibernateException("Dialect has no substring function, can't read LOBs in chunks");
+		}
+		String range = substring.render(type, Arrays.asList(column, "?", "?"), factory);
+		return "select " + range + " as chunk from " + persister.getTableName() + " where "
+				+ persister.getIdentifierColumnNames()[0] + " = ?";
+	}
+
+	private static Object fetchChunk(Session session, String sql, Type type, Serializable id, long offset, int length) {
+		return session.createNativeQuery(sql)
+				.addScalar("chunk", type)
+				.setParameter(1, offset)
+				.setParameter(2, length)
+				.setParameter(3, id)
+				.uniqueResult();
+	}
+}
+
+-------------------------------------
+
+DocumentEager.java
+
+Same table, mapped the "normal" way (`@Lob byte[]`), only for the benchmark.
+
+package com.lob;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Immutable;
+
+@Entity
+@Immutable
+@Table(name = "document")
+public class DocumentEager {
+
+	@Id
+	private int id;
+	private String title;
+
+	@Lob
+	private byte[] content;
+
+	public int getId() {
+		return id;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public byte[] getContent() {
+		return content;
+	}
+}
+
+-------------------------------------
+
+LobBenchmark.java
+
+Inserts documents with multi-MB LOBs (streamed, never a full `byte[]`), then compares time and **allocated bytes**
+for a listing and for reading the content, eager `byte[]` vs lazy group + chunked stream.
+
+```
+java com.lob.LobBenchmark 20 8      # 20 documents of 8 MB
+```
+
+package com.lob;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Random;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+
+public class LobBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		long size = (args.length > 1 ? Long.parseLong(args[1]) : 8) * 1024 * 1024;
+
+		Configuration cfg = new Configuration().configure();
+		cfg.setProperty("hibernate.hbm2ddl.auto", "create");
+		cfg.addAnnotatedClass(Document.class);
+		cfg.addAnnotatedClass(DocumentEager.class);
+		SessionFactory factory = cfg.buildSessionFactory();
+
+		// Insert: content comes from a generator stream
+		long start = System.nanoTime();
+		try (Session session = factory.openSession()) {
+			Transaction tx = session.beginTransaction();
+			for (int i = 1; i <= count; i++) {
+				Document document = new Document(i, "Document " + i);
+				LobStreams.write(session, document, generated(size, i), size);
+				session.save(document);
+				session.flush();
+				session.clear();
+			}
+			tx.commit();
+		}
+		report("insert (streamed)", start, 0, count * size);
+
+		// Listing: titles only
+		measure("listing, eager byte[]", factory, session -> {
+			for (DocumentEager d : session.createQuery("from DocumentEager", DocumentEager.class).list()) {
+				d.getTitle();
+			}
+			return 0L;
+		});
+		measure("listing, lazy group", factory, session -> {
+			for (Document d : session.createQuery("from Document", Document.class).list()) {
+				d.getTitle();
+			}
+			return 0L;
+		});
+
+		// Reading the content of every document
+		measure("content, eager byte[]", factory, session -> {
+			long bytes = 0;
+			for (int i = 1; i <= count; i++) {
+				bytes += session.get(DocumentEager.class, i).getContent().length;
+				session.clear();
+			}
+			return bytes;
+		});
+		measure("content, chunked stream", factory, session -> {
+			long bytes = 0;
+			for (int i = 1; i <= count; i++) {
+				bytes += LobStreams.copyTo(session, Document.class, i, "content", discard());
+			}
+			return bytes;
+		});
+		factory.close();
+	}
+
+	interface Work {
+		long run(Session session) throws Exception;
+	}
+
+	private static void measure(String name, SessionFactory factory, Work work) throws Exception {
+		System.gc();
+		long allocatedBefore = allocated();
+		long start = System.nanoTime();
+		long bytes;
+		try (Session session = factory.openSession()) {
+			Transaction tx = session.beginTransaction();
+			bytes = work.run(session);
+			tx.commit();
+		}
+		report(name, start, allocated() - allocatedBefore, bytes);
+	}
+
+	private static void report(String name, long start, long allocated, long bytes) {
+		double ms = (System.nanoTime() - start) / 1_000_000.0;
+		System.out.printf("%-26s %9.1f ms  allocated %8.1f MB  data %8.1f MB%n", name, ms, allocated / 1048576.0,
+				bytes / 1048576.0);
+	}
+
+	@SuppressWarnings("restriction")
+	private static long allocated() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	// size pseudo-random bytes, made on the fly
+	private static InputStream generated(long size, long seed) {
+		Random random = new Random(seed);
+		return new InputStream() {
+			private long left = size;
+
+			@Override
+			public int read() {
+				if (left == 0) {
+					return -1;
+				}
+				left--;
+				return random.nextInt(256);
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) {
+				if (left == 0) {
+					return -1;
+				}
+				int n = (int) Math.min(len, left);
+				for (int i = 0; i < n; i++) {
+					b[off + i] = (byte) random.nextInt(256);
+				}
+				left -= n;
+				return n;
+			}
+		};
+	}
+
+	private static WritableByteChannel discard() {
+		return new WritableByteChannel() {
+			@Override
+			public int write(ByteBuffer src) {
+				int n = src.remaining();
+				src.position(src.limit());
+				return n;
+			}
+
+			@Override
+			public boolean isOpen() {
+				return true;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* Without **bytecode enhancement** `@Basic(fetch = LAZY)` is ignored. Then use a projection for listings
+  (`select d.id, d.title, d.contentLength from Document d`) and `LobStreams` for the content.
+* The chunked stream runs one query per chunk (256 KB by default). Bigger chunks = fewer round trips, more memory.
+* Read the stream **inside a transaction**, so all chunks see the same value if someone updates it meanwhile.
+* MySQL: the max size of one written value is limited by `max_allowed_packet`. Use `LONGBLOB` for values over 16 MB
+  (`@Column(columnDefinition = "LONGBLOB")`).
+* Keep the `InputStream` given to `write(...)` open until the flush/commit, the driver reads it then.
+
+---
+
+### 🔸 Summary
+
+| Item                                   | Purpose                                        |
+| -------------------------------------- | ---------------------------------------------- |
+| `@Basic(fetch = LAZY)` + `@LazyGroup`  | LOB not loaded with the entity, own group each |
+| `Blob` / `Clob` instead of `byte[]`    | Handle, not the whole value                    |
+| `LobStreams.openStream / openReader`   | Chunked read, one chunk in memory              |
+| `LobStreams.copyTo(..., channel)`      | LOB -> file / socket                           |
+| `LobStreams.write(...)`                | Streamed write with `LobHelper`                |
+| `LobBenchmark`                         | Time + allocated bytes, eager vs streaming     |
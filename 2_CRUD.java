@@ -96,3 +96,5 @@ session.close();
 | Update    | `session.update()` or just modify object and commit |
 | Delete    | `session.delete()`                                  |
 
+
+== Without loading the row first: upsert (17_Upsert.java), update some columns (18_Partial Updates.java), delete by id (19_Delete By Id.java).
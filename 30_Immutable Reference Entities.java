@@ -0,0 +1,349 @@
+Immutable Reference Entities (Shared Read-Only Store)**
+
+Some entities are really **reference tables**: `Course`, `Role` (from `3_Annotations.java`) and `Project` (from `7_Mapping.java`).
+They are written once by an admin and then only read, thousands of times, in every session.
+
+Hibernate does not know that. For every session which loads a `Project`:
+
+* it runs a SELECT (or a second-level cache lookup),
+* it keeps a **snapshot** of the loaded state next to the object,
+* and at every flush it **dirty-checks** the project, field by field, to see if something changed. It never did.
+
+**Immutable reference mode**:
+
+1. Mark the entity `@Immutable`. Hibernate then loads it **read-only**: no snapshot, no dirty check, updates are ignored.
+2. Load all rows **once** into a `ReferenceStore`, shared by the whole process. `store.get(Project.class, 11)`
+   is a map lookup: **no database hit, no session, no snapshot**.
+3. The store changes only when we say so:
+   * `store.reload(Project.class)` - explicit, e.g. after the admin screen saved a change, or
+   * **version poll** - every N seconds a tiny query (`select max(version), count(*)` or your own) runs,
+     and the table is reloaded only when the result changed.
+
+A reload builds a **new** map and swaps it in one step, so readers never see half a table.
+If two reloads of one table overlap (a poll and an explicit `reload`), the one which **started last** wins:
+it read the newer data.
+
+```java
+@Entity
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)   // optional: for associations loaded by normal sessions
+public class Course { ... }
+
+@Entity
+@Immutable
+public class Role { ... }
+```
+
+`Project` in `7_Mapping.java` is now `@Immutable`. `MappingDemo` still works: inserts are allowed, and the
+`emps` side of the many-to-many is `mappedBy`, so the join table is written by `Emp`.
+
+---
+
+ReferenceStore.java
+
+package com.reference;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.jboss.logging.Logger;
+
+/**
+ * Process-wide, read-only copy of reference tables.
+ *
+ * ReferenceStore store = ReferenceStore.of(factory).register(Project.class).register(Course.class);
+ * store.pollEvery(30, TimeUnit.SECONDS);
+ * Project p = store.get(Project.class, 11);
+ */
+public final class ReferenceStore implements AutoCloseable {
+
+	private static final Logger LOG = Logger.getLogger(ReferenceStore.class);
+
+	private static final Map<SessionFactory, ReferenceStore> STORES = new ConcurrentHashMap<>();
+
+	// One loaded table. Never changed after it is built, a reload makes a new one.
+	private static final class Table {
+		final Map<Object, Object> byId;
+		final List<Object> all;
+		final Object version;
+		// Order in which the loads started, a later one has newer data
+		final long loadNumber;
+		final long loadedAt = System.currentTimeMillis();
+
+		Table(Map<Object, Object> byId, Object version, long loadNumber) {
+			this.byId = Collections.unmodifiableMap(byId);
+			this.all = Collections.unmodifiableList(new ArrayList<>(byId.values()));
+			this.version = version;
+			this.loadNumber = loadNumber;
+		}
+	}
+
+	private final SessionFactoryImplementor factory;
+	private final Map<Class<?>, String> versionQueries = new ConcurrentHashMap<>();
+	private final Map<Class<?>, Table> tables = new ConcurrentHashMap<>();
+	private ScheduledExecutorService poller;
+
+	private final AtomicLong loadNumbers = new AtomicLong();
+	private final AtomicLong lookups = new AtomicLong();
+	private final AtomicLong reloads = new AtomicLong();
+	private final AtomicLong polls = new AtomicLong();
+
+	private ReferenceStore(SessionFactory factory) {
+		this.factory = factory.unwrap(SessionFactoryImplementor.class);
+	}
+
+	// One store per SessionFactory, for the whole process
+	public static ReferenceStore of(SessionFactory factory) {
+		return STORES.computeIfAbsent(factory, ReferenceStore::new);
+	}
+
+	/**
+	 * Registers and loads an entity. The version is {@code max(version), count} for versioned entities,
+	 * otherwise {@code count} only; use the other register() to give a better query.
+	 */
+	public ReferenceStore register(Class<?> entityClass) {
+		EntityPersister persister = persister(entityClass);
+		String entity = persister.getEntityName();
+		String versionHql = persister.isVersioned()
+				? "select max(e." + persister.getPropertyNames()[persister.getVersionProperty()] + "), count(e) from "
+						+ entity + " e"
+				: "select count(e) from " + entity + " e";
+		return register(entityClass, versionHql);
+	}
+
+	// versionHql returns one row; when its value changes, the table is reloaded by the poll
+	public ReferenceStore register(Class<?> entityClass, String versionHql) {
+		if (persister(entityClass).isMutable()) {
+			throw new HibernateException(entityClass.getName() + " must be @Immutable to be a reference entity");
+		}
+		versionQueries.put(entityClass, versionHql);
+		reload(entityClass);
+		return this;
+	}
+
+	// ---------------------------------------------------------------- reading, no database
+
+	public <T> T get(Class<T> entityClass, Serializable id) {
+		lookups.incrementAndGet();
+		return entityClass.cast(table(entityClass).byId.get(id));
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> List<T> all(Class<T> entityClass) {
+		lookups.incrementAndGet();
+		return (List<T>) table(entityClass).all;
+	}
+
+	// ---------------------------------------------------------------- refreshing
+
+	public void reload(Class<?> entityClass) {
+		EntityPersister persister = persister(entityClass);
+		long loadNumber = loadNumbers.incrementAndGet();
+		// Stateless: no persistence context, no snapshots, nothing kept after the load
+		try (StatelessSession session = factory.openStatelessSession()) {
+			Object version = currentVersion(session, entityClass);
+			Map<Object, Object> byId = new LinkedHashMap<>();
+			for (Object row : session.createQuery("from " + persister.getEntityName() + " e order by e."
+					+ persister.getIdentifierPropertyName(), entityClass)
+					.list()) {
+				byId.put(persister.getIdentifier(row, (SharedSessionContractImplementor) session), row);
+			}
+			// A slow poll reload finishing after an explicit reload must not put older data back
+			tables.merge(entityClass, new Table(byId, version, loadNumber),
+					(current, loaded) -> loaded.loadNumber > current.loadNumber ? loaded : current);
+		}
+		reloads.incrementAndGet();
+	}
+
+	public void reloadAll() {
+		for (Class<?> entityClass : versionQueries.keySet()) {
+			reload(entityClass);
+		}
+	}
+
+	/**
+	 * Runs the version queries every period and reloads the tables whose version changed.
+	 */
+	public synchronized ReferenceStore pollEvery(long period, TimeUnit unit) {
+		if (poller == null) {
+			poller = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "reference-store-poll");
+				t.setDaemon(true);
+				return t;
+			});
+			poller.scheduleWithFixedDelay(this::poll, period, period, unit);
+		}
+		return this;
+	}
+
+	private void poll() {
+		polls.incrementAndGet();
+		try (StatelessSession session = factory.openStatelessSession()) {
+			for (Class<?> entityClass : versionQueries.keySet()) {
+				Table table = tables.get(entityClass);
+				if (table == null || !Objects.equals(table.version, currentVersion(session, entityClass))) {
+					reload(entityClass);
+				}
+			}
+		}
+		catch (RuntimeException e) {
+			// Keep serving the old data, try again next time
+			LOG.warn("Reference store poll failed", e);
+		}
+	}
+
+	private Object currentVersion(StatelessSession session, Class<?> entityClass) {
+		Object result = session.createQuery(versionQueries.get(entityClass)).uniqueResult();
+		return result instanceof Object[] ? Arrays.asList((Object[]) result) : result;
+	}
+
+	// ---------------------------------------------------------------- helpers
+
+	private Table table(Class<?> entityClass) {
+		Table table = tables.get(entityClass);
+		if (table == null) {
+			throw new HibernateException(entityClass.getName() + " is not registered in the reference store");
+		}
+		return table;
+	}
+
+	private EntityPersister persister(Class<?> entityClass) {
+		return factory.getMetamodel().entityPersister(entityClass);
+	}
+
+	public long getLookupCount() {
+		return lookups.get();
+	}
+
+	public long getReloadCount() {
+		return reloads.get();
+	}
+
+	public long getPollCount() {
+		return polls.get();
+	}
+
+	// entity name -> rows, and when it was loaded
+	public Map<String, String> describe() {
+		Map<String, String> description = new HashMap<>();
+		tables.forEach((entityClass, table) -> description.put(entityClass.getSimpleName(),
+				table.byId.size() + " rows, loaded " + (System.currentTimeMillis() - table.loadedAt) + " ms ago"));
+		return description;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (poller != null) {
+			poller.shutdownNow();
+		}
+		tables.clear();
+		STORES.remove(factory);
+	}
+}
+
+-------------------------------------
+
+ReferenceDataDemo.java
+
+package com.reference;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+
+import com.map1.Emp;
+import com.map1.Project;
+
+public class ReferenceDataDemo {
+
+	public static void main(String[] args) {
+		Configuration cfg = new Configuration();
+		cfg.configure("hibernate.cfg.xml");
+		cfg.setProperty("hibernate.generate_statistics", "true");
+		SessionFactory factory = cfg.buildSessionFactory();
+
+		ReferenceStore store = ReferenceStore.of(factory)
+				.register(Project.class)
+				.pollEvery(30, TimeUnit.SECONDS);
+
+		// 100,000 lookups, no SQL
+		factory.getStatistics().clear();
+		Random random = new Random();
+		for (int i = 0; i < 100_000; i++) {
+			store.get(Project.class, random.nextBoolean() ? 11 : 22);
+		}
+		System.out.println("SQL for 100,000 lookups: " + factory.getStatistics().getPrepareStatementCount());
+		store.all(Project.class).forEach(p -> System.out.println(p.getPid() + " : " + p.getProjectName()));
+
+		// Using a reference entity in a normal session: getReference is only a proxy with the id, no SELECT
+		Session s = factory.openSession();
+		Transaction tx = s.beginTransaction();
+		Emp emp = s.get(Emp.class, 2);
+		emp.getProjects().add(s.getReference(Project.class, 11));
+		tx.commit();
+		s.close();
+
+		// The admin renamed a project: reload explicitly
+		s = factory.openSession();
+		tx = s.beginTransaction();
+		s.createNativeQuery("update Project set project_name = 'Advia 2' where pid = 11").executeUpdate();
+		tx.commit();
+		s.close();
+		store.reload(Project.class);
+		System.out.println(store.get(Project.class, 11).getProjectName());
+		System.out.println(store.describe());
+
+		store.close();
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* Objects from the store are **shared by all threads**. Never call their setters. Change reference data with a
+  normal update (or native SQL) and then `reload(...)`.
+* Lazy associations of stored objects (like `Project.emps`) are **not** loaded and can't be loaded later:
+  the store is for the reference data itself.
+* To link a reference entity from a normal entity, use `session.getReference(Project.class, id)` (no SELECT)
+  instead of putting the stored object into the session.
+* The default poll (`count`, or `max(version), count`) does not see a rename in an unversioned table.
+  Add a `@Version` column, or give your own query, e.g. `register(Project.class, "select max(p.updatedAt) from Project p")`,
+  or call `reload(...)` from the code which changes the data.
+* With several nodes, every node polls for itself. Keep the poll period short enough for how stale the data may be.
+
+---
+
+### 🔸 Summary
+
+| Item                                 | Purpose                                         |
+| ------------------------------------ | ----------------------------------------------- |
+| `@Immutable`                         | Read-only in sessions: no snapshot, no dirty check |
+| `ReferenceStore.of(factory)`         | One shared store per SessionFactory             |
+| `register(X.class)`                  | Load all rows once (stateless session)          |
+| `get(X.class, id)` / `all(X.class)`  | Map lookup, no database                         |
+| `reload(X.class)`                    | Explicit refresh, swapped in one step           |
+| `pollEvery(n, unit)`                 | Reload when the version query result changes    |
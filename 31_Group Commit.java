@@ -0,0 +1,595 @@
+Group Commit for Many Small Transactions**
+
+`App` and `6_ Hibernate Transactions and Concurrency.java` use **one transaction per save**:
+
+```java
+Transaction tx = session.beginTransaction();
+session.save(student);
+tx.commit();          // MySQL (InnoDB) writes and fsyncs the redo log here
+```
+
+The insert itself takes microseconds. The **commit** waits for the disk (fsync), often 1-10 ms.
+So with one transaction per save, throughput is about `1 / commit latency`, no matter how fast the inserts are.
+
+**Group commit**: many small units of work from **different threads** are run in **one** physical transaction,
+so one fsync pays for all of them.
+
+* A caller **submits** a unit of work (`Function<Session, R>`) and waits for its result.
+* A committer thread collects units until the batch is **full** (`maxBatch`) or the **latency window** (`maxWaitMillis`)
+  after the first unit is over.
+* All units of the batch run in one session and one transaction. Each unit is flushed right away, so its
+  constraint errors show up inside that unit:
+  * if a unit fails, **only that caller** gets the exception,
+  * the transaction is thrown away and the **other** units run again in a new one.
+    After an exception Hibernate may have marked the transaction rollback-only, and a JDBC savepoint does not clear
+    that: a later `commit()` would roll back quietly and report success for data which is not there.
+* After the commit every caller gets its own result. A caller **never** sees success before the data is committed.
+* If the **commit** itself fails (deadlock, connection lost), every unit of that batch is retried **alone** in its own
+  transaction, so each caller again gets its own success or failure.
+
+---
+
+GroupCommitter.java
+
+package com.txn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+/**
+ * Runs small units of work from many threads in shared transactions.
+ *
+ * GroupCommitter committer = new GroupCommitter(factory).setMaxBatch(64).setMaxWaitMillis(5).start();
+ * Serializable id = committer.execute(s -> s.save(student));   // returns after the commit
+ */
+public class GroupCommitter implements AutoCloseable {
+
+	private static final class Unit<R> {
+		final Function<Session, R> work;
+		final CompletableFuture<R> result = new CompletableFuture<>();
+		final long submittedAt = System.nanoTime();
+		R value;
+
+		Unit(Function<Session, R> work) {
+			this.work = work;
+		}
+	}
+
+	// Batch size buckets: 1, 2-4, 5-16, 17-64, 65+
+	private static final int[] BUCKET_LIMITS = { 1, 4, 16, 64, Integer.MAX_VALUE };
+
+	private final SessionFactory factory;
+	private final BlockingQueue<Unit<?>> queue = new LinkedBlockingQueue<>();
+	private int maxBatch = 64;
+	private long maxWaitMillis = 5;
+	private int committers = 1;
+	private ExecutorService threads;
+	private volatile boolean closed;
+
+	// metrics
+	private final AtomicLong batches = new AtomicLong();
+	private final AtomicLong units = new AtomicLong();
+	private final AtomicLong failedUnits = new AtomicLong();
+	private final AtomicLong failedCommits = new AtomicLong();
+	private final AtomicLong reruns = new AtomicLong();
+	private final AtomicLong maxBatchSeen = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	private final AtomicLong totalCommitNanos = new AtomicLong();
+	private final AtomicLongArray batchSizes = new AtomicLongArray(BUCKET_LIMITS.length);
+
+	public GroupCommitter(SessionFactory factory) {
+		this.factory = factory;
+	}
+
+	public GroupCommitter setMaxBatch(int maxBatch) {
+		this.maxBatch = maxBatch;
+		return this;
+	}
+
+	// Max extra latency a unit waits for others to join its batch
+	public GroupCommitter setMaxWaitMillis(long maxWaitMillis) {
+		this.maxWaitMillis = maxWaitMillis;
+		return this;
+	}
+
+	// Number of transactions which can be open at the same time
+	public GroupCommitter setCommitters(int committers) {
+		this.committers = committers;
+		return this;
+	}
+
+	public GroupCommitter start() {
+		threads = Executors.newFixedThreadPool(committers, r -> {
+			Thread t = new Thread(r, "group-commit");
+			t.setDaemon(true);
+			return t;
+		});
+		for (int i = 0; i < committers; i++) {
+			threads.execute(this::run);
+		}
+		return this;
+	}
+
+	// ---------------------------------------------------------------- callers
+
+	public <R> CompletableFuture<R> submit(Function<Session, R> work) {
+		if (closed) {
+			throw new IllegalStateException("Group committer is closed");
+		}
+		Unit<R> unit = new Unit<>(work);
+		queue.add(unit);
+		return unit.result;
+	}
+
+	// Blocks until the unit is committed (or failed). Exceptions of the unit are thrown as they are.
+	public <R> R execute(Function<Session, R> work) {
+		try {
+			return submit(work).get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new HibernateException("Interrupted while waiting for group commit", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new HibernateException(e.getCause());
+		}
+	}
+
+	// ---------------------------------------------------------------- committer thread
+
+	private void run() {
+		List<Unit<?>> batch = new ArrayList<>(maxBatch);
+		while (!closed || !queue.isEmpty()) {
+			try {
+				Unit<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+				while (batch.size() < maxBatch) {
+					long left = deadline - System.nanoTime();
+					Unit<?> next = left <= 0 ? queue.poll() : queue.poll(left, TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+				commitBatch(batch);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void commitBatch(List<Unit<?>> batch) {
+		long start = System.nanoTime();
+		for (Unit<?> unit : batch) {
+			long waited = start - unit.submittedAt;
+			totalWaitNanos.addAndGet(waited);
+			maxWaitNanos.accumulateAndGet(waited, Math::max);
+		}
+
+		List<Unit<?>> pending = batch;
+		while (!pending.isEmpty()) {
+			pending = runShared(pending);
+		}
+
+		long commitNanos = System.nanoTime() - start;
+		totalCommitNanos.addAndGet(commitNanos);
+		batches.incrementAndGet();
+		units.addAndGet(batch.size());
+		maxBatchSeen.accumulateAndGet(batch.size(), Math::max);
+		for (int i = 0; i < BUCKET_LIMITS.length; i++) {
+			if (batch.size() <= BUCKET_LIMITS[i]) {
+				batchSizes.incrementAndGet(i);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Runs the units in one transaction and completes them after the commit. When a unit fails, the session and
+	 * transaction are not used any more: the others are returned, to run again in a new transaction.
+	 */
+	private List<Unit<?>> runShared(List<Unit<?>> pending) {
+		try (Session session = factory.openSession()) {
+			Transaction tx = session.beginTransaction();
+			try {
+				for (int i = 0; i < pending.size(); i++) {
+					if (!runUnit(session, pending.get(i))) {
+						tx.rollback();
+						List<Unit<?>> rest = new ArrayList<>(pending.subList(0, i));
+						rest.addAll(pending.subList(i + 1, pending.size()));
+						reruns.addAndGet(i);
+						return rest;
+					}
+				}
+				commit(tx);
+			}
+			catch (RuntimeException e) {
+				if (tx.isActive()) {
+					tx.rollback();
+				}
+				throw e;
+			}
+		}
+		catch (RuntimeException e) {
+			// The shared commit failed: nothing of this batch is in the database. Give every unit its own try.
+			failedCommits.incrementAndGet();
+			for (Unit<?> unit : pending) {
+				if (!unit.result.isDone()) {
+					runAlone(unit);
+				}
+			}
+			return Collections.emptyList();
+		}
+		for (Unit<?> unit : pending) {
+			complete(unit);
+		}
+		return Collections.emptyList();
+	}
+
+	// One unit inside the shared transaction. False if it failed; its caller already has the exception.
+	private <R> boolean runUnit(Session session, Unit<R> unit) {
+		try {
+			unit.value = unit.work.apply(session);
+			session.flush(); // constraint errors show up here, inside this unit
+			return true;
+		}
+		catch (RuntimeException e) {
+			failedUnits.incrementAndGet();
+			unit.result.completeExceptionally(e);
+			return false;
+		}
+		finally {
+			// The next unit starts with an empty persistence context
+			session.clear();
+		}
+	}
+
+	// Without JPA compliance, commit() of a rollback-only transaction rolls back and does not throw
+	private static void commit(Transaction tx) {
+		if (tx.getRollbackOnly()) {
+			throw new HibernateException("Transaction was marked rollback-only");
+		}
+		tx.commit();
+	}
+
+	private <R> void runAlone(Unit<R> unit) {
+		try (Session session = factory.openSession()) {
+			Transaction tx = session.beginTransaction();
+			try {
+				unit.value = unit.work.apply(session);
+				commit(tx);
+				complete(unit);
+			}
+			catch (RuntimeException e) {
+				if (tx.isActive()) {
+					tx.rollback();
+				}
+				failedUnits.incrementAndGet();
+				unit.result.completeExceptionally(e);
+			}
+		}
+	}
+
+	private static <R> void complete(Unit<R> unit) {
+		unit.result.complete(unit.value);
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		if (threads != null) {
+			threads.shutdown();
+			try {
+				threads.awaitTermination(30, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		// Anything left was never run
+		Unit<?> unit;
+		while ((unit = queue.poll()) != null) {
+			unit.result.completeExceptionally(new CompletionException(new HibernateException("Group committer closed")));
+		}
+	}
+
+	// ---------------------------------------------------------------- metrics
+
+	public long getBatchCount() {
+		return batches.get();
+	}
+
+	public long getUnitCount() {
+		return units.get();
+	}
+
+	public long getFailedUnitCount() {
+		return failedUnits.get();
+	}
+
+	public long getFailedCommitCount() {
+		return failedCommits.get();
+	}
+
+	// Units run again because another unit of their transaction failed
+	public long getRerunCount() {
+		return reruns.get();
+	}
+
+	public double getAverageBatchSize() {
+		long count = batches.get();
+		return count == 0 ? 0 : (double) units.get() / count;
+	}
+
+	public long getMaxBatchSize() {
+		return maxBatchSeen.get();
+	}
+
+	// Time from submit until the batch started
+	public double getAverageWaitMillis() {
+		long count = units.get();
+		return count == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / count;
+	}
+
+	public double getMaxWaitMillis() {
+		return maxWaitNanos.get() / 1_000_000.0;
+	}
+
+	public double getAverageCommitMillis() {
+		long count = batches.get();
+		return count == 0 ? 0 : totalCommitNanos.get() / 1_000_000.0 / count;
+	}
+
+	// Batches per size bucket: 1, 2-4, 5-16, 17-64, 65+
+	public long[] getBatchSizeHistogram() {
+		long[] histogram = new long[BUCKET_LIMITS.length];
+		for (int i = 0; i < histogram.length; i++) {
+			histogram[i] = batchSizes.get(i);
+		}
+		return histogram;
+	}
+
+	@Override
+	public String toString() {
+		return "batches=" + getBatchCount() + " units=" + getUnitCount() + " avgBatch="
+				+ String.format("%.1f", getAverageBatchSize()) + " maxBatch=" + getMaxBatchSize() + " avgWait="
+				+ String.format("%.2f", getAverageWaitMillis()) + "ms maxWait="
+				+ String.format("%.2f", getMaxWaitMillis()) + "ms failedUnits=" + getFailedUnitCount()
+				+ " failedCommits=" + getFailedCommitCount() + " reruns=" + getRerunCount();
+	}
+}
+
+-------------------------------------
+
+GroupCommitDemo.java
+
+32 threads save 500 students each, like `App`: first with one transaction per save, then with group commit.
+
+package com.txn;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class GroupCommitDemo {
+
+	private static final int THREADS = 32;
+	private static final int PER_THREAD = 500;
+
+	public static void main(String[] args) throws Exception {
+		SessionFactory factory = new Configuration().configure("hibernate.cfg.xml").buildSessionFactory();
+		AtomicInteger ids = new AtomicInteger(1_000_000);
+
+		long start = System.nanoTime();
+		runThreads(() -> {
+			Session session = factory.openSession();
+			Transaction tx = session.beginTransaction();
+			session.save(new Student(ids.incrementAndGet(), "Student", "Delhi"));
+			tx.commit();
+			session.close();
+		});
+		report("one transaction per save", start);
+
+		try (GroupCommitter committer = new GroupCommitter(factory).setMaxBatch(64).setMaxWaitMillis(5).start()) {
+			start = System.nanoTime();
+			runThreads(() -> committer.execute(s -> s.save(new Student(ids.incrementAndGet(), "Student", "Noida"))));
+			report("group commit", start);
+
+			// A failing unit: only this caller gets the exception
+			int duplicate = ids.get();
+			try {
+				committer.execute(s -> s.save(new Student(duplicate, "Duplicate", "Gzb")));
+			}
+			catch (RuntimeException e) {
+				System.out.println("Duplicate id rejected: " + e.getClass().getSimpleName());
+			}
+			System.out.println(committer);
+			System.out.println("Batch sizes (1, 2-4, 5-16, 17-64, 65+): "
+					+ Arrays.toString(committer.getBatchSizeHistogram()));
+		}
+		factory.close();
+	}
+
+	private static void runThreads(Runnable save) throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		for (int t = 0; t < THREADS; t++) {
+			pool.execute(() -> {
+				for (int i = 0; i < PER_THREAD; i++) {
+					save.run();
+				}
+			});
+		}
+		pool.shutdown();
+		pool.awaitTermination(10, TimeUnit.MINUTES);
+	}
+
+	private static void report(String name, long start) {
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%-26s %6.2f s  %8.0f saves/s%n", name, seconds, THREADS * PER_THREAD / seconds);
+	}
+}
+
+-------------------------------------
+
+GroupCommitCheck.java
+
+Failing units share batches with good units: every good row must be in the database afterwards.
+Runs against H2 in memory and throws if a row is missing.
+
+package com.txn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class GroupCommitCheck {
+
+	public static void main(String[] args) throws Exception {
+		Configuration cfg = new Configuration();
+		cfg.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+		cfg.setProperty("hibernate.connection.url", "jdbc:h2:mem:groupcommit;DB_CLOSE_DELAY=-1");
+		cfg.setProperty("hibernate.connection.username", "sa");
+		cfg.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		cfg.setProperty("hibernate.hbm2ddl.auto", "create");
+		cfg.setProperty("hibernate.connection.pool_size", "4");
+		cfg.addAnnotatedClass(Student.class);
+		SessionFactory factory = cfg.buildSessionFactory();
+
+		// Id 1 exists already: units saving it again fail at flush
+		Session s = factory.openSession();
+		Transaction tx = s.beginTransaction();
+		s.save(new Student(1, "Existing", "Delhi"));
+		tx.commit();
+		s.close();
+
+		Set<Integer> good = ConcurrentHashMap.newKeySet();
+		List<Thread> threads = new ArrayList<>();
+		List<CompletableFuture<Object>> results = new ArrayList<>();
+		try (GroupCommitter committer = new GroupCommitter(factory).setMaxBatch(32).setMaxWaitMillis(20).start()) {
+			for (int t = 0; t < 16; t++) {
+				int thread = t;
+				threads.add(new Thread(() -> {
+					for (int i = 0; i < 50; i++) {
+						int id = 1000 + thread * 100 + i;
+						boolean fail = i % 7 == 3;
+						CompletableFuture<Object> result = committer
+								.submit(session -> session.save(new Student(fail ? 1 : id, "Student", "Noida")));
+						synchronized (results) {
+							results.add(result);
+						}
+						if (!fail) {
+							good.add(id);
+						}
+					}
+				}));
+			}
+			threads.forEach(Thread::start);
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			int failed = 0;
+			for (CompletableFuture<Object> result : results) {
+				try {
+					result.join();
+				}
+				catch (RuntimeException e) {
+					failed++;
+				}
+			}
+			System.out.println(committer + " failed=" + failed);
+			if (committer.getRerunCount() == 0) {
+				throw new IllegalStateException("No failing unit shared a batch with good units, check not meaningful");
+			}
+		}
+
+		s = factory.openSession();
+		long rows = s.createQuery("select count(s) from Student s where s.id >= 1000", Long.class).uniqueResult();
+		for (int id : good) {
+			if (s.get(Student.class, id) == null) {
+				throw new IllegalStateException("Unit for id " + id + " reported success, but the row is missing");
+			}
+		}
+		s.close();
+		if (rows != good.size()) {
+			throw new IllegalStateException("Expected " + good.size() + " rows, found " + rows);
+		}
+		System.out.println("OK: all " + rows + " good rows committed");
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* Group commit helps when **many threads** commit at the same time. A single thread gains nothing and waits up to
+  `maxWaitMillis` extra per unit, so keep the window small (1-5 ms).
+* Units share a transaction, so they also share its **locks** until the commit. Keep units small (a few statements),
+  and don't let two units of one batch update the same row in a different order.
+* A unit gets an empty persistence context and must not keep entities for later: the session is cleared after each unit.
+* A unit must not call `beginTransaction()` / `commit()` itself.
+* After a failed unit or a failed shared commit the other units run **again**, so a unit must not depend on state
+  changed by its first run (generated ids already set on a new entity, counters in memory, ...).
+* Many failing units make many reruns. Check input before `submit()`, and watch `getRerunCount()`.
+* Committed means committed for the whole batch: the result is delivered only after the shared `commit()` returned.
+
+---
+
+### 🔸 Summary
+
+| Item                           | Purpose                                               |
+| ------------------------------ | ----------------------------------------------------- |
+| `submit(work)` / `execute(work)` | Unit of work, result after the shared commit        |
+| `maxBatch` / `maxWaitMillis`   | Batch size limit and latency window                   |
+| Rerun on unit failure          | A failing unit fails alone, the others still commit   |
+| Retry alone on commit failure  | Every caller still gets its own outcome               |
+| `getAverageBatchSize()` / histogram | Batch size metrics                               |
+| `getAverageWaitMillis()` / `getMaxWaitMillis()` | Extra latency from waiting for the batch |
@@ -0,0 +1,710 @@
+Transaction Lifetime Profiler and Long-Transaction Detector**
+
+`6_ Hibernate Transactions and Concurrency.java` says: **"Avoid long transactions — keep them short and efficient."**
+Good advice, but nothing tells us **which** transactions are long, or **why**:
+
+* many statements? (N+1 queries inside the transaction)
+* rows locked with `LockMode.PESSIMISTIC_WRITE` and held for a long time?
+* or the transaction is open while the code does **something else** (a REST call, a file upload, `Thread.sleep`...)?
+
+The `TransactionProfiler` measures every transaction from `beginTransaction()` to `commit()` / `rollback()`:
+
+| Measured          | How                                                                  |
+| ----------------- | -------------------------------------------------------------------- |
+| Wall time         | Interceptor `afterTransactionBegin` -> `afterTransactionCompletion`  |
+| Statements        | Session events `jdbcExecuteStatementStart` / `jdbcExecuteBatchStart` |
+| Time in JDBC      | Session events: prepare + execute + batch, start -> end              |
+| Time outside JDBC | Wall time - time in JDBC (your code, result mapping, waiting...)     |
+| Rows locked       | Entities loaded or locked with a **pessimistic** lock mode           |
+
+Everything is grouped by **call site**: the first line of **our** code on the stack when the transaction began,
+e.g. `com.mavenlearn.App.main:27`. For each call site we get a **histogram** of durations.
+
+And it **enforces** limits:
+
+* `warnMillis`: a transaction open longer than this is logged (also while it is still running, by a watchdog thread).
+* `abortMillis`: the next statement of a transaction open longer than this throws `LongTransactionException`.
+  The commit checks it too (a `Synchronization` registered on the transaction): the commit fails and is rolled back,
+  even if there is nothing to flush.
+
+---
+
+### 🔹 Setup
+
+```java
+Configuration cfg = new Configuration().configure("hibernate.cfg.xml");
+TransactionProfiler.configure(cfg);                       // before build: interceptor + session events
+SessionFactory factory = cfg.buildSessionFactory();
+TransactionProfiler.attach(factory);                      // after build: lock listeners
+TransactionProfiler.setWarnMillis(500);
+TransactionProfiler.setAbortMillis(10_000);
+TransactionProfiler.startWatchdog();
+...
+System.out.println(TransactionProfiler.report());
+```
+
+---
+
+TransactionProfiler.java
+
+package com.txn;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.jboss.logging.Logger;
+
+/**
+ * Process-wide transaction statistics. Hibernate creates the interceptor and the session listener itself
+ * (one per session, no-arg constructor), so settings and results live here.
+ */
+public final class TransactionProfiler {
+
+	private static final Logger LOG = Logger.getLogger(TransactionProfiler.class);
+
+	private static final Map<String, CallSiteStats> SITES = new ConcurrentHashMap<>();
+	private static final Set<TxRecord> ACTIVE = ConcurrentHashMap.newKeySet();
+
+	// Transactions begun on this thread and not finished yet, newest last. Concurrent: a transaction may end
+	// (or its session be closed) on another thread.
+	static final ThreadLocal<Deque<TxRecord>> CURRENT = ThreadLocal.withInitial(ConcurrentLinkedDeque::new);
+
+	// Hibernate creates the session's listener and interceptor one after the other on the opening thread
+	private static final ThreadLocal<Object> OPENING = new ThreadLocal<>();
+
+	private static volatile long warnMillis = 1_000;
+	private static volatile long abortMillis = 0; // 0 = never abort
+	private static ScheduledExecutorService watchdog;
+
+	private TransactionProfiler() {
+	}
+
+	// ---------------------------------------------------------------- setup
+
+	public static void configure(Configuration cfg) {
+		cfg.setProperty(AvailableSettings.SESSION_SCOPED_INTERCEPTOR, ProfilingInterceptor.class.getName());
+		cfg.setProperty(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcTimingListener.class.getName());
+	}
+
+	public static void attach(SessionFactory factory) {
+		EventListenerRegistry registry = factory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+		LockCountingListener listener = new LockCountingListener();
+		registry.appendListeners(EventType.POST_LOAD, listener);
+		registry.appendListeners(EventType.LOCK, listener);
+	}
+
+	public static void setWarnMillis(long millis) {
+		warnMillis = millis;
+	}
+
+	// 0 = never abort
+	public static void setAbortMillis(long millis) {
+		abortMillis = millis;
+	}
+
+	// Warns about transactions which are still open after warnMillis, even if they run no statement
+	public static synchronized void startWatchdog() {
+		if (watchdog != null) {
+			return;
+		}
+		watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "long-transaction-watchdog");
+			t.setDaemon(true);
+			return t;
+		});
+		watchdog.scheduleWithFixedDelay(() -> {
+			for (TxRecord tx : ACTIVE) {
+				if (!tx.warned && tx.elapsedMillis() > warnMillis) {
+					tx.warned = true;
+					LOG.warnf("Long transaction still open: %s", tx);
+				}
+			}
+		}, 100, 100, TimeUnit.MILLISECONDS);
+	}
+
+	public static synchronized void stopWatchdog() {
+		if (watchdog != null) {
+			watchdog.shutdownNow();
+			watchdog = null;
+		}
+	}
+
+	// ---------------------------------------------------------------- called by the interceptor
+
+	static TxRecord begin() {
+		TxRecord tx = new TxRecord(callSite(), CURRENT.get());
+		tx.owner.addLast(tx);
+		ACTIVE.add(tx);
+		return tx;
+	}
+
+	// Throws if the transaction is over the abort limit
+	static void check(TxRecord tx) {
+		if (abortMillis > 0 && tx.elapsedMillis() > abortMillis) {
+			throw new LongTransactionException("Transaction open for " + tx.elapsedMillis() + " ms (limit " + abortMillis
+					+ " ms): " + tx);
+		}
+	}
+
+	static void end(TxRecord tx, boolean committed) {
+		// From the deque of the thread which began it, wherever it ends
+		tx.owner.remove(tx);
+		if (!ACTIVE.remove(tx)) {
+			return; // already ended
+		}
+		long wallNanos = System.nanoTime() - tx.startNanos;
+		SITES.computeIfAbsent(tx.callSite, CallSiteStats::new).record(tx, wallNanos, committed);
+		if (!tx.warned && wallNanos / 1_000_000 > warnMillis) {
+			LOG.warnf("Long transaction: %s", tx);
+		}
+	}
+
+	// Pairs the listener and the interceptor of one session, so closing the session can end its transaction
+	static void opening(Object half) {
+		Object other = OPENING.get();
+		if (half instanceof ProfilingInterceptor && other instanceof JdbcTimingListener) {
+			((JdbcTimingListener) other).interceptor = (ProfilingInterceptor) half;
+			OPENING.remove();
+		}
+		else if (half instanceof JdbcTimingListener && other instanceof ProfilingInterceptor) {
+			((JdbcTimingListener) half).interceptor = (ProfilingInterceptor) other;
+			OPENING.remove();
+		}
+		else {
+			OPENING.set(half);
+		}
+	}
+
+	// Newest open transaction of this thread, or null
+	static TxRecord current() {
+		return CURRENT.get().peekLast();
+	}
+
+	// First frame which is not Hibernate, the JDK or this profiler
+	private static String callSite() {
+		for (StackTraceElement frame : new Throwable().getStackTrace()) {
+			String cls = frame.getClassName();
+			if (!cls.startsWith("org.hibernate.") && !cls.startsWith("java.") && !cls.startsWith("javax.")
+					&& !cls.startsWith("sun.") && !cls.startsWith("jdk.") && !cls.equals(TransactionProfiler.class.getName())
+					&& !cls.equals(ProfilingInterceptor.class.getName())) {
+				return cls + "." + frame.getMethodName() + ":" + frame.getLineNumber();
+			}
+		}
+		return "unknown";
+	}
+
+	// ---------------------------------------------------------------- results
+
+	public static Map<String, CallSiteStats> getSites() {
+		return new TreeMap<>(SITES);
+	}
+
+	public static int getActiveCount() {
+		return ACTIVE.size();
+	}
+
+	public static void reset() {
+		SITES.clear();
+	}
+
+	public static String report() {
+		StringBuilder report = new StringBuilder();
+		for (CallSiteStats site : getSites().values()) {
+			report.append(site).append('\n');
+		}
+		return report.toString();
+	}
+}
+
+-------------------------------------
+
+TxRecord.java
+
+package com.txn;
+
+import java.util.Deque;
+
+// One running transaction. Written by its session's thread, read by the watchdog: the counters are volatile.
+final class TxRecord {
+
+	final String callSite;
+	final long startNanos = System.nanoTime();
+	final String thread = Thread.currentThread().getName();
+	// CURRENT deque of the thread which began it
+	final Deque<TxRecord> owner;
+	volatile int statements;
+	volatile long jdbcNanos;
+	volatile int rowsLocked;
+	volatile boolean warned;
+
+	// jdbc start time of the statement which is running now, only used by the session's thread
+	long jdbcStartNanos;
+
+	TxRecord(String callSite, Deque<TxRecord> owner) {
+		this.callSite = callSite;
+		this.owner = owner;
+	}
+
+	long elapsedMillis() {
+		return (System.nanoTime() - startNanos) / 1_000_000;
+	}
+
+	@Override
+	public String toString() {
+		long wall = System.nanoTime() - startNanos;
+		return callSite + " [" + thread + "] " + wall / 1_000_000 + " ms, " + statements + " statements, "
+				+ jdbcNanos / 1_000_000 + " ms in JDBC, " + (wall - jdbcNanos) / 1_000_000 + " ms outside JDBC, "
+				+ rowsLocked + " rows locked";
+	}
+}
+
+-------------------------------------
+
+ProfilingInterceptor.java
+
+package com.txn;
+
+import javax.transaction.Synchronization;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Transaction;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
+
+// One per session (session scoped interceptor)
+public class ProfilingInterceptor extends EmptyInterceptor {
+
+	private static final long serialVersionUID = 1L;
+
+	private transient volatile TxRecord tx;
+
+	public ProfilingInterceptor() {
+		TransactionProfiler.opening(this);
+	}
+
+	@Override
+	public void afterTransactionBegin(Transaction transaction) {
+		TxRecord begun = TransactionProfiler.begin();
+		tx = begun;
+		// Hibernate only logs exceptions of Interceptor.beforeTransactionCompletion, so the commit would go on.
+		// An exception from a Synchronization's beforeCompletion fails the commit and rolls it back.
+		transaction.registerSynchronization(new Synchronization() {
+			@Override
+			public void beforeCompletion() {
+				if (tx == begun) {
+					TransactionProfiler.check(begun);
+				}
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+			}
+		});
+	}
+
+	@Override
+	public String onPrepareStatement(String sql) {
+		if (tx != null) {
+			TransactionProfiler.check(tx);
+		}
+		return sql;
+	}
+
+	@Override
+	public void afterTransactionCompletion(Transaction transaction) {
+		TxRecord ended = tx;
+		if (ended != null) {
+			TransactionProfiler.end(ended, transaction.getStatus() == TransactionStatus.COMMITTED);
+			tx = null;
+		}
+	}
+
+	// Session closed without commit() / rollback(): Hibernate never calls afterTransactionCompletion
+	void sessionClosed() {
+		TxRecord open = tx;
+		if (open != null) {
+			TransactionProfiler.end(open, false);
+			tx = null;
+		}
+	}
+}
+
+-------------------------------------
+
+JdbcTimingListener.java
+
+package com.txn;
+
+import org.hibernate.BaseSessionEventListener;
+
+// One per session (hibernate.session.events.auto). Adds JDBC work to the transaction running on this thread.
+public class JdbcTimingListener extends BaseSessionEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	// Interceptor of the same session, see TransactionProfiler.opening()
+	transient volatile ProfilingInterceptor interceptor;
+
+	public JdbcTimingListener() {
+		TransactionProfiler.opening(this);
+	}
+
+	@Override
+	public void end() {
+		if (interceptor != null) {
+			interceptor.sessionClosed();
+		}
+	}
+
+	@Override
+	public void jdbcPrepareStatementStart() {
+		start();
+	}
+
+	@Override
+	public void jdbcPrepareStatementEnd() {
+		end(false);
+	}
+
+	@Override
+	public void jdbcExecuteStatementStart() {
+		start();
+	}
+
+	@Override
+	public void jdbcExecuteStatementEnd() {
+		end(true);
+	}
+
+	@Override
+	public void jdbcExecuteBatchStart() {
+		start();
+	}
+
+	@Override
+	public void jdbcExecuteBatchEnd() {
+		end(true);
+	}
+
+	private static void start() {
+		TxRecord tx = TransactionProfiler.current();
+		if (tx != null) {
+			tx.jdbcStartNanos = System.nanoTime();
+		}
+	}
+
+	private static void end(boolean statement) {
+		TxRecord tx = TransactionProfiler.current();
+		if (tx != null && tx.jdbcStartNanos != 0) {
+			tx.jdbcNanos += System.nanoTime() - tx.jdbcStartNanos;
+			tx.jdbcStartNanos = 0;
+			if (statement) {
+				tx.statements++;
+			}
+		}
+	}
+}
+
+-------------------------------------
+
+LockCountingListener.java
+
+package com.txn;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.hibernate.HibernateException;
+import org.hibernate.LockMode;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.event.spi.LockEvent;
+import org.hibernate.event.spi.LockEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+// Counts rows loaded with a pessimistic lock (get / query with a lock mode) and rows locked with session.lock()
+public class LockCountingListener implements PostLoadEventListener, LockEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Set<LockMode> PESSIMISTIC = EnumSet.of(LockMode.PESSIMISTIC_READ, LockMode.PESSIMISTIC_WRITE,
+			LockMode.PESSIMISTIC_FORCE_INCREMENT, LockMode.UPGRADE_NOWAIT, LockMode.UPGRADE_SKIPLOCKED);
+
+	@Override
+	public void onPostLoad(PostLoadEvent event) {
+		EntityEntry entry = event.getSession().getPersistenceContext().getEntry(event.getEntity());
+		if (entry != null && PESSIMISTIC.contains(entry.getLockMode())) {
+			locked();
+		}
+	}
+
+	@Override
+	public void onLock(LockEvent event) throws HibernateException {
+		if (PESSIMISTIC.contains(event.getLockMode())) {
+			locked();
+		}
+	}
+
+	@Override
+	public void onLock(LockEvent event, @SuppressWarnings("rawtypes") java.util.Map copiedAlready) {
+		onLock(event);
+	}
+
+	private static void locked() {
+		TxRecord tx = TransactionProfiler.current();
+		if (tx != null) {
+			tx.rowsLocked++;
+		}
+	}
+}
+
+-------------------------------------
+
+CallSiteStats.java
+
+package com.txn;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Totals and a duration histogram for one call site
+public class CallSiteStats {
+
+	// Upper bounds of the histogram buckets in ms, the last bucket is everything above
+	private static final long[] BOUNDS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000 };
+
+	private final String callSite;
+	private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong rolledBack = new AtomicLong();
+	private final AtomicLong wallNanos = new AtomicLong();
+	private final AtomicLong maxWallNanos = new AtomicLong();
+	private final AtomicLong jdbcNanos = new AtomicLong();
+	private final AtomicLong statements = new AtomicLong();
+	private final AtomicLong rowsLocked = new AtomicLong();
+
+	CallSiteStats(String callSite) {
+		this.callSite = callSite;
+	}
+
+	void record(TxRecord tx, long wall, boolean committed) {
+		count.incrementAndGet();
+		if (!committed) {
+			rolledBack.incrementAndGet();
+		}
+		wallNanos.addAndGet(wall);
+		maxWallNanos.accumulateAndGet(wall, Math::max);
+		jdbcNanos.addAndGet(tx.jdbcNanos);
+		statements.addAndGet(tx.statements);
+		rowsLocked.addAndGet(tx.rowsLocked);
+
+		long millis = wall / 1_000_000;
+		int bucket = 0;
+		while (bucket < BOUNDS.length && millis > BOUNDS[bucket]) {
+			bucket++;
+		}
+		buckets.incrementAndGet(bucket);
+	}
+
+	public String getCallSite() {
+		return callSite;
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getRolledBack() {
+		return rolledBack.get();
+	}
+
+	public double getAverageMillis() {
+		return count.get() == 0 ? 0 : wallNanos.get() / 1_000_000.0 / count.get();
+	}
+
+	public double getMaxMillis() {
+		return maxWallNanos.get() / 1_000_000.0;
+	}
+
+	// Share of the wall time not spent in JDBC
+	public double getOutsideJdbcPercent() {
+		long wall = wallNanos.get();
+		return wall == 0 ? 0 : 100.0 * (wall - jdbcNanos.get()) / wall;
+	}
+
+	public double getAverageStatements() {
+		return count.get() == 0 ? 0 : (double) statements.get() / count.get();
+	}
+
+	public long getRowsLocked() {
+		return rowsLocked.get();
+	}
+
+	// Bucket i counts transactions up to BOUNDS[i] ms, the last one all longer ones
+	public long[] getHistogram() {
+		long[] histogram = new long[buckets.length()];
+		for (int i = 0; i < histogram.length; i++) {
+			histogram[i] = buckets.get(i);
+		}
+		return histogram;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder(callSite).append('\n');
+		text.append(String.format("  %d tx (%d rolled back), avg %.1f ms, max %.1f ms, %.1f statements/tx, "
+				+ "%.0f%% outside JDBC, %d rows locked%n", getCount(), getRolledBack(), getAverageMillis(),
+				getMaxMillis(), getAverageStatements(), getOutsideJdbcPercent(), getRowsLocked()));
+		long[] histogram = getHistogram();
+		long max = 1;
+		for (long value : histogram) {
+			max = Math.max(max, value);
+		}
+		for (int i = 0; i < histogram.length; i++) {
+			if (histogram[i] == 0) {
+				continue;
+			}
+			String label = i < BOUNDS.length ? "<= " + BOUNDS[i] + " ms" : " > " + BOUNDS[BOUNDS.length - 1] + " ms";
+			text.append(String.format("  %11s | %-40s %d%n", label, repeat('#', (int) (40 * histogram[i] / max)),
+					histogram[i]));
+		}
+		return text.toString();
+	}
+
+	private static String repeat(char c, int times) {
+		StringBuilder s = new StringBuilder();
+		for (int i = 0; i < times; i++) {
+			s.append(c);
+		}
+		return s.toString();
+	}
+}
+
+-------------------------------------
+
+LongTransactionException.java
+
+package com.txn;
+
+import org.hibernate.HibernateException;
+
+public class LongTransactionException extends HibernateException {
+
+	private static final long serialVersionUID = 1L;
+
+	public LongTransactionException(String message) {
+		super(message);
+	}
+}
+
+-------------------------------------
+
+TransactionProfilerDemo.java
+
+package com.txn;
+
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class TransactionProfilerDemo {
+
+	public static void main(String[] args) throws Exception {
+		Configuration cfg = new Configuration().configure("hibernate.cfg.xml");
+		TransactionProfiler.configure(cfg);
+		SessionFactory factory = cfg.buildSessionFactory();
+		TransactionProfiler.attach(factory);
+		TransactionProfiler.setWarnMillis(200);
+		TransactionProfiler.setAbortMillis(2_000);
+		TransactionProfiler.startWatchdog();
+
+		// Short transactions, like App
+		for (int i = 0; i < 100; i++) {
+			Session session = factory.openSession();
+			Transaction tx = session.beginTransaction();
+			session.get(Student.class, 101);
+			tx.commit();
+			session.close();
+		}
+
+		// Locks a row, then "calls a slow service" inside the transaction
+		Session session = factory.openSession();
+		Transaction tx = session.beginTransaction();
+		Student st = session.get(Student.class, 101, LockMode.PESSIMISTIC_WRITE);
+		Thread.sleep(500); // watchdog warns, 0 statements run meanwhile
+		st.setCity("Noida");
+		tx.commit();
+		session.close();
+
+		// Over the abort limit: the commit fails and is rolled back. Nothing is dirty, so no statement runs at the
+		// commit: the transaction's Synchronization is what throws.
+		session = factory.openSession();
+		tx = session.beginTransaction();
+		try {
+			session.get(Student.class, 101);
+			Thread.sleep(2_500);
+			tx.commit();
+		}
+		catch (RuntimeException e) {
+			// LongTransactionException, wrapped by the failed commit
+			System.out.println("Aborted: " + e);
+		}
+		finally {
+			session.close();
+		}
+
+		// Closed without commit() / rollback(): ended (as rolled back) by the close
+		session = factory.openSession();
+		session.beginTransaction();
+		session.get(Student.class, 101);
+		session.close();
+
+		System.out.println(TransactionProfiler.report());
+		TransactionProfiler.stopWatchdog();
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* The interceptor and listener classes are created by Hibernate **per session**. If you already use a session scoped
+  interceptor, call `TransactionProfiler.begin/check/end` from it instead.
+* JDBC time covers prepare + execute (+ batch). Reading the `ResultSet` and building entities counts as "outside JDBC".
+  A high "outside JDBC" share with few statements means the transaction waits for **our** code.
+* Rows locked counts entities loaded or locked with a **pessimistic** lock mode. A bulk `update ... where` also locks rows,
+  but Hibernate can't see how many.
+* The abort happens at the **next statement or the commit**, on the thread of the transaction. A transaction which
+  is stuck in our code is only **warned** by the watchdog, it can't be stopped from outside.
+* A session closed **without** `commit()` / `rollback()` is counted as rolled back when it closes
+  (the session events listener's `end()`), so it does not stay "active" in the watchdog forever.
+* Finding the call site walks the stack once per transaction. That is cheap compared to a commit, but not free.
+
+---
+
+### 🔸 Summary
+
+| Item                              | Purpose                                              |
+| --------------------------------- | ---------------------------------------------------- |
+| `configure(cfg)` / `attach(f)`    | Install interceptor, session events, lock listeners  |
+| `setWarnMillis(ms)`               | Log transactions longer than this (also while open)  |
+| `setAbortMillis(ms)`              | Fail the next statement / commit after this          |
+| `report()` / `getSites()`         | Per call site: count, avg/max, statements, JDBC share, locks, histogram |
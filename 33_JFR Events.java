@@ -0,0 +1,620 @@
+Java Flight Recorder (JFR) Events for Hibernate**
+
+With **Java Flight Recorder** we can record a running app with very little overhead:
+
+```
+java -XX:StartFlightRecording=duration=60s,filename=app.jfr -jar app.jar
+```
+
+and open `app.jfr` in **JDK Mission Control**: GC pauses, locks, threads, I/O ... all on one timeline.
+But Hibernate work shows up only as anonymous JDBC / socket frames. We can't see **which** query or flush it was.
+
+JFR lets us add our **own events** (`extends jdk.jfr.Event`). They are written into the same recording,
+on the same timeline as GC and lock events, so we can see e.g. "this flush of 8,000 entities ran during that GC pause".
+
+Our events (category **Hibernate** in Mission Control):
+
+| Event                     | Fields                                              | Duration         |
+| ------------------------- | --------------------------------------------------- | ---------------- |
+| `hibernate.Session`       | statements, flushes                                 | open -> close    |
+| `hibernate.Flush`         | entities, collections, dirty entities               | flush            |
+| `hibernate.Query`         | HQL, rows, execution time                           | at the end       |
+| `hibernate.CacheGet`      | kind (entity/collection/query), name, region, hit   | instant          |
+| `hibernate.CachePut`      | kind, name, region                                  | instant          |
+| `hibernate.Transaction`   | committed or rolled back                            | instant          |
+
+### 🔹 Zero cost when disabled
+
+* Every hook first asks JFR whether **its** event type is enabled (`jdk.jfr.EventType.isEnabled()`: true only while a
+  running recording has that event turned on). This also covers a recording which was started before our classes
+  were loaded (`-XX:StartFlightRecording`).
+* Query and cache events come from Hibernate's statistics callbacks. Our `Statistics` says "enabled" **only** while
+  one of those events is enabled (or if `hibernate.generate_statistics` is on anyway). Without such a recording, e.g.
+  with a default continuous recording which does not know our events, Hibernate does not even call them.
+* Cache events are frequent, so they are recorded **without stack traces**.
+
+> Needs the `jdk.jfr` API: JDK 11+, or JDK 8u262+.
+
+---
+
+### 🔹 Setup
+
+```java
+Configuration cfg = new Configuration().configure("hibernate.cfg.xml");
+HibernateJfr.configure(cfg);          // statistics factory + session listener
+SessionFactory factory = cfg.buildSessionFactory();
+HibernateJfr.attach(factory);         // dirty entity counting during flush
+```
+
+---
+
+Events.java
+
+All event classes, in package `com.jfr`. They are `@Enabled(false)`: a recording gets them only when it asks
+for them (`recording.enable("hibernate.Query")`, or `<event name="hibernate.Query"><setting name="enabled">true</setting></event>`
+in a `.jfc` settings file passed as `-XX:StartFlightRecording=settings=hibernate.jfc`).
+
+package com.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("hibernate.Session")
+@Enabled(false)
+@Label("Session")
+@Category("Hibernate")
+@Description("A Hibernate Session, from open to close")
+class SessionEvent extends Event {
+	@Label("Statements")
+	int statements;
+
+	@Label("Flushes")
+	int flushes;
+}
+
+@Name("hibernate.Flush")
+@Enabled(false)
+@Label("Flush")
+@Category("Hibernate")
+class FlushEvent extends Event {
+	@Label("Entities")
+	int entities;
+
+	@Label("Collections")
+	int collections;
+
+	@Label("Dirty Entities")
+	int dirtyEntities;
+}
+
+@Name("hibernate.Query")
+@Enabled(false)
+@Label("Query")
+@Category("Hibernate")
+class QueryEvent extends Event {
+	@Label("HQL")
+	String hql;
+
+	@Label("Rows")
+	int rows;
+
+	@Label("Execution Time")
+	@Timespan(Timespan.MILLISECONDS)
+	long executionTime;
+}
+
+@Name("hibernate.CacheGet")
+@Enabled(false)
+@Label("Second-Level Cache Get")
+@Category({ "Hibernate", "Cache" })
+@StackTrace(false)
+class CacheGetEvent extends Event {
+	@Label("Kind")
+	String kind;
+
+	@Label("Name")
+	String name;
+
+	@Label("Region")
+	String region;
+
+	@Label("Hit")
+	boolean hit;
+}
+
+@Name("hibernate.CachePut")
+@Enabled(false)
+@Label("Second-Level Cache Put")
+@Category({ "Hibernate", "Cache" })
+@StackTrace(false)
+class CachePutEvent extends Event {
+	@Label("Kind")
+	String kind;
+
+	@Label("Name")
+	String name;
+
+	@Label("Region")
+	String region;
+}
+
+@Name("hibernate.Transaction")
+@Enabled(false)
+@Label("Transaction Completion")
+@Category("Hibernate")
+class TransactionEvent extends Event {
+	@Label("Committed")
+	boolean committed;
+}
+
+-------------------------------------
+
+HibernateJfr.java
+
+package com.jfr;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+
+public final class HibernateJfr {
+
+	// Setting name of Hibernate's StatisticsInitiator
+	private static final String STATS_FACTORY = "hibernate.stats.factory";
+
+	// isEnabled() is true only while a running recording has the event turned on
+	private static final jdk.jfr.EventType SESSION = jdk.jfr.EventType.getEventType(SessionEvent.class);
+	private static final jdk.jfr.EventType FLUSH = jdk.jfr.EventType.getEventType(FlushEvent.class);
+	private static final jdk.jfr.EventType QUERY = jdk.jfr.EventType.getEventType(QueryEvent.class);
+	private static final jdk.jfr.EventType CACHE_GET = jdk.jfr.EventType.getEventType(CacheGetEvent.class);
+	private static final jdk.jfr.EventType CACHE_PUT = jdk.jfr.EventType.getEventType(CachePutEvent.class);
+	private static final jdk.jfr.EventType TRANSACTION = jdk.jfr.EventType.getEventType(TransactionEvent.class);
+
+	private HibernateJfr() {
+	}
+
+	public static void configure(Configuration cfg) {
+		cfg.setProperty(STATS_FACTORY, JfrStatisticsFactory.class.getName());
+		cfg.setProperty(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JfrSessionListener.class.getName());
+	}
+
+	public static void attach(SessionFactory factory) {
+		EventListenerRegistry registry = factory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.FLUSH_ENTITY, new DirtyCountListener());
+	}
+
+	static boolean isSessionEnabled() {
+		return SESSION.isEnabled();
+	}
+
+	static boolean isFlushEnabled() {
+		return FLUSH.isEnabled();
+	}
+
+	static boolean isQueryEnabled() {
+		return QUERY.isEnabled();
+	}
+
+	static boolean isCacheGetEnabled() {
+		return CACHE_GET.isEnabled();
+	}
+
+	static boolean isCachePutEnabled() {
+		return CACHE_PUT.isEnabled();
+	}
+
+	static boolean isTransactionEnabled() {
+		return TRANSACTION.isEnabled();
+	}
+
+	// True while a recording wants one of the events which come from the statistics callbacks
+	static boolean isStatisticsEventEnabled() {
+		return QUERY.isEnabled() || CACHE_GET.isEnabled() || CACHE_PUT.isEnabled() || TRANSACTION.isEnabled();
+	}
+}
+
+-------------------------------------
+
+JfrSessionListener.java
+
+package com.jfr;
+
+import org.hibernate.BaseSessionEventListener;
+
+// One per session (hibernate.session.events.auto): session and flush events
+public class JfrSessionListener extends BaseSessionEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	private final SessionEvent session;
+	private FlushEvent flush;
+	private int statements;
+	private int flushes;
+
+	public JfrSessionListener() {
+		// Created when the session opens
+		if (HibernateJfr.isSessionEnabled()) {
+			session = new SessionEvent();
+			session.begin();
+		}
+		else {
+			session = null;
+		}
+	}
+
+	@Override
+	public void jdbcExecuteStatementEnd() {
+		statements++;
+	}
+
+	@Override
+	public void jdbcExecuteBatchEnd() {
+		statements++;
+	}
+
+	@Override
+	public void flushStart() {
+		flushes++;
+		if (HibernateJfr.isFlushEnabled()) {
+			flush = new FlushEvent();
+			DirtyCountListener.start();
+			flush.begin();
+		}
+	}
+
+	@Override
+	public void flushEnd(int numberOfEntities, int numberOfCollections) {
+		if (flush != null) {
+			flush.end();
+			if (flush.shouldCommit()) {
+				flush.entities = numberOfEntities;
+				flush.collections = numberOfCollections;
+				flush.dirtyEntities = DirtyCountListener.stop();
+				flush.commit();
+			}
+			else {
+				DirtyCountListener.stop();
+			}
+			flush = null;
+		}
+	}
+
+	@Override
+	public void end() {
+		// Called when the session closes
+		if (session != null) {
+			session.end();
+			if (session.shouldCommit()) {
+				session.statements = statements;
+				session.flushes = flushes;
+				session.commit();
+			}
+		}
+	}
+}
+
+-------------------------------------
+
+DirtyCountListener.java
+
+package com.jfr;
+
+import org.hibernate.HibernateException;
+import org.hibernate.event.spi.FlushEntityEvent;
+import org.hibernate.event.spi.FlushEntityEventListener;
+
+// Runs after Hibernate's own flush-entity listener, so the dirty properties are already known
+public class DirtyCountListener implements FlushEntityEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	// Dirty entities of the flush running on this thread, null if no flush is recorded
+	private static final ThreadLocal<int[]> DIRTY = new ThreadLocal<>();
+
+	static void start() {
+		DIRTY.set(new int[1]);
+	}
+
+	static int stop() {
+		int[] count = DIRTY.get();
+		DIRTY.remove();
+		return count == null ? 0 : count[0];
+	}
+
+	@Override
+	public void onFlushEntity(FlushEntityEvent event) throws HibernateException {
+		if (!HibernateJfr.isFlushEnabled()) {
+			return;
+		}
+		int[] count = DIRTY.get();
+		if (count != null && (event.getDirtyProperties() != null || event.hasDirtyCollection())) {
+			count[0]++;
+		}
+	}
+}
+
+-------------------------------------
+
+JfrStatistics.java
+
+package com.jfr;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.model.domain.NavigableRole;
+import org.hibernate.stat.internal.StatisticsImpl;
+
+/**
+ * Hibernate's statistics, plus JFR events. While no recording wants these events and normal statistics are off,
+ * isStatisticsEnabled() is false and Hibernate does not call anything here.
+ */
+public class JfrStatistics extends StatisticsImpl {
+
+	public JfrStatistics(SessionFactoryImplementor sessionFactory) {
+		super(sessionFactory);
+	}
+
+	@Override
+	public boolean isStatisticsEnabled() {
+		return super.isStatisticsEnabled() || HibernateJfr.isStatisticsEventEnabled();
+	}
+
+	@Override
+	public void queryExecuted(String hql, int rows, long time) {
+		if (HibernateJfr.isQueryEnabled()) {
+			QueryEvent event = new QueryEvent();
+			if (event.shouldCommit()) {
+				event.hql = hql;
+				event.rows = rows;
+				event.executionTime = time;
+				event.commit();
+			}
+		}
+		if (super.isStatisticsEnabled()) {
+			super.queryExecuted(hql, rows, time);
+		}
+	}
+
+	// ---------------------------------------------------------------- cache gets
+
+	@Override
+	public void entityCacheHit(NavigableRole entityName, String regionName) {
+		cacheGet("entity", entityName.getFullPath(), regionName, true);
+		if (super.isStatisticsEnabled()) {
+			super.entityCacheHit(entityName, regionName);
+		}
+	}
+
+	@Override
+	public void entityCacheMiss(NavigableRole entityName, String regionName) {
+		cacheGet("entity", entityName.getFullPath(), regionName, false);
+		if (super.isStatisticsEnabled()) {
+			super.entityCacheMiss(entityName, regionName);
+		}
+	}
+
+	@Override
+	public void collectionCacheHit(NavigableRole collectionRole, String regionName) {
+		cacheGet("collection", collectionRole.getFullPath(), regionName, true);
+		if (super.isStatisticsEnabled()) {
+			super.collectionCacheHit(collectionRole, regionName);
+		}
+	}
+
+	@Override
+	public void collectionCacheMiss(NavigableRole collectionRole, String regionName) {
+		cacheGet("collection", collectionRole.getFullPath(), regionName, false);
+		if (super.isStatisticsEnabled()) {
+			super.collectionCacheMiss(collectionRole, regionName);
+		}
+	}
+
+	@Override
+	public void queryCacheHit(String hql, String regionName) {
+		cacheGet("query", hql, regionName, true);
+		if (super.isStatisticsEnabled()) {
+			super.queryCacheHit(hql, regionName);
+		}
+	}
+
+	@Override
+	public void queryCacheMiss(String hql, String regionName) {
+		cacheGet("query", hql, regionName, false);
+		if (super.isStatisticsEnabled()) {
+			super.queryCacheMiss(hql, regionName);
+		}
+	}
+
+	// ---------------------------------------------------------------- cache puts
+
+	@Override
+	public void entityCachePut(NavigableRole entityName, String regionName) {
+		cachePut("entity", entityName.getFullPath(), regionName);
+		if (super.isStatisticsEnabled()) {
+			super.entityCachePut(entityName, regionName);
+		}
+	}
+
+	@Override
+	public void collectionCachePut(NavigableRole collectionRole, String regionName) {
+		cachePut("collection", collectionRole.getFullPath(), regionName);
+		if (super.isStatisticsEnabled()) {
+			super.collectionCachePut(collectionRole, regionName);
+		}
+	}
+
+	@Override
+	public void queryCachePut(String hql, String regionName) {
+		cachePut("query", hql, regionName);
+		if (super.isStatisticsEnabled()) {
+			super.queryCachePut(hql, regionName);
+		}
+	}
+
+	// ---------------------------------------------------------------- transactions
+
+	@Override
+	public void endTransaction(boolean success) {
+		if (HibernateJfr.isTransactionEnabled()) {
+			TransactionEvent event = new TransactionEvent();
+			if (event.shouldCommit()) {
+				event.committed = success;
+				event.commit();
+			}
+		}
+		if (super.isStatisticsEnabled()) {
+			super.endTransaction(success);
+		}
+	}
+
+	private static void cacheGet(String kind, String name, String region, boolean hit) {
+		if (HibernateJfr.isCacheGetEnabled()) {
+			CacheGetEvent event = new CacheGetEvent();
+			if (event.shouldCommit()) {
+				event.kind = kind;
+				event.name = name;
+				event.region = region;
+				event.hit = hit;
+				event.commit();
+			}
+		}
+	}
+
+	private static void cachePut(String kind, String name, String region) {
+		if (HibernateJfr.isCachePutEnabled()) {
+			CachePutEvent event = new CachePutEvent();
+			if (event.shouldCommit()) {
+				event.kind = kind;
+				event.name = name;
+				event.region = region;
+				event.commit();
+			}
+		}
+	}
+}
+
+-------------------------------------
+
+JfrStatisticsFactory.java
+
+package com.jfr;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+public class JfrStatisticsFactory implements StatisticsFactory {
+
+	@Override
+	public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+		return new JfrStatistics(sessionFactory);
+	}
+}
+
+-------------------------------------
+
+JfrDemo.java
+
+Starts a recording from code (same as `-XX:StartFlightRecording`), runs some Hibernate work, and prints the
+Hibernate events next to the GC events of the same recording.
+
+package com.jfr;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+
+import com.mavenlearn.Student;
+
+public class JfrDemo {
+
+	public static void main(String[] args) throws Exception {
+		Configuration cfg = new Configuration().configure("hibernate.cfg.xml");
+		HibernateJfr.configure(cfg);
+		SessionFactory factory = cfg.buildSessionFactory();
+		HibernateJfr.attach(factory);
+
+		Path file = Files.createTempFile("hibernate", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("hibernate.Session");
+			recording.enable("hibernate.Flush");
+			recording.enable("hibernate.Query");
+			recording.enable("hibernate.CacheGet");
+			recording.enable("hibernate.CachePut");
+			recording.enable("hibernate.Transaction");
+			recording.enable("jdk.GarbageCollection");
+			recording.enable("jdk.JavaMonitorEnter");
+			recording.start();
+
+			for (int i = 0; i < 200; i++) {
+				Session session = factory.openSession();
+				Transaction tx = session.beginTransaction();
+				List<Student> list = session.createQuery("from Student", Student.class).list();
+				if (!list.isEmpty()) {
+					Student st = list.get(i % list.size());
+					st.setCity(i % 2 == 0 ? "Noida" : "Delhi"); // one dirty entity per flush
+				}
+				session.get(Student.class, 101);
+				tx.commit();
+				session.close();
+			}
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		// Count events per type, in one recording
+		Map<String, Integer> counts = new TreeMap<>();
+		for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+			counts.merge(event.getEventType().getName(), 1, Integer::sum);
+		}
+		counts.forEach((name, count) -> System.out.println(name + " : " + count));
+		System.out.println("Open in Mission Control: " + file);
+		factory.close();
+	}
+}
+
+---
+
+### 🔹 Things to keep in mind
+
+* `hibernate.session.events.auto` takes **one** class. `TransactionProfiler` (file 32) uses it too; use one of them,
+  or register the other listener with `factory.withOptions().eventListeners(...)` when opening sessions.
+* The `Query` event comes from the statistics callback, after the query finished. Its JFR duration is 0,
+  the real duration is the `Execution Time` field.
+* HQL text is recorded as written. Don't put secrets into HQL strings; use parameters (their values are never recorded).
+* `hibernate.generate_statistics=true` still works as before: `factory.getStatistics()` shows the same numbers.
+* Turn on only the events you need in the recording settings (`.jfc` file or `recording.enable(...)`).
+  `CacheGet` can produce many events on a busy cache.
+
+---
+
+### 🔸 Summary
+
+| Item                           | Purpose                                           |
+| ------------------------------ | ------------------------------------------------- |
+| `HibernateJfr.configure(cfg)`  | Statistics factory + session listener             |
+| `HibernateJfr.attach(f)`       | Dirty entity count per flush                      |
+| `hibernate.*` events           | Session, Flush, Query, CacheGet/Put, Transaction  |
+| `EventType.isEnabled()` check  | No events, no statistics calls unless recorded    |
+| `JfrDemo`                      | Hibernate events + GC events in one recording     |
@@ -0,0 +1,836 @@
+Load Test Harness (Latency Percentiles under Concurrency)**
+
+The other files say "batching is faster", "the cache helps", "a bigger pool helps". To **compare** such settings we
+need the same workload, run the same way, and numbers we can trust:
+
+* a **mix** of the operations of this project, run by **N threads** (or virtual threads) at the same time:
+
+| Operation     | Like                                  | What it does                                      |
+| ------------- | ------------------------------------- | ------------------------------------------------- |
+| `insert`      | `App`                                 | save one new `Student`                            |
+| `list`        | `HqlExample` (`from Student`)         | all students of one city                          |
+| `update`      | `HqlExample` (bulk update)            | `update Student set city=:c where name=:n`        |
+| `page`        | `HQLPegination`                       | one page of students, `order by id`               |
+| `graph-save`  | `MapDemo`                             | one `Question` with two `Answer`s                 |
+| `graph-read`  | `MapDemo`                             | `get(Question)` and its answers                   |
+
+* an **embedded H2** database (in memory), so there is no network and no MySQL setup, and every run starts the same,
+* latency **percentiles** (p50, p90, p99, p99.9, max) with **HdrHistogram**, not only an average,
+* **JSON** output, one file per run, so runs can be compared or kept in git.
+
+---
+
+### 🔹 Coordinated omission
+
+A normal loop is `start = now; run(); record(now - start)`. If one call hangs for 2 seconds, the thread sends
+**nothing** in those 2 seconds. All the requests which real users would have sent in that time, and which would
+have waited too, are never measured. The percentiles look much better than the truth.
+
+Two ways to fix it, both in the harness:
+
+1. **Fixed rate** (`rate=2000`): every thread has a **schedule** (`intended = start + n * interval`).
+   Latency is measured from the **intended** start, not the real one. A stall makes the next calls late, and
+   that lateness is counted. The pure service time is recorded too (`service` in the JSON).
+2. **As fast as possible** (`rate=0`): HdrHistogram fills the missing samples with
+   `recordValueWithExpectedInterval(value, expected)`. The expected interval is the mean call time measured
+   during warmup (or `expectedMicros=...`).
+
+---
+
+### 🔹 Dependencies
+
+```xml
+<dependency>
+    <groupId>org.hdrhistogram</groupId>
+    <artifactId>HdrHistogram</artifactId>
+    <version>2.1.12</version>
+</dependency>
+<dependency>
+    <groupId>com.h2database</groupId>
+    <artifactId>h2</artifactId>
+    <version>1.4.200</version>
+</dependency>
+```
+
+---
+
+### 🔹 Running
+
+Arguments are `key=value`. Keys starting with `hibernate.` go to Hibernate as they are.
+
+```
+java com.loadtest.LoadTest label=baseline threads=16 duration=60 output=baseline.json
+java com.loadtest.LoadTest label=batch50  threads=16 duration=60 output=batch50.json hibernate.jdbc.batch_size=50
+java com.loadtest.LoadTest label=virtual  threads=200 virtual=true rate=4000 hibernate.connection.pool_size=20
+java com.loadtest.LoadTest mix=insert:50,page:50
+```
+
+| Key              | Default                                                             |
+| ---------------- | ------------------------------------------------------------------- |
+| `threads`        | 8                                                                   |
+| `virtual`        | false (Java 21+, else platform threads)                             |
+| `warmup`         | 10 seconds, not measured                                            |
+| `duration`       | 60 seconds, measured                                                |
+| `rate`           | 0 = as fast as possible, else total operations per second           |
+| `mix`            | `insert:20,list:10,update:5,page:40,graph-save:5,graph-read:20`     |
+| `seed`           | 42 (random numbers of every thread)                                 |
+| `students`       | 1000 rows loaded before the run                                     |
+| `pageSize`       | 10                                                                  |
+| `expectedMicros` | 0 = measured in warmup                                              |
+| `label`, `output`| name of the run, JSON file (stdout if not given)                    |
+
+---
+
+LoadTestConfig.java
+
+package com.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.HibernateException;
+
+public class LoadTestConfig {
+
+	int threads = 8;
+	boolean virtualThreads;
+	int warmupSeconds = 10;
+	int durationSeconds = 60;
+	int rate;
+	long seed = 42;
+	int students = 1000;
+	int pageSize = 10;
+	long expectedMicros;
+	String label = "default";
+	String output;
+	final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+	final Properties hibernate = new Properties();
+
+	public LoadTestConfig() {
+		mix("insert:20,list:10,update:5,page:40,graph-save:5,graph-read:20");
+	}
+
+	public static LoadTestConfig fromArgs(String... args) {
+		LoadTestConfig config = new LoadTestConfig();
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			if (eq < 0) {
+				throw new HibernateException("Expected key=value, got " + arg);
+			}
+			String key = arg.substring(0, eq);
+			String value = arg.substring(eq + 1);
+			if (key.startsWith("hibernate.")) {
+				config.property(key, value);
+				continue;
+			}
+			switch (key) {
+			case "threads": config.threads(Integer.parseInt(value)); break;
+			case "virtual": config.virtualThreads(Boolean.parseBoolean(value)); break;
+			case "warmup": config.warmup(Integer.parseInt(value)); break;
+			case "duration": config.duration(Integer.parseInt(value)); break;
+			case "rate": config.rate(Integer.parseInt(value)); break;
+			case "mix": config.mix(value); break;
+			case "seed": config.seed(Long.parseLong(value)); break;
+			case "students": config.students(Integer.parseInt(value)); break;
+			case "pageSize": config.pageSize(Integer.parseInt(value)); break;
+			case "expectedMicros": config.expectedMicros(Long.parseLong(value)); break;
+			case "label": config.label(value); break;
+			case "output": config.output(value); break;
+			default: throw new HibernateException("Unknown option " + key);
+			}
+		}
+		return config;
+	}
+
+	public LoadTestConfig threads(int threads) {
+		this.threads = threads;
+		return this;
+	}
+
+	public LoadTestConfig virtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+		return this;
+	}
+
+	public LoadTestConfig warmup(int seconds) {
+		this.warmupSeconds = seconds;
+		return this;
+	}
+
+	public LoadTestConfig duration(int seconds) {
+		this.durationSeconds = seconds;
+		return this;
+	}
+
+	// Total operations per second of all threads, 0 = as fast as possible
+	public LoadTestConfig rate(int rate) {
+		this.rate = rate;
+		return this;
+	}
+
+	// "insert:20,page:40,..." - weights, operations not named are not run
+	public LoadTestConfig mix(String mix) {
+		this.mix.clear();
+		for (String part : mix.split(",")) {
+			String[] kv = part.trim().split(":");
+			this.mix.put(Operation.byCode(kv[0].trim()), Integer.parseInt(kv[1].trim()));
+		}
+		return this;
+	}
+
+	public LoadTestConfig seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	public LoadTestConfig students(int students) {
+		this.students = students;
+		return this;
+	}
+
+	public LoadTestConfig pageSize(int pageSize) {
+		this.pageSize = pageSize;
+		return this;
+	}
+
+	public LoadTestConfig expectedMicros(long expectedMicros) {
+		this.expectedMicros = expectedMicros;
+		return this;
+	}
+
+	public LoadTestConfig label(String label) {
+		this.label = label;
+		return this;
+	}
+
+	public LoadTestConfig output(String output) {
+		this.output = output;
+		return this;
+	}
+
+	public LoadTestConfig property(String key, String value) {
+		hibernate.setProperty(key, value);
+		return this;
+	}
+}
+
+-------------------------------------
+
+Operation.java
+
+package com.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import com.map.Question;
+import com.mavenlearn.Student;
+
+public enum Operation {
+
+	// App: save one student
+	INSERT("insert") {
+		@Override
+		void run(Session s, Workload w, Random r) {
+			int id = w.nextStudentId.getAndIncrement();
+			s.save(new Student(id, w.name(id), w.city(r)));
+		}
+	},
+
+	// HqlExample: list
+	LIST("list") {
+		@Override
+		void run(Session s, Workload w, Random r) {
+			s.createQuery("from Student where city = :c", Student.class)
+					.setParameter("c", w.city(r))
+					.list();
+		}
+	},
+
+	// HqlExample: bulk update
+	UPDATE("update") {
+		@Override
+		void run(Session s, Workload w, Random r) {
+			s.createQuery("update Student set city=:c where name=:n")
+					.setParameter("c", w.city(r))
+					.setParameter("n", w.name(r.nextInt(Workload.NAMES)))
+					.executeUpdate();
+		}
+	},
+
+	// HQLPegination: one page
+	PAGE("page") {
+		@Override
+		void run(Session s, Workload w, Random r) {
+			int pages = Math.max(1, w.studentCount() / w.pageSize);
+			s.createQuery("from Student order by id", Student.class)
+					.setFirstResult(r.nextInt(pages) * w.pageSize)
+					.setMaxResults(w.pageSize)
+					.list();
+		}
+	},
+
+	// MapDemo: question with two answers
+	GRAPH_SAVE("graph-save") {
+		@Override
+		void run(Session s, Workload w, Random r) {
+			w.saveGraph(s, w.nextQuestionId.getAndIncrement());
+		}
+	},
+
+	// MapDemo: read question and its answers
+	GRAPH_READ("graph-read") {
+		@Override
+		void run(Session s, Workload w, Random r) {
+			Question q = s.get(Question.class, 1 + r.nextInt(w.questionCount()));
+			if (q != null) {
+				q.getAnswers().size();
+			}
+		}
+	};
+
+	private final String code;
+
+	Operation(String code) {
+		this.code = code;
+	}
+
+	public String getCode() {
+		return code;
+	}
+
+	abstract void run(Session s, Workload w, Random r);
+
+	// One session and one transaction per operation, like the demos
+	void execute(SessionFactory factory, Workload w, Random r) {
+		try (Session s = factory.openSession()) {
+			Transaction tx = s.beginTransaction();
+			try {
+				run(s, w, r);
+				tx.commit();
+			}
+			catch (RuntimeException e) {
+				if (tx.isActive()) {
+					tx.rollback();
+				}
+				throw e;
+			}
+		}
+	}
+
+	static Operation byCode(String code) {
+		for (Operation op : values()) {
+			if (op.code.equals(code)) {
+				return op;
+			}
+		}
+		List<String> codes = new ArrayList<>();
+		for (Operation op : values()) {
+			codes.add(op.code);
+		}
+		throw new HibernateException("Unknown operation " + code + ", use one of " + codes);
+	}
+}
+
+-------------------------------------
+
+Workload.java
+
+Shared data of one run: next ids, and the rows loaded before the run.
+
+package com.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import com.map.Answer;
+import com.map.Question;
+import com.mavenlearn.Student;
+
+class Workload {
+
+	// 50 different names: one bulk update changes about 2% of the students
+	static final int NAMES = 50;
+	private static final String[] CITIES = { "Delhi", "Gzb", "Noida", "Meerut", "Bhjnpura" };
+
+	final AtomicInteger nextStudentId = new AtomicInteger(1);
+	final AtomicInteger nextQuestionId = new AtomicInteger(1);
+	final AtomicInteger nextAnswerId = new AtomicInteger(1);
+	final int pageSize;
+
+	Workload(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	// Same rows for every run: students 1..n, n/10 questions with two answers each
+	void load(SessionFactory factory, int students) {
+		try (Session s = factory.openSession()) {
+			Transaction tx = s.beginTransaction();
+			for (int i = 0; i < students; i++) {
+				int id = nextStudentId.getAndIncrement();
+				s.save(new Student(id, name(id), CITIES[id % CITIES.length]));
+				if (i % 50 == 49) {
+					s.flush();
+					s.clear();
+				}
+			}
+			for (int i = 0; i < Math.max(1, students / 10); i++) {
+				saveGraph(s, nextQuestionId.getAndIncrement());
+				if (i % 50 == 49) {
+					s.flush();
+					s.clear();
+				}
+			}
+			tx.commit();
+		}
+	}
+
+	void saveGraph(Session s, int questionId) {
+		Question q = new Question();
+		q.setQuestionId(questionId);
+		q.setQuestion("Question " + questionId);
+		List<Answer> answers = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			Answer a = new Answer(nextAnswerId.getAndIncrement(), "Answer " + i + " of " + questionId);
+			a.setQuestion(q);
+			answers.add(a);
+		}
+		q.setAnswers(answers);
+		s.save(q);
+		answers.forEach(s::save);
+	}
+
+	// Ids taken so far. A new row may not be committed yet, so reads can miss it.
+	int studentCount() {
+		return nextStudentId.get() - 1;
+	}
+
+	int questionCount() {
+		return Math.max(1, nextQuestionId.get() - 1);
+	}
+
+	String name(int id) {
+		return "Student " + (id % NAMES);
+	}
+
+	String city(Random r) {
+		return CITIES[r.nextInt(CITIES.length)];
+	}
+}
+
+-------------------------------------
+
+OperationStats.java
+
+package com.loadtest;
+
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+// Latencies of one operation, in microseconds
+class OperationStats {
+
+	static final long HIGHEST = TimeUnit.MINUTES.toMicros(10);
+
+	// With coordinated omission corrected: what a user would see
+	final Histogram latency = new Histogram(HIGHEST, 3);
+	// Time inside the call only (fixed rate mode)
+	final Histogram service = new Histogram(HIGHEST, 3);
+	long errors;
+
+	void add(OperationStats other) {
+		latency.add(other.latency);
+		service.add(other.service);
+		errors += other.errors;
+	}
+
+	static long clamp(long micros) {
+		return Math.max(0, Math.min(micros, HIGHEST));
+	}
+}
+
+-------------------------------------
+
+Worker.java
+
+package com.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.hibernate.SessionFactory;
+
+// One thread of the load test. Keeps its own histograms, merged at the end.
+class Worker implements Callable<Map<Operation, OperationStats>> {
+
+	private final SessionFactory factory;
+	private final Workload workload;
+	private final LoadTestConfig config;
+	private final Random random;
+	private final Operation[] ops;
+	private final int[] cumulative;
+	private final long measureFrom;
+	private final long endAt;
+	private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+	Worker(SessionFactory factory, Workload workload, LoadTestConfig config, int index, long startNanos) {
+		this.factory = factory;
+		this.workload = workload;
+		this.config = config;
+		this.random = new Random(config.seed + index);
+		this.measureFrom = startNanos + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+		this.endAt = measureFrom + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+
+		ops = config.mix.keySet().toArray(new Operation[0]);
+		cumulative = new int[ops.length];
+		int total = 0;
+		for (int i = 0; i < ops.length; i++) {
+			total += config.mix.get(ops[i]);
+			cumulative[i] = total;
+		}
+		for (Operation op : ops) {
+			stats.put(op, new OperationStats());
+		}
+	}
+
+	@Override
+	public Map<Operation, OperationStats> call() {
+		long interval = config.rate > 0 ? TimeUnit.SECONDS.toNanos(1) * config.threads / config.rate : 0;
+		long next = System.nanoTime();
+		long warmupCalls = 0;
+		long warmupMicros = 0;
+		long expected = config.expectedMicros;
+
+		while (true) {
+			long intended;
+			if (interval > 0) {
+				intended = next;
+				next += interval;
+				sleepUntil(intended);
+			}
+			else {
+				intended = System.nanoTime();
+			}
+			if (intended >= endAt) {
+				break;
+			}
+
+			Operation op = pick();
+			long start = System.nanoTime();
+			boolean failed = false;
+			try {
+				op.execute(factory, workload, random);
+			}
+			catch (RuntimeException e) {
+				failed = true;
+			}
+			long end = System.nanoTime();
+
+			if (start < measureFrom) {
+				warmupCalls++;
+				warmupMicros += TimeUnit.NANOSECONDS.toMicros(end - start);
+				continue;
+			}
+			if (expected == 0) {
+				expected = warmupCalls == 0 ? 0 : Math.max(1, warmupMicros / warmupCalls);
+			}
+
+			OperationStats s = stats.get(op);
+			long serviceMicros = OperationStats.clamp(TimeUnit.NANOSECONDS.toMicros(end - start));
+			s.service.recordValue(serviceMicros);
+			if (interval > 0) {
+				// From the time the call should have started
+				s.latency.recordValue(OperationStats.clamp(TimeUnit.NANOSECONDS.toMicros(end - intended)));
+			}
+			else if (expected > 0) {
+				s.latency.recordValueWithExpectedInterval(serviceMicros, expected);
+			}
+			else {
+				s.latency.recordValue(serviceMicros);
+			}
+			if (failed) {
+				s.errors++;
+			}
+		}
+		return stats;
+	}
+
+	private Operation pick() {
+		int n = random.nextInt(cumulative[cumulative.length - 1]);
+		for (int i = 0; i < cumulative.length; i++) {
+			if (n < cumulative[i]) {
+				return ops[i];
+			}
+		}
+		return ops[ops.length - 1];
+	}
+
+	private static void sleepUntil(long nanoTime) {
+		long wait;
+		while ((wait = nanoTime - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(wait);
+		}
+	}
+}
+
+-------------------------------------
+
+LoadTest.java
+
+package com.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.HdrHistogram.Histogram;
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.jboss.logging.Logger;
+
+import com.map.Answer;
+import com.map.Question;
+import com.mavenlearn.Student;
+
+public class LoadTest {
+
+	private static final Logger LOG = Logger.getLogger(LoadTest.class);
+
+	private final LoadTestConfig config;
+	private String threadKind = "platform";
+
+	public LoadTest(LoadTestConfig config) {
+		this.config = config;
+	}
+
+	public static void main(String[] args) throws IOException {
+		LoadTestConfig config = LoadTestConfig.fromArgs(args);
+		String json = new LoadTest(config).run();
+		if (config.output == null) {
+			System.out.println(json);
+		}
+		else {
+			Files.write(Paths.get(config.output), json.getBytes(StandardCharsets.UTF_8));
+			System.out.println("Written " + config.output);
+		}
+	}
+
+	// Runs warmup + measured time, returns the result as JSON
+	public String run() {
+		SessionFactory factory = buildFactory();
+		ExecutorService executor = newExecutor();
+		try {
+			Workload workload = new Workload(config.pageSize);
+			workload.load(factory, config.students);
+
+			long start = System.nanoTime();
+			List<Future<Map<Operation, OperationStats>>> futures = new ArrayList<>();
+			for (int i = 0; i < config.threads; i++) {
+				futures.add(executor.submit(new Worker(factory, workload, config, i, start)));
+			}
+
+			Map<Operation, OperationStats> total = new EnumMap<>(Operation.class);
+			for (Future<Map<Operation, OperationStats>> future : futures) {
+				future.get().forEach((op, s) -> total.computeIfAbsent(op, o -> new OperationStats()).add(s));
+			}
+			return toJson(total);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new HibernateException("Load test interrupted", e);
+		}
+		catch (ExecutionException e) {
+			throw new HibernateException("Load test worker failed", e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+			factory.close();
+		}
+	}
+
+	private SessionFactory buildFactory() {
+		Configuration cfg = new Configuration();
+		cfg.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+		cfg.setProperty("hibernate.connection.url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+		cfg.setProperty("hibernate.connection.username", "sa");
+		cfg.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		cfg.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+		cfg.setProperty("hibernate.connection.pool_size", String.valueOf(Math.min(config.threads, 64)));
+		cfg.addAnnotatedClass(Student.class);
+		cfg.addAnnotatedClass(Question.class);
+		cfg.addAnnotatedClass(Answer.class);
+		// Options of this run (batch size, cache, pool ...) win over the defaults above
+		cfg.addProperties(config.hibernate);
+		return cfg.buildSessionFactory();
+	}
+
+	private ExecutorService newExecutor() {
+		if (config.virtualThreads) {
+			try {
+				// Java 21+, found by reflection so the harness still compiles on Java 8 and 11
+				ExecutorService executor = (ExecutorService) Executors.class
+						.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+				threadKind = "virtual";
+				return executor;
+			}
+			catch (ReflectiveOperationException e) {
+				LOG.warn("Virtual threads need Java 21, using platform threads");
+			}
+		}
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(config.threads, r -> {
+			Thread t = new Thread(r, "load-test-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	// ---------------------------------------------------------------- JSON
+
+	private String toJson(Map<Operation, OperationStats> total) {
+		OperationStats all = new OperationStats();
+		total.values().forEach(all::add);
+
+		StringBuilder json = new StringBuilder("{\n");
+		json.append("  \"label\": ").append(quote(config.label)).append(",\n");
+		json.append("  \"java\": ").append(quote(System.getProperty("java.version"))).append(",\n");
+		json.append("  \"threads\": ").append(config.threads).append(",\n");
+		json.append("  \"threadKind\": ").append(quote(threadKind)).append(",\n");
+		json.append("  \"warmupSeconds\": ").append(config.warmupSeconds).append(",\n");
+		json.append("  \"durationSeconds\": ").append(config.durationSeconds).append(",\n");
+		json.append("  \"rate\": ").append(config.rate).append(",\n");
+		json.append("  \"seed\": ").append(config.seed).append(",\n");
+		json.append("  \"mix\": {");
+		String sep = "";
+		for (Map.Entry<Operation, Integer> e : config.mix.entrySet()) {
+			json.append(sep).append(quote(e.getKey().getCode())).append(": ").append(e.getValue());
+			sep = ", ";
+		}
+		json.append("},\n");
+		json.append("  \"hibernate\": {");
+		sep = "";
+		for (String key : config.hibernate.stringPropertyNames()) {
+			json.append(sep).append(quote(key)).append(": ").append(quote(config.hibernate.getProperty(key)));
+			sep = ", ";
+		}
+		json.append("},\n");
+		json.append("  \"total\": ");
+		operation(json, all);
+		json.append(",\n  \"operations\": {\n");
+		sep = "";
+		for (Map.Entry<Operation, OperationStats> e : total.entrySet()) {
+			json.append(sep).append("    ").append(quote(e.getKey().getCode())).append(": ");
+			operation(json, e.getValue());
+			sep = ",\n";
+		}
+		json.append("\n  }\n}");
+		return json.toString();
+	}
+
+	private void operation(StringBuilder json, OperationStats s) {
+		long calls = s.service.getTotalCount();
+		json.append("{\"calls\": ").append(calls)
+				.append(", \"errors\": ").append(s.errors)
+				.append(", \"perSecond\": ").append(String.format(Locale.ROOT, "%.1f", (double) calls / config.durationSeconds))
+				.append(", \"latencyMicros\": ");
+		percentiles(json, s.latency);
+		json.append(", \"serviceMicros\": ");
+		percentiles(json, s.service);
+		json.append("}");
+	}
+
+	private static void percentiles(StringBuilder json, Histogram h) {
+		json.append("{\"mean\": ").append(String.format(Locale.ROOT, "%.1f", h.getMean()))
+				.append(", \"p50\": ").append(h.getValueAtPercentile(50))
+				.append(", \"p90\": ").append(h.getValueAtPercentile(90))
+				.append(", \"p99\": ").append(h.getValueAtPercentile(99))
+				.append(", \"p999\": ").append(h.getValueAtPercentile(99.9))
+				.append(", \"max\": ").append(h.getMaxValue())
+				.append("}");
+	}
+
+	private static String quote(String s) {
+		return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+}
+
+---
+
+Example output (shortened):
+
+```json
+{
+  "label": "batch50",
+  "threads": 16,
+  "threadKind": "platform",
+  "rate": 0,
+  "total": {"calls": 412930, "errors": 0, "perSecond": 6882.2,
+            "latencyMicros": {"mean": 2411.7, "p50": 1873, "p90": 3891, "p99": 11263, "p999": 40959, "max": 212991},
+            "serviceMicros": {"mean": 2322.4, "p50": 1871, "p90": 3827, "p99": 9727, "p999": 24575, "max": 212991}},
+  "operations": {
+    "insert": {...},
+    "page": {...}
+  }
+}
+```
+
+---
+
+### 🔹 Things to keep in mind
+
+* Compare **`latencyMicros`**, not `serviceMicros`. The second one hides the stalls (that is the point of it:
+  the difference between the two shows how much waiting the stalls caused).
+* **Repeatable** means: same seed, same mix, same starting rows. The order in which threads run is still up to the
+  OS, so run each setting a few times and look at the spread.
+* The warmup is not measured: JIT, connection pool and caches are warm before the clock starts.
+* The built-in Hibernate pool is a **test** pool. With many (virtual) threads the pool size is the real limit;
+  set `hibernate.connection.pool_size` on purpose and compare.
+* Virtual threads: Hibernate 5 and the H2 driver use `synchronized`, which pins the carrier thread (before Java 24).
+  That is a result worth measuring, not a bug of the harness.
+* H2 in memory is not MySQL. Use it to compare **Hibernate settings** with each other. For numbers about the real
+  database, point `hibernate.connection.url` (and `dialect`) at it; the harness does not care.
+* `update` locks rows. With many threads it also measures lock waits, like a real app would.
+
+---
+
+### 🔸 Summary
+
+| Item                                  | Purpose                                             |
+| ------------------------------------- | --------------------------------------------------- |
+| `LoadTest` `key=value` args           | One run: threads, mix, rate, Hibernate settings      |
+| `mix=insert:20,page:40,...`           | Weights of the project's operations                 |
+| `rate=N`                              | Fixed schedule, latency from the intended start     |
+| `recordValueWithExpectedInterval`     | Coordinated omission fix when running flat out      |
+| `virtual=true`                        | Virtual threads on Java 21+, else platform threads  |
+| `output=run.json`                     | JSON with p50/p90/p99/p99.9/max per operation       |
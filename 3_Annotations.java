@@ -8,6 +8,7 @@ Annotations:
 @Transient- This tells hibernate not to save the fields.
 @Temporal- @Temporal over a date field tells hibernate the format in which the data needs to be saved.
 @Lob- this tells hibernate that this is a large object, not a simple object.
+      (To load a @Lob only when needed and read it as a stream, see 29_Streaming Lob Access.java)
 
  Hibernate Annotations and Mapping**
 
@@ -156,6 +157,7 @@ public class Role {
 
 * `@Transient`: Marks a field to be ignored by Hibernate.
 * `@Embedded`: Embeds a value object (reused structure).
+* `@NaturalId`: Marks a business key (like email) so the entity can be loaded with `session.bySimpleNaturalId()`. See `12_Natural Id Lookups.java`.
 
 Example:
 
@@ -68,3 +68,5 @@ public class HqlExample {
 	}
 
 }
+
+== For queries used again and again, declare them once with @NamedQuery. See 13_Named Queries.java.
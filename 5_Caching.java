@@ -84,3 +84,9 @@ When you have data that's read frequently but rarely updated.
 Read-heavy applications
 For data shared across users (e.g., country lists, permissions).
 Avoid on rapidly changing transactional data.
+
+
+For very big read-mostly regions, see 10_Off-Heap Second Level Cache.java (stores cache entries outside the Java heap).
+
+Concurrent misses on the same entry (cache stampede) are handled in 26_Cache Stampede Protection.java (single-flight loading, refresh-ahead).
+To start a node with a warm cache after a deploy, see 27_Cache Warm Start.java (snapshot file of the entity regions).
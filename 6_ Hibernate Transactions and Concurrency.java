@@ -44,7 +44,7 @@ try {
 
 * Always **commit or rollback** the transaction.
 * Use `try-catch-finally` to handle exceptions.
-* Avoid long transactions — keep them short and efficient.
+* Avoid long transactions — keep them short and efficient. (To measure and limit them, see 32_Transaction Profiler.java)
 
 ---
 
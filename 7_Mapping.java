@@ -622,7 +622,10 @@ import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.ManyToMany;
 
+import org.hibernate.annotations.Immutable;
+
 @Entity
+@Immutable // Reference data: loaded read-only, never dirty-checked. See 30_Immutable Reference Entities.java
 public class Project {
 	@Id
    private int pid;
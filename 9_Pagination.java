@@ -130,6 +130,8 @@ You can then calculate:
 int totalPages = (int) Math.ceil((double) totalRecords / pageSize);
 ```
 
+This costs a second query. To get the page and the total in one round trip, see `23_Page With Total Count.java`.
+
 ---
 
 ## 🔸 Summary